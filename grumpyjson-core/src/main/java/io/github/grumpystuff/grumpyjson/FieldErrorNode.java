@@ -6,6 +6,7 @@
  */
 package io.github.grumpystuff.grumpyjson;
 
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationErrorBudget;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
 import io.github.grumpystuff.grumpyjson.util.StringUtil;
@@ -51,6 +52,7 @@ public abstract class FieldErrorNode {
      * @return the newly created node
      */
     public static FieldErrorNode create(String message) {
+        DeserializationErrorBudget.countError();
         return new Message(message);
     }
 
@@ -61,6 +63,7 @@ public abstract class FieldErrorNode {
      * @return the newly created node
      */
     public static FieldErrorNode create(Exception exception) {
+        DeserializationErrorBudget.countError();
         return new InternalException(exception);
     }
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson;
+
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+
+/**
+ * Parses JSON syntax that arrives in chunks, such as a request body that is read without blocking. Each chunk is
+ * processed as far as possible when it is fed, so parsing overlaps with waiting for more input, and the caller may
+ * re-use the chunk buffer as soon as {@link #feed(byte[], int, int)} returns.
+ * <p>
+ * As demanded by the MIME type application/json, the input must be UTF-8 encoded. Chunk boundaries may split
+ * multi-byte characters.
+ * <p>
+ * Instances are obtained from {@link JsonEngine#newIncrementalParser()}. An instance parses a single JSON value and
+ * must not be used from multiple threads at the same time.
+ */
+public interface IncrementalJsonParser extends AutoCloseable {
+
+    /**
+     * Feeds the next chunk of input to this parser.
+     *
+     * @param buffer the buffer that contains the chunk
+     * @param offset the start index of the chunk in the buffer
+     * @param length the length of the chunk
+     * @throws JsonDeserializationException if the JSON is malformed. A parser that has thrown this exception must not
+     * be fed any more input.
+     */
+    void feed(byte[] buffer, int offset, int length) throws JsonDeserializationException;
+
+    /**
+     * Signals the end of input and returns the parsed JSON value.
+     *
+     * @return the JSON value
+     * @throws JsonDeserializationException if the JSON is malformed, incomplete or missing altogether
+     */
+    JsonElement finish() throws JsonDeserializationException;
+
+    /**
+     * Releases any resources held by this parser. This must be called if parsing is abandoned before calling
+     * {@link #finish()}, and may be called after that.
+     */
+    @Override
+    default void close() {
+    }
+
+}
@@ -9,9 +9,14 @@ package io.github.grumpystuff.grumpyjson;
 
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
+import io.github.grumpystuff.grumpyjson.jfr.JsonDeserializationEvent;
+import io.github.grumpystuff.grumpyjson.jfr.JsonSerializationEvent;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializer;
 import io.github.grumpystuff.grumpyjson.util.CloseShieldOutputStream;
+import io.github.grumpystuff.grumpyjson.util.CountingInputStream;
+import io.github.grumpystuff.grumpyjson.util.CountingOutputStream;
 
 import java.io.*;
 import java.lang.reflect.Type;
@@ -109,7 +114,7 @@ public abstract class JsonEngine extends StructuralJsonEngine {
         Objects.requireNonNull(source, "source");
         Objects.requireNonNull(clazz, "clazz");
 
-        return deserialize(wrapSource(source), clazz);
+        return clazz.cast(deserialize(source, (Type) clazz));
     }
 
     /**
@@ -126,13 +131,19 @@ public abstract class JsonEngine extends StructuralJsonEngine {
         Objects.requireNonNull(source, "source");
         Objects.requireNonNull(typeToken, "typeToken");
 
-        return deserialize(wrapSource(source), typeToken);
+        // the value has been deserialized for the type of the token, so it is an instance of T
+        @SuppressWarnings("unchecked")
+        T result = (T) deserialize(source, typeToken.getType());
+        return result;
     }
 
 
     /**
      * deserializes JSON from an {@link InputStream}. As demanded by the MIME type application/json, the input must be
      * UTF-8 encoded.
+     * <p>
+     * This method records a {@link JsonDeserializationEvent} if enabled in the JDK Flight Recorder. The other
+     * methods that deserialize from an {@link InputStream} call this one.
      *
      * @param source the source stream
      * @param type the target type to deserialize to
@@ -143,7 +154,21 @@ public abstract class JsonEngine extends StructuralJsonEngine {
         Objects.requireNonNull(source, "source");
         Objects.requireNonNull(type, "type");
 
-        return deserialize(wrapSource(source), type);
+        JsonDeserializationEvent event = new JsonDeserializationEvent();
+        if (!event.isEnabled()) {
+            return deserialize(wrapSource(source), type);
+        }
+        CountingInputStream countingSource = new CountingInputStream(source);
+        event.begin();
+        try {
+            return deserialize(wrapSource(countingSource), type);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(type, countingSource.getCount());
+                event.commit();
+            }
+        }
     }
 
     /**
@@ -189,6 +214,20 @@ public abstract class JsonEngine extends StructuralJsonEngine {
      */
     public abstract Object deserialize(Reader source, Type type) throws JsonDeserializationException;
 
+    /**
+     * Creates a parser that accepts JSON in chunks, for input that arrives piece by piece and should be parsed as it
+     * arrives. Not all engines support this; those that don't return null, and the caller has to collect the whole
+     * input and use one of the deserialize() methods instead.
+     * <p>
+     * The parser produces a {@link JsonElement}, which can then be converted to the target type using
+     * {@link #deserialize(JsonElement, Type)}.
+     *
+     * @return the parser, or null if incremental parsing is not supported by this engine
+     */
+    public IncrementalJsonParser newIncrementalParser() {
+        return null;
+    }
+
     private static Reader wrapSource(String source) {
         Objects.requireNonNull(source, "source");
 
@@ -225,6 +264,8 @@ public abstract class JsonEngine extends StructuralJsonEngine {
     /**
      * Turns a value into JSON that is written to an output stream. As demanded by the MIME type application/json,
      * the output will be UTF-8 encoded.
+     * <p>
+     * This method records a {@link JsonSerializationEvent} if enabled in the JDK Flight Recorder.
      *
      * @param value the value to convert
      * @param destination the stream to write to
@@ -234,6 +275,26 @@ public abstract class JsonEngine extends StructuralJsonEngine {
         Objects.requireNonNull(value, "value");
         Objects.requireNonNull(destination, "destination");
 
+        JsonSerializationEvent event = new JsonSerializationEvent();
+        if (!event.isEnabled()) {
+            writeToStream(value, destination);
+            return;
+        }
+        CountingOutputStream countingDestination = new CountingOutputStream(destination);
+        event.begin();
+        try {
+            writeToStream(value, countingDestination);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(value.getClass(), countingDestination.getCount());
+                event.commit();
+            }
+        }
+    }
+
+    private void writeToStream(Object value, OutputStream destination) throws JsonSerializationException {
+
         // We need to flush the encoding logic of the OutputStreamWriter at the end, but not cloe the underlying
         // OutputStream. Unfortunately, OutputStreamWriter.close() does more flushing than just flush(), so we HAVE
         // to close the OSW. We solve this by using a CloseShieldOutputStream to prevent the close() from closing the
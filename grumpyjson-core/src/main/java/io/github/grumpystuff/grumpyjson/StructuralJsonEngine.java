@@ -17,6 +17,8 @@ import io.github.grumpystuff.grumpyjson.builtin.primitive.BooleanConverter;
 import io.github.grumpystuff.grumpyjson.builtin.primitive.IntegerConverter;
 import io.github.grumpystuff.grumpyjson.builtin.primitive.LongConverter;
 import io.github.grumpystuff.grumpyjson.builtin.primitive.StringConverter;
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationErrorBudget;
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationOptions;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializerRegistry;
@@ -39,6 +41,7 @@ import java.util.Objects;
 public class StructuralJsonEngine {
 
     private final JsonRegistries registries;
+    private volatile DeserializationOptions deserializationOptions = DeserializationOptions.DEFAULT;
 
     /**
      * Creates a new JSON engine with standard converters registered.
@@ -120,6 +123,26 @@ public class StructuralJsonEngine {
         return registries.deserializerRegistry();
     }
 
+    /**
+     * Getter method for the options that apply to deserialization calls which do not specify their own options.
+     *
+     * @return the default deserialization options
+     */
+    public final DeserializationOptions getDeserializationOptions() {
+        return deserializationOptions;
+    }
+
+    /**
+     * Sets the options that apply to deserialization calls which do not specify their own options. This includes all
+     * deserialize() methods that do not take options as a parameter. The initial value is
+     * {@link DeserializationOptions#DEFAULT}.
+     *
+     * @param deserializationOptions the default deserialization options
+     */
+    public final void setDeserializationOptions(DeserializationOptions deserializationOptions) {
+        this.deserializationOptions = Objects.requireNonNull(deserializationOptions, "deserializationOptions");
+    }
+
     /**
      * Seals this JSON engine, moving from the configuration phase to the run-time phase.
      */
@@ -197,10 +220,27 @@ public class StructuralJsonEngine {
      * @throws JsonDeserializationException if the JSON does not match the target type
      */
     public final Object deserialize(JsonElement source, Type type) throws JsonDeserializationException {
+        return deserialize(source, type, deserializationOptions);
+    }
+
+    /**
+     * deserializes JSON from a {@link JsonElement}, using the specified options instead of the default options of
+     * this engine. If this method gets called from a deserializer while another call is in progress, the options of the
+     * outer call apply.
+     *
+     * @param source the source element
+     * @param type the target type to deserialize to
+     * @param options the options for this call
+     * @return the deserialized value
+     * @throws JsonDeserializationException if the JSON does not match the target type
+     */
+    public final Object deserialize(JsonElement source, Type type, DeserializationOptions options)
+            throws JsonDeserializationException {
         Objects.requireNonNull(source, "source");
         Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(options, "options");
 
-        return registries.deserialize(source, type);
+        return DeserializationErrorBudget.run(options, () -> registries.deserialize(source, type));
     }
 
     // -----------------------------------------------------------------------
@@ -9,6 +9,7 @@ package io.github.grumpystuff.grumpyjson.builtin.collection;
 import io.github.grumpystuff.grumpyjson.FieldErrorNode;
 import io.github.grumpystuff.grumpyjson.JsonProviders;
 import io.github.grumpystuff.grumpyjson.JsonRegistries;
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationErrorBudget;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
 import io.github.grumpystuff.grumpyjson.json_model.JsonArray;
@@ -76,6 +77,12 @@ public final class ListConverter implements JsonSerializer<List<?>>, JsonDeseria
             } catch (Exception e) {
                 errorNode = FieldErrorNode.create(e).in(Integer.toString(i)).and(errorNode);
             }
+            if (errorNode != null && DeserializationErrorBudget.isExhausted()) {
+                if (i < jsonChildren.size() - 1) {
+                    errorNode = DeserializationErrorBudget.truncate(errorNode);
+                }
+                break;
+            }
         }
         if (errorNode != null) {
             throw new JsonDeserializationException(errorNode);
@@ -9,6 +9,7 @@ package io.github.grumpystuff.grumpyjson.builtin.collection;
 import io.github.grumpystuff.grumpyjson.FieldErrorNode;
 import io.github.grumpystuff.grumpyjson.JsonProviders;
 import io.github.grumpystuff.grumpyjson.JsonRegistries;
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationErrorBudget;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
 import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
@@ -74,7 +75,9 @@ public final class MapConverter implements JsonSerializer<Map<?, ?>>, JsonDeseri
         }
         Map<Object, Object> result = new HashMap<>();
         FieldErrorNode errorNode = null;
+        int remaining = jsonProperties.size();
         for (Map.Entry<String, JsonElement> entry : jsonProperties.entrySet()) {
+            remaining--;
             String keyText = entry.getKey();
             boolean isAtKey = true;
             try {
@@ -87,6 +90,12 @@ public final class MapConverter implements JsonSerializer<Map<?, ?>>, JsonDeseri
             } catch (Exception e) {
                 errorNode = FieldErrorNode.create(e).in(buildFromJsonFieldName(isAtKey, keyText)).and(errorNode);
             }
+            if (errorNode != null && DeserializationErrorBudget.isExhausted()) {
+                if (remaining > 0) {
+                    errorNode = DeserializationErrorBudget.truncate(errorNode);
+                }
+                break;
+            }
         }
         if (errorNode != null) {
             throw new JsonDeserializationException(errorNode);
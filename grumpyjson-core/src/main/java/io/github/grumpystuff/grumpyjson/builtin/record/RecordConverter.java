@@ -9,6 +9,7 @@ package io.github.grumpystuff.grumpyjson.builtin.record;
 import io.github.grumpystuff.grumpyjson.ExceptionMessages;
 import io.github.grumpystuff.grumpyjson.FieldErrorNode;
 import io.github.grumpystuff.grumpyjson.JsonProviders;
+import io.github.grumpystuff.grumpyjson.deserialize.DeserializationErrorBudget;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
 import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
@@ -136,6 +137,13 @@ public final class RecordConverter<T> implements JsonSerializer<T>, JsonDeserial
             } catch (Exception e) {
                 errorNode = FieldErrorNode.create(e).in(name).and(errorNode);
             }
+            if (errorNode != null && DeserializationErrorBudget.isExhausted()) {
+                boolean unknownPropertiesPresent = numberOfPresentKnownProperties != jsonProperties.size();
+                if (i < componentInfos.size() - 1 || (unknownPropertiesPresent && !options.ignoreUnknownProperties())) {
+                    errorNode = DeserializationErrorBudget.truncate(errorNode);
+                }
+                throw new JsonDeserializationException(errorNode);
+            }
         }
 
         // jsonObject.size() counts the present properties; numberOfPresentKnownProperties counts the present
@@ -146,8 +154,16 @@ public final class RecordConverter<T> implements JsonSerializer<T>, JsonDeserial
             for (RecordInfo.ComponentInfo componentInfo : componentInfos) {
                 propertyNames.remove(componentInfo.getName());
             }
+            int remaining = propertyNames.size();
             for (String unexpectedProperty : propertyNames) {
+                remaining--;
                 errorNode = FieldErrorNode.create(ExceptionMessages.UNEXPECTED_PROPERTY).in(unexpectedProperty).and(errorNode);
+                if (DeserializationErrorBudget.isExhausted()) {
+                    if (remaining > 0) {
+                        errorNode = DeserializationErrorBudget.truncate(errorNode);
+                    }
+                    break;
+                }
             }
         }
 
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.deserialize;
+
+import io.github.grumpystuff.grumpyjson.FieldErrorNode;
+
+/**
+ * Counts the errors of the deserialization call that is in progress in the current thread, to implement
+ * {@link DeserializationOptions#maxErrors()}. Errors are counted when their {@link FieldErrorNode} gets created;
+ * converters that continue after an error check {@link #isExhausted()} to decide whether to stop.
+ * <p>
+ * Without a limit, a shared budget gets installed that does not count errors, so nested calls still know that an
+ * outer call without a limit is in progress. The cost is a thread-local update per call and a lookup per error.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class DeserializationErrorBudget {
+
+    private static final ThreadLocal<DeserializationErrorBudget> CURRENT = new ThreadLocal<>();
+
+    // shared by all threads, so it must not be modified
+    private static final DeserializationErrorBudget UNLIMITED = new DeserializationErrorBudget(Integer.MAX_VALUE);
+
+    /**
+     * An action that runs with a budget installed.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+
+        /**
+         * Runs this action.
+         *
+         * @return the result
+         * @throws JsonDeserializationException on deserialization errors
+         */
+        T run() throws JsonDeserializationException;
+
+    }
+
+    private final int maxErrors;
+    private int errors;
+    private boolean truncated;
+
+    private DeserializationErrorBudget(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Runs the specified action with a budget for the specified options. If a budget is installed already because
+     * this is a nested deserialization call, the action runs with that budget instead.
+     *
+     * @param options the deserialization options
+     * @param action the action to run
+     * @return the result of the action
+     * @param <T> the result type
+     * @throws JsonDeserializationException on deserialization errors
+     */
+    public static <T> T run(DeserializationOptions options, Action<T> action) throws JsonDeserializationException {
+        if (CURRENT.get() != null) {
+            return action.run();
+        }
+        int maxErrors = options.maxErrors();
+        CURRENT.set(maxErrors == Integer.MAX_VALUE ? UNLIMITED : new DeserializationErrorBudget(maxErrors));
+        try {
+            return action.run();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Counts an error against the budget of the current thread, if any.
+     */
+    public static void countError() {
+        DeserializationErrorBudget budget = CURRENT.get();
+        if (budget != null && budget != UNLIMITED) {
+            budget.errors++;
+        }
+    }
+
+    /**
+     * Checks whether the budget of the current thread has been used up. Converters call this after an error to decide
+     * whether to stop.
+     *
+     * @return true if the maximum number of errors has been reached, false if not or if there is no budget
+     */
+    public static boolean isExhausted() {
+        DeserializationErrorBudget budget = CURRENT.get();
+        return budget != null && budget.errors >= budget.maxErrors;
+    }
+
+    /**
+     * Adds the error that marks an incomplete error report. Converters call this when they stop early because the
+     * budget has been used up, skipping parts of the input. Only the first converter to stop adds it, and it is not
+     * added in fail-fast mode.
+     *
+     * @param errorNode the errors found so far
+     * @return the errors, possibly including the marker
+     */
+    public static FieldErrorNode truncate(FieldErrorNode errorNode) {
+        DeserializationErrorBudget budget = CURRENT.get();
+        if (budget == null || budget == UNLIMITED || budget.truncated || budget.maxErrors == 1) {
+            return errorNode;
+        }
+        budget.truncated = true;
+        FieldErrorNode marker = FieldErrorNode.create(DeserializationOptions.TOO_MANY_ERRORS);
+        return errorNode == null ? marker : errorNode.and(marker);
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.deserialize;
+
+/**
+ * Options that apply to a whole deserialization call, as opposed to the options of individual converters.
+ * <p>
+ * The standard record, list and map converters keep converting after an error, so they can report all errors at
+ * once. For huge inputs with many errors, this costs a lot of CPU and memory and produces a huge error report. The
+ * maximum number of errors limits this: Once that many errors have been found, the converters stop and report the
+ * errors found so far, followed by an error with the message {@link #TOO_MANY_ERRORS} to indicate that the report is
+ * incomplete. A maximum of 1 makes deserialization fail at the first error, without that extra message.
+ *
+ * @param maxErrors the maximum number of errors to find before stopping, or {@link Integer#MAX_VALUE} for no limit
+ */
+public record DeserializationOptions(int maxErrors) {
+
+    /**
+     * The message of the error that marks an incomplete error report.
+     */
+    public static final String TOO_MANY_ERRORS = "too many errors, further errors may have been omitted";
+
+    /**
+     * The default options: report all errors.
+     */
+    public static final DeserializationOptions DEFAULT = new DeserializationOptions(Integer.MAX_VALUE);
+
+    /**
+     * Options to fail at the first error.
+     */
+    public static final DeserializationOptions FAIL_FAST = new DeserializationOptions(1);
+
+    /**
+     * Constructor.
+     *
+     * @param maxErrors the maximum number of errors to find before stopping, or {@link Integer#MAX_VALUE} for no limit
+     */
+    public DeserializationOptions {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("maxErrors must be positive");
+        }
+    }
+
+    /**
+     * Returns a copy of these options with a different maximum number of errors.
+     *
+     * @param maxErrors the maximum number of errors to find before stopping, or {@link Integer#MAX_VALUE} for no limit
+     * @return the new options
+     */
+    public DeserializationOptions withMaxErrors(int maxErrors) {
+        return new DeserializationOptions(maxErrors);
+    }
+
+}
@@ -18,9 +18,16 @@ import java.util.Objects;
 
 /**
  * This exception type gets thrown when the incoming JSON does not match the expected structure.
+ * <p>
+ * Instances do not record a stack trace, since they are usually caused by the data, not by the code, and a stack
+ * trace would only add cost -- which matters when a client sends lots of malformed requests. A wrapped exception
+ * (see {@link FieldErrorNode.InternalException}) keeps its own stack trace. To record stack traces anyway, for
+ * debugging, set the system property "grumpyjson.stackTraces" to "true".
  */
 public class JsonDeserializationException extends Exception {
 
+    private static final boolean STACK_TRACES = Boolean.getBoolean("grumpyjson.stackTraces");
+
     /**
      * needs javadoc because this class is {@link java.io.Serializable}
      */
@@ -65,11 +72,14 @@ public class JsonDeserializationException extends Exception {
      * @param fieldErrorNode the node that contains one or more actual errors
      */
     public JsonDeserializationException(FieldErrorNode fieldErrorNode) {
-        super("exception during JSON deserialization");
-        this.fieldErrorNode = Objects.requireNonNull(fieldErrorNode, "fieldErrorNode");
-        if (fieldErrorNode instanceof FieldErrorNode.InternalException exceptionNode) {
-            initCause(exceptionNode.getException());
-        }
+        super("exception during JSON deserialization", getCause(fieldErrorNode), true, STACK_TRACES);
+        this.fieldErrorNode = fieldErrorNode;
+    }
+
+    private static Throwable getCause(FieldErrorNode fieldErrorNode) {
+        Objects.requireNonNull(fieldErrorNode, "fieldErrorNode");
+
+        return fieldErrorNode instanceof FieldErrorNode.InternalException exceptionNode ? exceptionNode.getException() : null;
     }
 
     /**
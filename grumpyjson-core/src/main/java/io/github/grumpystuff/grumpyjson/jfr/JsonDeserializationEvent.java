@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.jfr;
+
+import jdk.jfr.*;
+
+import java.lang.reflect.Type;
+
+/**
+ * JDK Flight Recorder event for deserializing JSON from an {@link java.io.InputStream}, including parsing and
+ * conversion to the target type. Disabled by default; see the grumpyrest.jfc settings file that comes with grumpyrest.
+ */
+@Name("grumpyjson.Deserialize")
+@Label("JSON Deserialization")
+@Category("grumpyjson")
+@Description("Deserializing JSON from an input stream")
+@Enabled(false)
+@StackTrace(false)
+public final class JsonDeserializationEvent extends Event {
+
+    @Label("Type")
+    @Description("The type that the JSON was deserialized to")
+    private String type;
+
+    @Label("Bytes")
+    @Description("The number of bytes read from the input stream")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * NOT PUBLIC API
+     */
+    public JsonDeserializationEvent() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param type ...
+     * @param bytes ...
+     */
+    public void set(Type type, long bytes) {
+        this.type = type.getTypeName();
+        this.bytes = bytes;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder event for serializing a value to JSON that is written to an {@link java.io.OutputStream},
+ * including conversion from the value. Disabled by default; see the grumpyrest.jfc settings file that comes with
+ * grumpyrest.
+ */
+@Name("grumpyjson.Serialize")
+@Label("JSON Serialization")
+@Category("grumpyjson")
+@Description("Serializing a value to JSON that is written to an output stream")
+@Enabled(false)
+@StackTrace(false)
+public final class JsonSerializationEvent extends Event {
+
+    @Label("Type")
+    @Description("The class of the serialized value")
+    private Class<?> type;
+
+    @Label("Bytes")
+    @Description("The number of bytes written to the output stream")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * NOT PUBLIC API
+     */
+    public JsonSerializationEvent() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param type ...
+     * @param bytes ...
+     */
+    public void set(Class<?> type, long bytes) {
+        this.type = type;
+        this.bytes = bytes;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.jfr;
+
+import jdk.jfr.*;
+
+import java.lang.reflect.Type;
+
+/**
+ * JDK Flight Recorder event for the first request of a key from a {@link io.github.grumpystuff.grumpyjson.registry.Registry},
+ * which looks for a matching registrable and, if none was registered, auto-generates one, such as a converter for a
+ * record type. This happens only once per key, so many of these events after startup indicate that types are being
+ * created dynamically. Disabled by default; see the grumpyrest.jfc settings file that comes with grumpyrest.
+ */
+@Name("grumpyjson.RegistryMiss")
+@Label("Registry Miss")
+@Category("grumpyjson")
+@Description("Looking up or generating the registrable for a key that was not requested before")
+@Enabled(false)
+public final class RegistryMissEvent extends Event {
+
+    @Label("Registry")
+    @Description("The class of the registry")
+    private Class<?> registry;
+
+    @Label("Key")
+    @Description("The key that was requested, typically a type")
+    private String key;
+
+    @Label("Generated")
+    @Description("Whether the registrable has been auto-generated, as opposed to found among the registered ones")
+    private boolean generated;
+
+    /**
+     * NOT PUBLIC API
+     */
+    public RegistryMissEvent() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param registry ...
+     * @param key ...
+     * @param generated ...
+     */
+    public void set(Class<?> registry, Object key, boolean generated) {
+        this.registry = registry;
+        this.key = key instanceof Type type ? type.getTypeName() : key.toString();
+        this.generated = generated;
+    }
+
+}
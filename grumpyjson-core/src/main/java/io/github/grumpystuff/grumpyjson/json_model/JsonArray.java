@@ -73,4 +73,21 @@ public abstract class JsonArray extends JsonElement {
         return "JSON:" + getAsList();
     }
 
+    @Override
+    void appendPreview(StringBuilder builder, int limit) {
+        builder.append("JSON:[");
+        boolean first = true;
+        for (JsonElement element : getAsList()) {
+            if (builder.length() > limit) {
+                return;
+            }
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            element.appendPreview(builder, limit);
+        }
+        builder.append(']');
+    }
+
 }
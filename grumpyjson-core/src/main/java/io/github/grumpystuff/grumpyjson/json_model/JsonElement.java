@@ -33,13 +33,47 @@ import java.util.Map;
  * methods are rarely needed for JSON processing, they are useful in unit tests. The toString() method is intentionally
  * written in such a way that the output is NOT valid JSON, so it is not accidentally used to generate JSON -- doing so
  * would be slow and likely handle some edge cases inccorrectly.
+ * <p>
+ * Error messages that include a JSON element use {@link #toPreviewString()} instead of toString(), so a mismatch at
+ * the root of a huge request body does not render the whole body into the message.
  */
 public abstract class JsonElement {
 
+    /**
+     * The maximum length of the text returned by {@link #toPreviewString()}, not counting the "..." that marks a
+     * truncated preview.
+     */
+    public static final int PREVIEW_LENGTH = 80;
+
     // only allow our own subclasses
     JsonElement() {
     }
 
+    /**
+     * Returns the same text as toString(), but cut off after {@link #PREVIEW_LENGTH} characters. Unlike toString(),
+     * this method only visits as much of this element as is needed for the preview, so its cost is bounded even for
+     * huge arrays, objects and strings.
+     *
+     * @return the preview text
+     */
+    public final String toPreviewString() {
+        StringBuilder builder = new StringBuilder();
+        appendPreview(builder, PREVIEW_LENGTH);
+        if (builder.length() > PREVIEW_LENGTH) {
+            builder.setLength(PREVIEW_LENGTH);
+            builder.append("...");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the text of toString() to the builder, but may stop once the builder is longer than the limit. The
+     * default implementation appends the whole text, which is fine for elements whose text is short anyway.
+     */
+    void appendPreview(StringBuilder builder, int limit) {
+        builder.append(this);
+    }
+
     /**
      * If this JSON element is not JSON null, this method throws a {@link JsonDeserializationException}, otherwise
      * it does nothing.
@@ -47,7 +81,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not JSON null
      */
     public void deserializerExpectsNull() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected null, found: " + this);
+        throw new JsonDeserializationException("expected null, found: " + toPreviewString());
     }
 
     /**
@@ -58,7 +92,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not a JSON boolean
      */
     public boolean deserializerExpectsBoolean() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected boolean, found: " + this);
+        throw new JsonDeserializationException("expected boolean, found: " + toPreviewString());
     }
 
     /**
@@ -69,7 +103,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not a JSON number
      */
     public Number deserializerExpectsNumber() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected number, found: " + this);
+        throw new JsonDeserializationException("expected number, found: " + toPreviewString());
     }
 
     /**
@@ -80,7 +114,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not a JSON string
      */
     public String deserializerExpectsString() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected string, found: " + this);
+        throw new JsonDeserializationException("expected string, found: " + toPreviewString());
     }
 
     /**
@@ -91,7 +125,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not a JSON array
      */
     public List<JsonElement> deserializerExpectsArray() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected array, found: " + this);
+        throw new JsonDeserializationException("expected array, found: " + toPreviewString());
     }
 
     /**
@@ -102,7 +136,7 @@ public abstract class JsonElement {
      * @throws JsonDeserializationException if this JSON element is not a JSON object
      */
     public Map<String, JsonElement> deserializerExpectsObject() throws JsonDeserializationException {
-        throw new JsonDeserializationException("expected object, found: " + this);
+        throw new JsonDeserializationException("expected object, found: " + toPreviewString());
     }
 
 }
@@ -111,4 +111,23 @@ public abstract class JsonObject extends JsonElement {
         return "JSON:" + getAsMap();
     }
 
+    @Override
+    void appendPreview(StringBuilder builder, int limit) {
+        builder.append("JSON:{");
+        boolean first = true;
+        for (Map.Entry<String, JsonElement> entry : getAsMap().entrySet()) {
+            if (builder.length() > limit) {
+                return;
+            }
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            String key = entry.getKey();
+            builder.append(key, 0, Math.min(key.length(), limit + 1)).append('=');
+            entry.getValue().appendPreview(builder, limit);
+        }
+        builder.append('}');
+    }
+
 }
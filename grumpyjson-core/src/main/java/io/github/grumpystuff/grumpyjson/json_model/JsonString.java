@@ -50,4 +50,14 @@ public final class JsonString extends JsonElement {
         return "JSON:\"" + value + "\"";
     }
 
+    @Override
+    void appendPreview(StringBuilder builder, int limit) {
+        int remaining = Math.max(0, limit + 1 - builder.length());
+        if (value.length() > remaining) {
+            builder.append("JSON:\"").append(value, 0, remaining);
+        } else {
+            builder.append(this);
+        }
+    }
+
 }
@@ -6,6 +6,7 @@
  */
 package io.github.grumpystuff.grumpyjson.registry;
 
+import io.github.grumpystuff.grumpyjson.jfr.RegistryMissEvent;
 import io.github.grumpystuff.grumpyjson.util.ListUtil;
 
 import java.lang.reflect.Type;
@@ -132,14 +133,30 @@ public abstract class Registry<K, V> extends Sealable {
         Objects.requireNonNull(key, "key");
 
         ensureRunTimePhase();
-        return map.computeIfAbsent(key, ignored -> {
-            for (V registrable : manuallyAddedRegistrables) {
-                if (registrableSupports(registrable, key)) {
-                    return registrable;
-                }
+        return map.computeIfAbsent(key, this::lookUpOrGenerate);
+    }
+
+    private V lookUpOrGenerate(K key) {
+        RegistryMissEvent event = new RegistryMissEvent();
+        event.begin();
+        V result = null;
+        boolean generated = false;
+        for (V registrable : manuallyAddedRegistrables) {
+            if (registrableSupports(registrable, key)) {
+                result = registrable;
+                break;
             }
-            return generateRegistrable(key);
-        });
+        }
+        if (result == null) {
+            result = generateRegistrable(key);
+            generated = result != null;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(getClass(), key, generated);
+            event.commit();
+        }
+        return result;
     }
 
     /**
@@ -23,9 +23,17 @@ import java.util.Objects;
  * then this should be prevented. On the other hand, if the object's state has no equivalent JSON representation,
  * then the code that wants to turn it into JSON anyway is faulty. Because it is a bug, and is therefore unexpected,
  * this class extends {@link RuntimeException}, not {@link Exception}.
+ * <p>
+ * Instances do not record a stack trace. It would only show the recursion of the serializers, which is the same for
+ * every error, while the field path of the error points to the value that could not be serialized. If the error was
+ * caused by an exception in application code, that exception is wrapped (see {@link FieldErrorNode.InternalException})
+ * and keeps its own stack trace. To record stack traces anyway, for debugging, set the system property
+ * "grumpyjson.stackTraces" to "true".
  */
 public class JsonSerializationException extends RuntimeException {
 
+    private static final boolean STACK_TRACES = Boolean.getBoolean("grumpyjson.stackTraces");
+
     /**
      * needs javadoc because this class is {@link java.io.Serializable}
      */
@@ -70,11 +78,14 @@ public class JsonSerializationException extends RuntimeException {
      * @param fieldErrorNode the node that contains one or more actual errors
      */
     public JsonSerializationException(FieldErrorNode fieldErrorNode) {
-        super("exception during JSON serialization");
-        this.fieldErrorNode = Objects.requireNonNull(fieldErrorNode, "fieldErrorNode");
-        if (fieldErrorNode instanceof FieldErrorNode.InternalException exceptionNode) {
-            initCause(exceptionNode.getException());
-        }
+        super("exception during JSON serialization", getCause(fieldErrorNode), true, STACK_TRACES);
+        this.fieldErrorNode = fieldErrorNode;
+    }
+
+    private static Throwable getCause(FieldErrorNode fieldErrorNode) {
+        Objects.requireNonNull(fieldErrorNode, "fieldErrorNode");
+
+        return fieldErrorNode instanceof FieldErrorNode.InternalException exceptionNode ? exceptionNode.getException() : null;
     }
 
     /**
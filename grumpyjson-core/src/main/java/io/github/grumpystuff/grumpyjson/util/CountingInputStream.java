@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * NOT PUBLIC API
+ */
+public final class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param in ...
+     */
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @return ...
+     * @throws IOException ...
+     */
+    @Override
+    public int read() throws IOException {
+        int result = in.read();
+        if (result >= 0) {
+            count++;
+        }
+        return result;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param b ...
+     * @param off ...
+     * @param len ...
+     * @return ...
+     * @throws IOException ...
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = in.read(b, off, len);
+        if (result > 0) {
+            count += result;
+        }
+        return result;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param n ...
+     * @return ...
+     * @throws IOException ...
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long result = in.skip(n);
+        count += result;
+        return result;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @return ...
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @return ...
+     */
+    public long getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * NOT PUBLIC API
+ */
+public final class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param out ...
+     */
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param b ...
+     * @throws IOException ...
+     */
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param b ...
+     * @param off ...
+     * @param len ...
+     * @throws IOException ...
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @return ...
+     */
+    public long getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyjson.deserialize;
+
+import io.github.grumpystuff.grumpyjson.FieldErrorNode;
+import io.github.grumpystuff.grumpyjson.StructuralJsonEngine;
+import io.github.grumpystuff.grumpyjson.TypeToken;
+import io.github.grumpystuff.grumpyjson.json_model.JsonArray;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyjson.json_model.JsonObject;
+import io.github.grumpystuff.grumpyjson.json_model.JsonString;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeserializationOptionsTest {
+
+    private record Item(String name, int number) {}
+
+    private static final TypeToken<List<Item>> ITEMS = new TypeToken<>() {};
+
+    private static JsonArray createBadItems(int count) {
+        List<JsonElement> elements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            elements.add(JsonObject.of("name", JsonString.of("item"), "number", JsonString.of("x")));
+        }
+        return JsonArray.of(elements);
+    }
+
+    private static List<FieldErrorNode.FlattenedError> deserializeErrors(StructuralJsonEngine engine, JsonArray json) {
+        return assertThrows(JsonDeserializationException.class, () -> engine.deserialize(json, ITEMS))
+                .getFieldErrorNode().flatten();
+    }
+
+    @Test
+    public void testDefaultReportsAllErrors() {
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.seal();
+        assertEquals(1000, deserializeErrors(engine, createBadItems(1000)).size());
+    }
+
+    @Test
+    public void testFailFast() {
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.setDeserializationOptions(DeserializationOptions.FAIL_FAST);
+        engine.seal();
+        List<FieldErrorNode.FlattenedError> errors = deserializeErrors(engine, createBadItems(1000));
+        assertEquals(1, errors.size());
+        assertEquals("0.number", errors.get(0).getPathAsString());
+    }
+
+    @Test
+    public void testErrorBudget() {
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.setDeserializationOptions(DeserializationOptions.DEFAULT.withMaxErrors(5));
+        engine.seal();
+        List<FieldErrorNode.FlattenedError> errors = deserializeErrors(engine, createBadItems(1000));
+        assertEquals(6, errors.size());
+        assertEquals(1, errors.stream().filter(e -> e.message().equals(DeserializationOptions.TOO_MANY_ERRORS)).count());
+
+        // no marker if nothing was skipped
+        assertEquals(5, deserializeErrors(engine, createBadItems(5)).size());
+    }
+
+    @Test
+    public void testPerCallOptions() throws Exception {
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.seal();
+        JsonArray json = createBadItems(100);
+        var exception = assertThrows(JsonDeserializationException.class,
+                () -> engine.deserialize(json, ITEMS.getType(), DeserializationOptions.FAIL_FAST));
+        assertEquals(1, exception.getFieldErrorNode().flatten().size());
+
+        // the budget does not leak into later calls
+        assertEquals(100, deserializeErrors(engine, json).size());
+    }
+
+    @Test
+    public void testNestedCallUsesOuterOptions() throws Exception {
+        record Wrapper(List<Item> items) {}
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.registerDeserializer(new JsonDeserializer() {
+
+            @Override
+            public boolean supportsTypeForDeserialization(Type type) {
+                return type == Wrapper.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object deserialize(JsonElement json, Type type) throws JsonDeserializationException {
+                return new Wrapper((List<Item>) engine.deserialize(json, ITEMS.getType(), DeserializationOptions.FAIL_FAST));
+            }
+
+        });
+        engine.seal();
+        JsonArray json = createBadItems(100);
+
+        // the outer call has no limit, so the inner call reports all errors
+        var exception = assertThrows(JsonDeserializationException.class, () -> engine.deserialize(json, Wrapper.class));
+        assertEquals(100, exception.getFieldErrorNode().flatten().size());
+
+        // the other way round, the limit of the outer call applies
+        exception = assertThrows(JsonDeserializationException.class,
+                () -> engine.deserialize(json, Wrapper.class, DeserializationOptions.DEFAULT.withMaxErrors(5)));
+        assertEquals(6, exception.getFieldErrorNode().flatten().size());
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.grumpystuff.grumpyjson.json_model;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,4 +55,23 @@ public class JsonArrayTest {
         assertEquals(sample1.hashCode(), sample2.hashCode());
     }
 
+    @Test
+    public void testPreview() {
+        JsonArray small = JsonArray.of(JsonString.of("foobar"), JsonNumber.of(42), JsonBoolean.of(true));
+        assertEquals(small.toString(), small.toPreviewString());
+
+        List<JsonElement> elements = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            elements.add(JsonObject.of("value", JsonNumber.of(i)));
+        }
+        String preview = JsonArray.of(elements).toPreviewString();
+        assertEquals(JsonElement.PREVIEW_LENGTH + 3, preview.length());
+        assertTrue(preview.startsWith("JSON:[JSON:{value=JSON:0}, JSON:{value=JSON:1}"));
+        assertTrue(preview.endsWith("..."));
+
+        var exception = assertThrows(JsonDeserializationException.class, JsonArray.of(elements)::deserializerExpectsObject);
+        assertEquals("expected object, found: " + preview, exception.getFieldErrorNode().flatten().get(0).message());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
 }
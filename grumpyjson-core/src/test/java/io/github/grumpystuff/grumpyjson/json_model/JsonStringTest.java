@@ -48,4 +48,11 @@ public class JsonStringTest {
         assertEquals(sample1.hashCode(), sample2.hashCode());
     }
 
+    @Test
+    public void testPreview() {
+        assertEquals("JSON:\"foobar\"", JsonString.of("foobar").toPreviewString());
+        String preview = JsonString.of("x".repeat(1_000_000)).toPreviewString();
+        assertEquals("JSON:\"" + "x".repeat(JsonElement.PREVIEW_LENGTH - 6) + "...", preview);
+    }
+
 }
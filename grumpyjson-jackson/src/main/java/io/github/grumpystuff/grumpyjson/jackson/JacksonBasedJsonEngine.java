@@ -8,22 +8,29 @@ package io.github.grumpystuff.grumpyjson.jackson;
 
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import io.github.grumpystuff.grumpyjson.FieldErrorNode;
+import io.github.grumpystuff.grumpyjson.IncrementalJsonParser;
 import io.github.grumpystuff.grumpyjson.JsonEngine;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
 import io.github.grumpystuff.grumpyjson.util.CloseShieldReader;
 import io.github.grumpystuff.grumpyjson.util.CloseShieldWriter;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.Objects;
@@ -57,17 +64,104 @@ public abstract class JacksonBasedJsonEngine extends JsonEngine {
         source = new CloseShieldReader(source);
 
         try {
-            JsonNode jsonNode = readJson(source);
-            if (jsonNode == null || jsonNode.getNodeType() == JsonNodeType.MISSING) {
-                // this happens if the source does not even contain malformed JSON, but just nothing (EOF)
-                throw new JsonDeserializationException("no JSON to deserialize");
-            }
-            return deserialize(JacksonTreeMapper.mapFromJackson(jsonNode), type);
+            return deserialize(mapParsedTree(readJson(source)), type);
         } catch (JsonDeserializationException e) {
             throw mapDeserializationException(e);
         }
     }
 
+    private static JsonElement mapParsedTree(JsonNode jsonNode) throws JsonDeserializationException {
+        if (jsonNode == null || jsonNode.getNodeType() == JsonNodeType.MISSING) {
+            // this happens if the source does not even contain malformed JSON, but just nothing (EOF)
+            throw new JsonDeserializationException("no JSON to deserialize");
+        }
+        return JacksonTreeMapper.mapFromJackson(jsonNode);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation uses Jackson's non-blocking parser if {@link #getIncrementalObjectReader()} returns a
+     * reader. Tokens are parsed as soon as a chunk is fed and are only assembled into a tree at the end.
+     */
+    @Override
+    public IncrementalJsonParser newIncrementalParser() {
+        ObjectReader objectReader = getIncrementalObjectReader();
+        if (objectReader == null) {
+            return null;
+        }
+        try {
+            return new JacksonIncrementalParser(objectReader);
+        } catch (IOException e) {
+            // creating a parser for in-memory input does not actually perform I/O
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class JacksonIncrementalParser implements IncrementalJsonParser {
+
+        private final ObjectReader objectReader;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final TokenBuffer tokens;
+
+        JacksonIncrementalParser(ObjectReader objectReader) throws IOException {
+            this.objectReader = objectReader;
+            this.parser = objectReader.getFactory().createNonBlockingByteArrayParser();
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(parser);
+        }
+
+        @Override
+        public void feed(byte[] buffer, int offset, int length) throws JsonDeserializationException {
+            Objects.requireNonNull(buffer, "buffer");
+            Objects.checkFromIndexSize(offset, length, buffer.length);
+
+            if (length == 0) {
+                return;
+            }
+            try {
+                feeder.feedInput(buffer, offset, offset + length);
+                copyAvailableTokens();
+            } catch (IOException e) {
+                throw mapDeserializationException(new JsonDeserializationException(e));
+            }
+        }
+
+        @Override
+        public JsonElement finish() throws JsonDeserializationException {
+            try {
+                feeder.endOfInput();
+                copyAvailableTokens();
+                return mapParsedTree(objectReader.readTree(tokens.asParser(objectReader)));
+            } catch (IOException e) {
+                throw mapDeserializationException(new JsonDeserializationException(e));
+            } catch (JsonDeserializationException e) {
+                throw mapDeserializationException(e);
+            } finally {
+                close();
+            }
+        }
+
+        // the feeder only accepts more input once all tokens from the previous chunk have been consumed
+        private void copyAvailableTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // ignore -- there is no underlying stream that could fail
+            }
+        }
+
+    }
+
     /**
      * This method transforms the error message so it does not reveal too much internals.
      */
@@ -129,6 +223,16 @@ public abstract class JacksonBasedJsonEngine extends JsonEngine {
     // back-ends
     // -----------------------------------------------------------------------
 
+    /**
+     * Returns the reader whose settings are used for incremental parsing, or null if this engine does not support
+     * incremental parsing. The default implementation returns null.
+     *
+     * @return the reader or null
+     */
+    protected ObjectReader getIncrementalObjectReader() {
+        return null;
+    }
+
     /**
      * Reads JSON syntax from the specified source.
      *
@@ -156,6 +260,13 @@ public abstract class JacksonBasedJsonEngine extends JsonEngine {
     public static JacksonBasedJsonEngine fromObjectMapper(ObjectMapper objectMapper) {
         return new JacksonBasedJsonEngine() {
 
+            private final ObjectReader incrementalObjectReader = objectMapper.reader();
+
+            @Override
+            protected ObjectReader getIncrementalObjectReader() {
+                return incrementalObjectReader;
+            }
+
             @Override
             protected JsonNode readJson(Reader source) throws JsonDeserializationException {
                 try {
@@ -188,6 +299,11 @@ public abstract class JacksonBasedJsonEngine extends JsonEngine {
     public static JacksonBasedJsonEngine fromObjectReaderAndWriter(ObjectReader objectReader, ObjectWriter objectWriter) {
         return new JacksonBasedJsonEngine() {
 
+            @Override
+            protected ObjectReader getIncrementalObjectReader() {
+                return objectReader;
+            }
+
             @Override
             protected JsonNode readJson(Reader source) throws JsonDeserializationException {
                 try {
@@ -219,6 +335,11 @@ public abstract class JacksonBasedJsonEngine extends JsonEngine {
     public static JacksonBasedJsonEngine fromObjectReader(ObjectReader objectReader) {
         return new JacksonBasedJsonEngine() {
 
+            @Override
+            protected ObjectReader getIncrementalObjectReader() {
+                return objectReader;
+            }
+
             @Override
             protected JsonNode readJson(Reader source) throws JsonDeserializationException {
                 try {
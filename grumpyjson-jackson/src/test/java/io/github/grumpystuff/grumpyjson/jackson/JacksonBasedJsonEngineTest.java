@@ -7,12 +7,16 @@
 package io.github.grumpystuff.grumpyjson.jackson;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.grumpystuff.grumpyjson.IncrementalJsonParser;
 import io.github.grumpystuff.grumpyjson.JsonEngine;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
 import io.github.grumpystuff.grumpyjson.json_model.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 public class JacksonBasedJsonEngineTest {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -60,4 +64,47 @@ public class JacksonBasedJsonEngineTest {
         Assertions.assertTrue(exception.getMessage().contains("column 1"));
     }
 
+    private JsonElement parseIncrementally(String json, int chunkSize) throws JsonDeserializationException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[chunkSize];
+        try (IncrementalJsonParser parser = engine.newIncrementalParser()) {
+            for (int start = 0; start < bytes.length; start += chunkSize) {
+                int length = Math.min(chunkSize, bytes.length - start);
+                System.arraycopy(bytes, start, buffer, 0, length);
+                parser.feed(buffer, 0, length);
+                // the parser must not depend on the buffer contents after feed() has returned
+                Arrays.fill(buffer, (byte) 'x');
+            }
+            return parser.finish();
+        }
+    }
+
+    @Test
+    public void testIncrementalParsing() throws JsonDeserializationException {
+        String json = "{\"name\": \"Gr\u00fc\u00dfe \u20ac\", \"values\": [1, 2.5, true, null, {\"nested\": []}]}";
+        JsonElement expected = engine.deserialize(json, JsonElement.class);
+        for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+            Assertions.assertEquals(expected, parseIncrementally(json, chunkSize));
+        }
+        Assertions.assertEquals(expected, parseIncrementally(json, 1000));
+    }
+
+    @Test
+    public void testIncrementalParsingErrors() {
+        var exception = Assertions.assertThrows(
+                JsonDeserializationException.class,
+                () -> parseIncrementally("[\n123,\n]", 2)
+        );
+        Assertions.assertTrue(exception.getMessage().contains("line 3"));
+        Assertions.assertTrue(exception.getMessage().contains("column 1"));
+
+        exception = Assertions.assertThrows(
+                JsonDeserializationException.class,
+                () -> parseIncrementally("", 2)
+        );
+        Assertions.assertTrue(exception.getMessage().contains("no JSON to deserialize"));
+
+        Assertions.assertThrows(JsonDeserializationException.class, () -> parseIncrementally("[1, 2", 2));
+    }
+
 }
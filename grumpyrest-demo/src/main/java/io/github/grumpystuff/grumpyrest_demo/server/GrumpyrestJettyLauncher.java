@@ -51,9 +51,12 @@ public final class GrumpyrestJettyLauncher {
 
         ServletContextHandler context = new ServletContextHandler();
         context.setContextPath("/");
-        context.addServlet(new ServletHolder(new RestServlet(api, requestPathSourcingStrategy)), "/");
+        ServletHolder servletHolder = new ServletHolder(new RestServlet(api, requestPathSourcingStrategy));
+        servletHolder.setAsyncSupported(true);
+        context.addServlet(servletHolder, "/");
 
         FilterHolder corsFilterHolder = new FilterHolder(new CorsFilter());
+        corsFilterHolder.setAsyncSupported(true);
         context.addFilter(corsFilterHolder, "/*", EnumSet.of(DispatcherType.REQUEST));
 
         server.setHandler(new HandlerList(context, new DefaultHandler()));
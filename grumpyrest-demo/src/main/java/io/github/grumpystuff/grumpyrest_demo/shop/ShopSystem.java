@@ -8,12 +8,17 @@ package io.github.grumpystuff.grumpyrest_demo.shop;
 
 import io.github.grumpystuff.grumpyjson.builtin.helper_types.NullableField;
 import io.github.grumpystuff.grumpyjson.gson.GsonBasedJsonEngine;
+import io.github.grumpystuff.grumpyrest.ResponseCacheOptions;
 import io.github.grumpystuff.grumpyrest.RestApi;
+import io.github.grumpystuff.grumpyrest.Route;
+import io.github.grumpystuff.grumpyrest.RouteOptions;
+import io.github.grumpystuff.grumpyrest.SimpleHandler;
 import io.github.grumpystuff.grumpyrest.request.HttpMethod;
 import io.github.grumpystuff.grumpyrest.request.Request;
 import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
 import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -85,8 +90,18 @@ public final class ShopSystem {
     // API overview
     // ----------------------------------------------------------------------------------------------------------------
 
+    // the catalog does not change at run-time; carts and orders are cached until they get modified
+    private static final RouteOptions CATALOG_CACHE = RouteOptions.DEFAULT
+        .withResponseCache(ResponseCacheOptions.of(Duration.ofHours(1)));
+    private static final RouteOptions USER_DATA_CACHE = RouteOptions.DEFAULT
+        .withResponseCache(ResponseCacheOptions.of(Duration.ofMinutes(5)).withMaxEntries(10_000));
+
+    private RestApi api;
+    private Route getCartRoute;
+    private Route getOrderHistoryRoute;
+
     public RestApi buildApi() {
-        RestApi api = new RestApi(new GsonBasedJsonEngine());
+        api = new RestApi(new GsonBasedJsonEngine());
         addBrowsingRoutes(api);
         addCartRoutes(api);
         addOrderRoutes(api);
@@ -116,8 +131,10 @@ public final class ShopSystem {
     // ----------------------------------------------------------------------------------------------------------------
 
     private void addBrowsingRoutes(RestApi api) {
-        api.addRoute(HttpMethod.GET, "/categories/:id", this::handleGetCategory);
-        api.addRoute(HttpMethod.GET, "/products/:id", this::handleGetProduct);
+        api.addRoute(new Route(HttpMethod.GET, "/categories/:id<int>", (SimpleHandler) this::handleGetCategory),
+            CATALOG_CACHE);
+        api.addRoute(new Route(HttpMethod.GET, "/products/:id<int>", (SimpleHandler) this::handleGetProduct),
+            CATALOG_CACHE);
     }
 
     public record CategoryResponse(
@@ -170,9 +187,10 @@ public final class ShopSystem {
     // ----------------------------------------------------------------------------------------------------------------
 
     private void addCartRoutes(RestApi api) {
-        api.addRoute(HttpMethod.GET, "/cart/:userId", this::handleGetCart);
-        api.addRoute(HttpMethod.POST, "/cart/:userId/add", this::handleAddToCart);
-        api.addRoute(HttpMethod.POST, "/cart/:userId/clear", this::handleClearCart);
+        getCartRoute = new Route(HttpMethod.GET, "/cart/:userId<int>", (SimpleHandler) this::handleGetCart);
+        api.addRoute(getCartRoute, USER_DATA_CACHE);
+        api.addRoute(HttpMethod.POST, "/cart/:userId<int>/add", this::handleAddToCart);
+        api.addRoute(HttpMethod.POST, "/cart/:userId<int>/clear", this::handleClearCart);
     }
 
     public record GetCartResponse(List<GetCartResponseLineItem> lineItems) {}
@@ -204,6 +222,7 @@ public final class ShopSystem {
             cartLineItems.replace(existingCartLineItem.getLeft(), new CartLineItem(userId, requestBody.productId,
                 existingCartLineItem.getRight().quantity + requestBody.quantity));
         }
+        invalidateUserData(getCartRoute, userId);
         return null;
     }
 
@@ -212,16 +231,24 @@ public final class ShopSystem {
     public Void handleClearCart(Request request) throws Exception {
         int userId = request.getPathArguments().get(0).getValue(Integer.class);
         cartLineItems.deleteIf(c -> c.userId == userId);
+        invalidateUserData(getCartRoute, userId);
         return null;
     }
 
+    // cached responses are keyed by the path argument text, so this misses requests that spell the ID differently,
+    // such as "007" -- good enough for a demo
+    private void invalidateUserData(Route route, int userId) {
+        api.invalidateResponseCache(route, List.of(Integer.toString(userId)));
+    }
+
     // ----------------------------------------------------------------------------------------------------------------
     // orders
     // ----------------------------------------------------------------------------------------------------------------
 
     private void addOrderRoutes(RestApi api) {
-        api.addRoute(HttpMethod.GET, "/orders/:userId", this::handleGetOrderHistory);
-        api.addRoute(HttpMethod.POST, "/orders/:userId/place", this::handlePlaceOrder);
+        getOrderHistoryRoute = new Route(HttpMethod.GET, "/orders/:userId<int>", (SimpleHandler) this::handleGetOrderHistory);
+        api.addRoute(getOrderHistoryRoute, USER_DATA_CACHE);
+        api.addRoute(HttpMethod.POST, "/orders/:userId<int>/place", this::handlePlaceOrder);
     }
 
     public record GetOrderHistoryResponse(List<GetOrderHistoryResponseOrder> orders) {}
@@ -250,6 +277,8 @@ public final class ShopSystem {
             orderLineItems.insert(new OrderLineItem(orderId, cartLineItem.quantity, product.name, product.unitPrice));
         });
         cartLineItems.deleteIf(c -> c.userId == userId);
+        invalidateUserData(getCartRoute, userId);
+        invalidateUserData(getOrderHistoryRoute, userId);
         return null;
     }
 
@@ -51,7 +51,7 @@ public final class Table<T> {
     public synchronized T getRestEquivalent(int id) {
         T result = getOrNull(id);
         if (result == null) {
-            throw new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND);
+            throw new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND, false);
         }
         return result;
     }
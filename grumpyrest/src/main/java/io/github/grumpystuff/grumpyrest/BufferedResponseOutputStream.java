@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The response body stream used when response buffering is enabled. The body is collected in a pooled buffer and sent
+ * with a single write call and an exact Content-Length when it ends. If it grows beyond the maximum buffered size, the
+ * buffered part is sent and the rest is streamed to the client as usual.
+ * <p>
+ * Flushing does not send anything while buffering, because serializers flush after every value.
+ */
+final class BufferedResponseOutputStream extends OutputStream {
+
+    private final ResponseBuffering buffering;
+    private final HttpServletResponse servletResponse;
+
+    private byte[] buffer;
+    private int count;
+    private OutputStream target;
+    private boolean finished;
+
+    BufferedResponseOutputStream(ResponseBuffering buffering, HttpServletResponse servletResponse) {
+        this.buffering = buffering;
+        this.servletResponse = servletResponse;
+    }
+
+    /**
+     * Allocates the buffer with an initial size suitable for the specified type of response value, unless the
+     * buffer has already been allocated.
+     *
+     * @param valueClass the class of the response value, or null if unknown
+     */
+    void prepare(Class<?> valueClass) {
+        if (buffer == null && target == null && !finished) {
+            buffer = buffering.getBufferPool().acquire(buffering.getInitialSize(valueClass));
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("response body has already been finished");
+        }
+        if (target != null) {
+            target.write(b, off, len);
+            return;
+        }
+        int newCount = count + len;
+        if (newCount > buffering.getMaxBufferedSize()) {
+            target = servletResponse.getOutputStream();
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            releaseBuffer();
+            target.write(b, off, len);
+            return;
+        }
+        if (buffer == null) {
+            prepare(null);
+        }
+        if (newCount > buffer.length) {
+            int newCapacity = Math.min(Math.max(newCount, 2 * buffer.length), buffering.getBufferPool().getMaximumSize());
+            byte[] newBuffer = buffering.getBufferPool().acquire(newCapacity);
+            System.arraycopy(buffer, 0, newBuffer, 0, count);
+            buffering.getBufferPool().release(buffer);
+            buffer = newBuffer;
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count = newCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target != null && !finished) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Ends the response body: sends the buffered body with its Content-Length, and returns the buffer to the pool.
+     * Calling this method again has no effect.
+     *
+     * @return the size of the buffered body, or -1 if the body was too large and has been streamed
+     * @throws IOException on I/O errors
+     */
+    int finish() throws IOException {
+        if (finished) {
+            return -1;
+        }
+        finished = true;
+        if (target != null) {
+            return -1;
+        }
+        int size = count;
+        try {
+            servletResponse.setContentLengthLong(size);
+            if (size > 0) {
+                servletResponse.getOutputStream().write(buffer, 0, size);
+            }
+        } finally {
+            releaseBuffer();
+        }
+        return size;
+    }
+
+    /**
+     * Releases the buffer without sending anything, e.g. after an I/O error.
+     */
+    void abort() {
+        finished = true;
+        releaseBuffer();
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            buffering.getBufferPool().release(buffer);
+            buffer = null;
+            count = 0;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.IncrementalJsonParser;
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyrest.util.BufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fallback for JSON engines that cannot parse incrementally: Collects the input in pooled buffers and parses it in
+ * one go when finished.
+ */
+final class BufferingJsonParser implements IncrementalJsonParser {
+
+    private final JsonEngine jsonEngine;
+    private final BufferPool bufferPool;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int lastChunkLength;
+
+    BufferingJsonParser(JsonEngine jsonEngine, BufferPool bufferPool) {
+        this.jsonEngine = Objects.requireNonNull(jsonEngine, "jsonEngine");
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool");
+    }
+
+    @Override
+    public void feed(byte[] buffer, int offset, int length) {
+        Objects.requireNonNull(buffer, "buffer");
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+
+        while (length > 0) {
+            if (chunks.isEmpty() || lastChunkLength == bufferPool.getBufferSize()) {
+                chunks.add(bufferPool.acquire());
+                lastChunkLength = 0;
+            }
+            int count = Math.min(length, bufferPool.getBufferSize() - lastChunkLength);
+            System.arraycopy(buffer, offset, chunks.get(chunks.size() - 1), lastChunkLength, count);
+            lastChunkLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public JsonElement finish() throws JsonDeserializationException {
+        try {
+            List<InputStream> streams = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                int length = (i == chunks.size() - 1) ? lastChunkLength : bufferPool.getBufferSize();
+                streams.add(new ByteArrayInputStream(chunks.get(i), 0, length));
+            }
+            return jsonEngine.deserialize(new SequenceInputStream(Collections.enumeration(streams)), JsonElement.class);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (byte[] chunk : chunks) {
+            bufferPool.release(chunk);
+        }
+        chunks.clear();
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records a whole response in memory, so it can be inspected before being sent to another response transmitter.
+ * Unlike the transmitter of a request cycle, this always records the body, even for HEAD requests.
+ */
+final class BufferingResponseTransmitter implements ResponseTransmitter {
+
+    private final JsonEngine jsonEngine;
+    private final RequestPhaseListener listener;
+    private final RequestCycle requestCycle;
+    private int status = 200;
+    private String contentType;
+    private final List<String> headerNamesAndValues = new ArrayList<>();
+    private final Body body = new Body();
+
+    BufferingResponseTransmitter(JsonEngine jsonEngine) {
+        this(jsonEngine, null, null);
+    }
+
+    /**
+     * Creates a transmitter that records the response for a request, reporting the time spent serializing JSON to
+     * the specified listener, if any.
+     */
+    BufferingResponseTransmitter(JsonEngine jsonEngine, RequestPhaseListener listener, RequestCycle requestCycle) {
+        this.jsonEngine = jsonEngine;
+        this.listener = listener;
+        this.requestCycle = requestCycle;
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    @Override
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    @Override
+    public void addCustomHeader(String name, String value) {
+        headerNamesAndValues.add(name);
+        headerNamesAndValues.add(value);
+    }
+
+    @Override
+    public void setContentLength(long contentLength) {
+        // ignored -- the recorded body may get compressed when sent, and its size is known anyway
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return body;
+    }
+
+    @Override
+    public void writeJson(Object value) throws JsonSerializationException, IOException {
+        if (listener == null) {
+            jsonEngine.writeTo(value, body);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            jsonEngine.writeTo(value, body);
+        } finally {
+            listener.onPhase(requestCycle, requestCycle.getMatchedRouteOrNull(), RequestPhase.SERIALIZATION, startNanos,
+                    System.nanoTime());
+        }
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    List<String> getHeaderNamesAndValues() {
+        return headerNamesAndValues;
+    }
+
+    byte[] getBodyBytes() {
+        return body.getBytes();
+    }
+
+    int getBodyLength() {
+        return body.size();
+    }
+
+    /**
+     * Sends the recorded response to the specified transmitter.
+     */
+    void replay(ResponseTransmitter target) throws IOException {
+        replayHeaders(target, status);
+        if (contentType != null) {
+            target.setContentType(contentType);
+        }
+        if (body.size() > 0) {
+            target.getOutputStream().write(body.getBytes(), 0, body.size());
+        }
+    }
+
+    /**
+     * Sends only the status code and the custom headers to the specified transmitter, replacing the status code.
+     */
+    void replayHeaders(ResponseTransmitter target, int status) {
+        target.setStatus(status);
+        for (int i = 0; i < headerNamesAndValues.size(); i += 2) {
+            target.addCustomHeader(headerNamesAndValues.get(i), headerNamesAndValues.get(i + 1));
+        }
+    }
+
+    private static final class Body extends ByteArrayOutputStream {
+
+        byte[] getBytes() {
+            return buf;
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The response body stream used when response compression is enabled. The body is buffered until it exceeds the
+ * minimum size for compression; only then is the decision made whether to compress it, and the headers that
+ * depend on that decision are set. If the body ends before reaching the minimum size, it is sent uncompressed.
+ * <p>
+ * Flushing does not force that decision while buffering, because serializers flush after every value. Once the
+ * decision has been made, flushing a compressed stream emits all data compressed so far, so streamed responses
+ * reach the client without waiting for the end of the body.
+ * <p>
+ * Gzip output is produced with a pooled raw deflater plus the gzip header and trailer written here, because
+ * {@link java.util.zip.GZIPOutputStream} always creates its own deflater.
+ */
+final class CompressingOutputStream extends OutputStream {
+
+    private final ResponseCompressor compressor;
+    private final ResponseCompressor.Coding coding;
+    private final HttpServletResponse servletResponse;
+    private final OutputStream bodyTarget;
+    private final BooleanSupplier compressibleCheck;
+
+    private byte[] pendingBytes;
+    private int pendingCount;
+    private OutputStream target;
+    private Deflater deflater;
+    private byte[] deflaterOutput;
+    private CRC32 crc;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param compressor the compression configuration and pooled resources
+     * @param coding the negotiated coding, or null if the client does not accept a supported coding
+     * @param servletResponse the servlet response to set headers on
+     * @param bodyTarget the stream to write the (possibly compressed) body to
+     * @param compressibleCheck checks whether the response may be compressed, based on the response headers. This
+     *                          gets called when the decision is made, since the headers may change until then.
+     */
+    CompressingOutputStream(
+            ResponseCompressor compressor,
+            ResponseCompressor.Coding coding,
+            HttpServletResponse servletResponse,
+            OutputStream bodyTarget,
+            BooleanSupplier compressibleCheck
+    ) {
+        this.compressor = compressor;
+        this.coding = coding;
+        this.servletResponse = servletResponse;
+        this.bodyTarget = bodyTarget;
+        this.compressibleCheck = compressibleCheck;
+        this.pendingBytes = new byte[Math.max(compressor.getOptions().minimumSize(), 1)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("response body has already been finished");
+        }
+        if (target == null) {
+            if (pendingCount + len <= compressor.getOptions().minimumSize()) {
+                System.arraycopy(b, off, pendingBytes, pendingCount, len);
+                pendingCount += len;
+                return;
+            }
+            decide(true);
+        }
+        writeToTarget(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target == null || finished) {
+            return;
+        }
+        if (deflater != null) {
+            drain(Deflater.SYNC_FLUSH);
+        }
+        target.flush();
+    }
+
+    /**
+     * Ends the response body: sends a buffered body, or finishes the compressed stream and returns the deflater to
+     * its pool. Further writes fail. Calling this method again has no effect.
+     *
+     * @throws IOException on I/O errors
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            if (target == null) {
+                decide(false);
+            }
+            if (deflater != null) {
+                deflater.finish();
+                drain(Deflater.NO_FLUSH);
+                if (coding == ResponseCompressor.Coding.GZIP) {
+                    target.write(ResponseCompressor.gzipTrailer(crc, deflater));
+                }
+            }
+        } finally {
+            finished = true;
+            releaseResources();
+        }
+    }
+
+    /**
+     * Releases pooled resources without finishing the body, e.g. after an I/O error.
+     */
+    void abort() {
+        finished = true;
+        releaseResources();
+    }
+
+    private void decide(boolean minimumSizeReached) throws IOException {
+        boolean compressible = compressibleCheck.getAsBoolean();
+        if (compressible) {
+            servletResponse.addHeader("Vary", "Accept-Encoding");
+        }
+        target = bodyTarget;
+        if (compressible && minimumSizeReached && coding != null) {
+            servletResponse.setHeader("Content-Encoding", coding.getToken());
+            String entityTag = servletResponse.getHeader("ETag");
+            if (entityTag != null && entityTag.endsWith("\"")) {
+                servletResponse.setHeader("ETag", EntityTags.forCoding(entityTag, coding.getToken()));
+            }
+            deflater = compressor.getDeflaterPool(coding).acquire();
+            deflaterOutput = compressor.getOutputBufferPool().acquire();
+            if (coding == ResponseCompressor.Coding.GZIP) {
+                crc = new CRC32();
+                target.write(ResponseCompressor.GZIP_HEADER);
+            }
+        }
+        byte[] bytes = pendingBytes;
+        int count = pendingCount;
+        pendingBytes = null;
+        pendingCount = 0;
+        writeToTarget(bytes, 0, count);
+    }
+
+    private void writeToTarget(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (deflater == null) {
+            target.write(b, off, len);
+            return;
+        }
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            int count = deflater.deflate(deflaterOutput, 0, deflaterOutput.length, Deflater.NO_FLUSH);
+            if (count > 0) {
+                target.write(deflaterOutput, 0, count);
+            }
+        }
+    }
+
+    // writes compressed output until the deflater has no more to give for the specified flush mode
+    private void drain(int flushMode) throws IOException {
+        while (true) {
+            int count = deflater.deflate(deflaterOutput, 0, deflaterOutput.length, flushMode);
+            if (count > 0) {
+                target.write(deflaterOutput, 0, count);
+            }
+            if (flushMode == Deflater.NO_FLUSH ? deflater.finished() : count < deflaterOutput.length) {
+                return;
+            }
+        }
+    }
+
+    private void releaseResources() {
+        pendingBytes = null;
+        if (deflater != null) {
+            compressor.getDeflaterPool(coding).release(deflater);
+            compressor.getOutputBufferPool().release(deflaterOutput);
+            deflater = null;
+            deflaterOutput = null;
+        }
+    }
+
+}
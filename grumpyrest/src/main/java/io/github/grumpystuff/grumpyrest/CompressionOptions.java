@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * Controls response compression, see {@link RestApi#enableResponseCompression(CompressionOptions)}.
+ *
+ * @param minimumSize the minimum size of a response body, in bytes, for it to get compressed. Smaller bodies are
+ *                    not worth the overhead. The response body is buffered up to this size to decide whether it
+ *                    exceeds it, so this should not be overly large.
+ * @param level the compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+ * @param excludedContentTypes content types that never get compressed, usually because they are compressed already.
+ *                             An entry that ends with a slash, such as "image/", excludes all subtypes of that type;
+ *                             other entries must match the content type exactly, ignoring parameters such as the
+ *                             charset. Responses without a content type are never compressed either.
+ */
+public record CompressionOptions(int minimumSize, int level, List<String> excludedContentTypes) {
+
+    /**
+     * The options used by {@link RestApi#enableResponseCompression()}.
+     */
+    public static final CompressionOptions DEFAULT = new CompressionOptions(1024, Deflater.DEFAULT_COMPRESSION, List.of(
+            "image/", "video/", "audio/", "application/zip", "application/gzip", "application/octet-stream",
+            "text/event-stream"
+    ));
+
+    /**
+     * Standard constructor.
+     *
+     * @param minimumSize the minimum size of a response body, in bytes, for it to get compressed
+     * @param level the compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param excludedContentTypes content types that never get compressed
+     */
+    public CompressionOptions {
+        if (minimumSize < 0) {
+            throw new IllegalArgumentException("minimumSize cannot be negative");
+        }
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+        excludedContentTypes = List.copyOf(Objects.requireNonNull(excludedContentTypes, "excludedContentTypes"));
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #minimumSize()}.
+     *
+     * @param minimumSize the new value
+     * @return the new options
+     */
+    public CompressionOptions withMinimumSize(int minimumSize) {
+        return new CompressionOptions(minimumSize, level, excludedContentTypes);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #level()}.
+     *
+     * @param level the new value
+     * @return the new options
+     */
+    public CompressionOptions withLevel(int level) {
+        return new CompressionOptions(minimumSize, level, excludedContentTypes);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #excludedContentTypes()}.
+     *
+     * @param excludedContentTypes the new value
+     * @return the new options
+     */
+    public CompressionOptions withExcludedContentTypes(List<String> excludedContentTypes) {
+        return new CompressionOptions(minimumSize, level, excludedContentTypes);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Helper methods for ETag headers and conditional requests.
+ */
+final class EntityTags {
+
+    // prevent instantiation
+    private EntityTags() {
+    }
+
+    /**
+     * Builds a strong entity tag from a version token.
+     */
+    static String fromVersion(String version) {
+        return '"' + version + '"';
+    }
+
+    /**
+     * Builds a strong entity tag by hashing a response body.
+     */
+    static String fromBody(byte[] body, int length) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform must support SHA-256
+            throw new RuntimeException(e);
+        }
+        digest.update(body, 0, length);
+        byte[] hash = digest.digest();
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + '"';
+    }
+
+    /**
+     * Returns the entity tag of a compressed variant of a response. The compressed variant is a different
+     * representation, so it must not have the same strong entity tag as the uncompressed one.
+     */
+    static String forCoding(String entityTag, String coding) {
+        return entityTag.substring(0, entityTag.length() - 1) + '-' + coding + '"';
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches an entity tag, using weak comparison as required for that header.
+     * Tags of compressed variants (see {@link #forCoding(String, String)}) match the tag they were derived from.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, or null if absent
+     * @param entityTag the strong entity tag of the current response
+     * @return true if matched, false if not
+     */
+    static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        int position = 0;
+        int length = ifNoneMatch.length();
+        while (position < length) {
+            char c = ifNoneMatch.charAt(position);
+            if (c == ' ' || c == '\t' || c == ',') {
+                position++;
+                continue;
+            }
+            if (ifNoneMatch.startsWith("W/", position)) {
+                position += 2;
+            }
+            if (position >= length || ifNoneMatch.charAt(position) != '"') {
+                // malformed -- ignore the remaining header
+                return false;
+            }
+            int end = ifNoneMatch.indexOf('"', position + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (opaqueTagMatches(ifNoneMatch, position, end + 1, entityTag)) {
+                return true;
+            }
+            position = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean opaqueTagMatches(String header, int start, int end, String entityTag) {
+        int length = end - start;
+        if (length == entityTag.length()) {
+            return header.regionMatches(start, entityTag, 0, length);
+        }
+        // allow a coding suffix in the header
+        int baseLength = entityTag.length() - 1;
+        if (length <= baseLength + 1 || !header.regionMatches(start, entityTag, 0, baseLength)) {
+            return false;
+        }
+        String suffix = header.substring(start + baseLength, end);
+        return suffix.equals("-gzip\"") || suffix.equals("-deflate\"");
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.IncrementalJsonParser;
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import io.github.grumpystuff.grumpyrest.util.BufferPool;
+import io.github.grumpystuff.grumpyrest.util.TimeoutScheduler;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads a JSON request body using a servlet {@link ReadListener}, so no thread is blocked while waiting for a slow
+ * client, and feeds it to an {@link IncrementalJsonParser} as it arrives. The handler is only invoked once the whole
+ * body has been read and parsed.
+ * <p>
+ * A malformed body does not finish the request immediately. Instead, the parse error is stored in the request cycle
+ * and reported when the handler asks for the body, as if the body had been parsed by the handler.
+ */
+final class NonBlockingBodyReader implements ReadListener {
+
+    private final RestApi api;
+    private final RequestCycle requestCycle;
+    private final AsyncContext asyncContext;
+    private final ServletInputStream inputStream;
+    private final BufferPool bufferPool;
+    private final IncrementalJsonParser parser;
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile ScheduledFuture<?> timer;
+
+    private byte[] buffer;
+    private JsonDeserializationException parseFailure;
+
+    private NonBlockingBodyReader(
+            RestApi api,
+            RequestCycle requestCycle,
+            AsyncContext asyncContext,
+            ServletInputStream inputStream,
+            BufferPool bufferPool
+    ) {
+        this.api = api;
+        this.requestCycle = requestCycle;
+        this.asyncContext = asyncContext;
+        this.inputStream = inputStream;
+        this.bufferPool = bufferPool;
+        JsonEngine jsonEngine = api.getJsonEngine();
+        IncrementalJsonParser parser = jsonEngine.newIncrementalParser();
+        this.parser = (parser == null) ? new BufferingJsonParser(jsonEngine, bufferPool) : parser;
+        this.buffer = bufferPool.acquire();
+    }
+
+    /**
+     * Starts reading the body of the specified request cycle, if it has a JSON body and the container supports
+     * asynchronous processing. The handler will then be invoked by the reader.
+     *
+     * @return true if reading has been started, false if the caller should invoke the handler as usual
+     */
+    static boolean start(RestApi api, RequestCycle requestCycle, BufferPool bufferPool, long timeout) {
+        HttpServletRequest servletRequest = requestCycle.getServletRequest();
+        if (!servletRequest.isAsyncSupported() || servletRequest.getContentLengthLong() == 0) {
+            return false;
+        }
+        if (!"application/json".equals(servletRequest.getContentType())) {
+            // the handler will get an error when it tries to parse the body, as usual
+            return false;
+        }
+
+        boolean startedHere = !servletRequest.isAsyncStarted();
+        ServletInputStream inputStream;
+        AsyncContext asyncContext;
+        try {
+            inputStream = servletRequest.getInputStream();
+            asyncContext = startedHere ? servletRequest.startAsync() : servletRequest.getAsyncContext();
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+        requestCycle.deferCompletion();
+        if (startedHere) {
+            // we implement the timeout ourselves, like RestApi does for asynchronous handlers
+            asyncContext.setTimeout(0);
+        }
+
+        NonBlockingBodyReader reader = new NonBlockingBodyReader(api, requestCycle, asyncContext, inputStream, bufferPool);
+        if (timeout > 0) {
+            reader.setTimer(TimeoutScheduler.schedule(reader::onTimeout, timeout));
+        }
+        try {
+            inputStream.setReadListener(reader);
+        } catch (RuntimeException e) {
+            reader.fail(e);
+        }
+        return true;
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        while (!finished.get() && inputStream.isReady()) {
+            int length = inputStream.read(buffer);
+            if (length < 0) {
+                // some containers report the end of the body this way instead of calling onAllDataRead()
+                onAllDataRead();
+                return;
+            }
+            if (parseFailure == null) {
+                try {
+                    parser.feed(buffer, 0, length);
+                } catch (JsonDeserializationException e) {
+                    // keep reading (and discarding) the body, so the handler gets invoked once it is complete
+                    parseFailure = e;
+                    parser.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onAllDataRead() {
+        if (!finish()) {
+            return;
+        }
+        bufferPool.release(buffer);
+        buffer = null;
+        if (parseFailure == null) {
+            try {
+                requestCycle.applyPreParsedBody(parser.finish());
+            } catch (JsonDeserializationException e) {
+                parseFailure = e;
+            }
+        }
+        if (parseFailure != null) {
+            requestCycle.applyBodyParseFailure(parseFailure);
+        }
+        api.invokeHandlerAndFinish(requestCycle, asyncContext);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(StandardErrorResponse.IO_ERROR);
+    }
+
+    private void onTimeout() {
+        fail(StandardErrorResponse.TIMEOUT);
+    }
+
+    private void fail(Object responseValue) {
+        // The buffer and parser may still be in use by a concurrent callback, so we leave them to the garbage
+        // collector instead of returning them to the pool.
+        if (finish()) {
+            api.respondAndComplete(requestCycle, responseValue, asyncContext);
+        }
+    }
+
+    private void setTimer(ScheduledFuture<?> timer) {
+        this.timer = timer;
+        if (finished.get()) {
+            // finished before the timer was set
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * Claims the right to finish the request and cancels the timeout, so it doesn't keep this reader alive.
+     *
+     * @return true if claimed, false if the request has been finished already
+     */
+    private boolean finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        ScheduledFuture<?> timer = this.timer;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        return true;
+    }
+
+}
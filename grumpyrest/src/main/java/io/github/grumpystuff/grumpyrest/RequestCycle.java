@@ -11,26 +11,39 @@ import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException
 import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
 import io.github.grumpystuff.grumpyjson.registry.NotRegisteredException;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
+import io.github.grumpystuff.grumpyrest.jfr.RequestEvent;
+import io.github.grumpystuff.grumpyrest.metrics.RouteMetrics;
 import io.github.grumpystuff.grumpyrest.request.PathArgument;
 import io.github.grumpystuff.grumpyrest.request.Request;
-import io.github.grumpystuff.grumpyrest.request.path.PathUtil;
+import io.github.grumpystuff.grumpyrest.request.path.RequestPath;
+import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringDecoder;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParsingException;
+import io.github.grumpystuff.grumpyrest.response.AsyncResponseChannel;
 import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
 import io.github.grumpystuff.grumpyrest.response.Response;
 import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
 import io.github.grumpystuff.grumpyrest.servlet.RequestPathSourcingStrategy;
+import io.github.grumpystuff.grumpyrest.util.NdjsonLines;
 import io.github.grumpystuff.grumpyrest.util.NullReturnCheckingCalls;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Holds the run-time state of processing a single request. Application code will normally not have to deal with a
@@ -43,12 +56,25 @@ public final class RequestCycle {
     private final RestApi api;
     private final HttpServletRequest servletRequest;
     private final HttpServletResponse servletResponse;
-    private final List<String> pathSegments;
+    private final RequestPath requestPath;
+    private final boolean bodySuppressed;
 
     private RouteMatchResult routeMatchResult;
+    private volatile boolean completionDeferred;
+    private volatile boolean responseAsync;
+    private JsonElement preParsedBody;
+    private JsonDeserializationException bodyParseFailure;
+    private ResponseCache.Key responseCacheKey;
+    private long responseCacheGeneration;
+    private int responseStatus = 200;
+    private long startNanos;
+    private RouteMetrics routeMetrics;
+    private RequestEvent requestEvent;
+    private long responseBodyBytes;
+    private volatile Runnable finishListener;
 
     private final Request highlevelRequest;
-    private final ResponseTransmitter responseTransmitter;
+    private final MyResponseTransmitter responseTransmitter;
 
     /**
      * NOT PUBLIC API
@@ -73,12 +99,10 @@ public final class RequestCycle {
         this.servletRequest = servletRequest;
         this.servletResponse = servletResponse;
 
-        String pathText = requestPathSourcingStrategy.getPath(servletRequest);
-        if (pathText == null) {
-            this.pathSegments = List.of();
-        } else {
-            this.pathSegments = List.of(PathUtil.splitIntoSegments(pathText));
-        }
+        this.requestPath = RequestPath.parse(requestPathSourcingStrategy.getPath(servletRequest));
+
+        // HEAD requests are handled by GET routes, but the response body is neither serialized nor sent
+        this.bodySuppressed = "HEAD".equalsIgnoreCase(servletRequest.getMethod());
 
         this.highlevelRequest = new MyRequest();
         this.responseTransmitter = new MyResponseTransmitter();
@@ -108,7 +132,17 @@ public final class RequestCycle {
      * @return the path segments
      */
     public List<String> getPathSegments() {
-        return pathSegments;
+        return requestPath.getSegments();
+    }
+
+    /**
+     * Getter method for the requested path. Unlike {@link #getPathSegments()}, this does not create a string for
+     * each segment.
+     *
+     * @return the request path
+     */
+    public RequestPath getRequestPath() {
+        return requestPath;
     }
 
     private RouteMatchResult needRouteMatchResult() {
@@ -165,16 +199,174 @@ public final class RequestCycle {
         return responseTransmitter;
     }
 
+    /**
+     * Checks whether handling of this request continues asynchronously after {@link RestApi#handle(RequestCycle)} has
+     * returned, because the handler returned a {@link java.util.concurrent.CompletionStage} or the response has
+     * called {@link ResponseTransmitter#startAsync()}. In that case, the API or the response completes the servlet's
+     * async context when done, and code that has started the async context itself must not complete it.
+     *
+     * @return true if completion has been deferred, false if handling is finished
+     */
+    public boolean isCompletionDeferred() {
+        return completionDeferred;
+    }
+
+    /**
+     * Sets an action that gets run once when the {@link RestApi} has finished handling this request. This happens
+     * when the response has been sent, or when it has been started for a response that continues asynchronously (see
+     * {@link ResponseTransmitter#startAsync()}). Unlike {@link #isCompletionDeferred()}, this includes handlers that
+     * returned a {@link java.util.concurrent.CompletionStage}, and request bodies that are read asynchronously.
+     * <p>
+     * This is meant for code that calls {@link RestApi#handle(RequestCycle)}, e.g. to limit the number of requests
+     * that are handled concurrently.
+     *
+     * @param finishListener the action to run, or null for none
+     */
+    public void setFinishListener(Runnable finishListener) {
+        this.finishListener = finishListener;
+    }
+
+    /**
+     * Returns the finish listener, if any, then clears it, so it gets run only once.
+     */
+    Runnable takeFinishListener() {
+        Runnable result = finishListener;
+        finishListener = null;
+        return result;
+    }
+
+    ResponseCache.Key getResponseCacheKey() {
+        return responseCacheKey;
+    }
+
+    long getResponseCacheGeneration() {
+        return responseCacheGeneration;
+    }
+
+    /**
+     * Stores the key to cache the response under, and the generation of the cache when it was missed.
+     */
+    void setResponseCacheKey(ResponseCache.Key responseCacheKey, long responseCacheGeneration) {
+        this.responseCacheKey = responseCacheKey;
+        this.responseCacheGeneration = responseCacheGeneration;
+    }
+
+    int getResponseStatus() {
+        return responseStatus;
+    }
+
+    /**
+     * Sets the status that the request gets recorded with when it has failed without sending a response.
+     */
+    void setFailedResponseStatus(int responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void setStartNanos(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Returns the metrics that the finished request must be recorded in, then clears them, so the request is recorded
+     * only once.
+     */
+    RouteMetrics takeRouteMetrics() {
+        RouteMetrics result = routeMetrics;
+        routeMetrics = null;
+        return result;
+    }
+
+    void setRouteMetrics(RouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
+
+    /**
+     * Returns the flight recorder event for this request, if any, then clears it, so the event is committed only
+     * once.
+     */
+    RequestEvent takeRequestEvent() {
+        RequestEvent result = requestEvent;
+        requestEvent = null;
+        return result;
+    }
+
+    /**
+     * Sets the flight recorder event for this request. While set, the response body bytes are counted.
+     */
+    void setRequestEvent(RequestEvent requestEvent) {
+        this.requestEvent = requestEvent;
+    }
+
+    long getResponseBodyBytes() {
+        return responseBodyBytes;
+    }
+
+    Route getMatchedRouteOrNull() {
+        return routeMatchResult == null ? null : routeMatchResult.route();
+    }
+
+    void deferCompletion() {
+        completionDeferred = true;
+    }
+
+    /**
+     * Checks whether the response has called {@link ResponseTransmitter#startAsync()}, which means that the response
+     * itself completes the async context.
+     */
+    boolean isResponseAsync() {
+        return responseAsync;
+    }
+
     void applyRouteMatchResult(RouteMatchResult matchResult) {
         Objects.requireNonNull(matchResult, "matchResult");
 
         this.routeMatchResult = matchResult;
     }
 
+    void applyPreParsedBody(JsonElement body) {
+        Objects.requireNonNull(body, "body");
+
+        this.preParsedBody = body;
+    }
+
+    void applyBodyParseFailure(JsonDeserializationException failure) {
+        Objects.requireNonNull(failure, "failure");
+
+        this.bodyParseFailure = failure;
+    }
+
+    /**
+     * Ends the response body after the response has been transmitted. This is only needed if the response transmitter
+     * wraps the servlet output stream, as it does for response compression.
+     */
+    void finishResponse() throws IOException {
+        responseTransmitter.finish();
+    }
+
+    /**
+     * Releases resources held by the response transmitter after transmitting the response has failed.
+     */
+    void abortResponse() {
+        responseTransmitter.abort();
+    }
+
     private final class MyResponseTransmitter implements ResponseTransmitter {
 
+        private String contentType;
+        private boolean contentEncodingSet;
+        private boolean contentLengthSet;
+        private OutputStream bodyOutputStream;
+        private CompressingOutputStream compressingOutputStream;
+        private BufferedResponseOutputStream bufferedOutputStream;
+        private Class<?> jsonValueClass;
+
         @Override
         public void setStatus(int status) {
+            responseStatus = status;
             servletResponse.setStatus(status);
         }
 
@@ -182,6 +374,7 @@ public final class RequestCycle {
         public void setContentType(String contentType) {
             Objects.requireNonNull(contentType, "contentType");
 
+            this.contentType = contentType;
             servletResponse.setContentType(contentType);
         }
 
@@ -190,26 +383,254 @@ public final class RequestCycle {
             Objects.requireNonNull(name, "name");
             Objects.requireNonNull(value, "value");
 
+            if (name.equalsIgnoreCase("Content-Encoding")) {
+                contentEncodingSet = true;
+            }
             servletResponse.addHeader(name, value);
         }
 
+        @Override
+        public void setContentLength(long contentLength) {
+            contentLengthSet = true;
+            servletResponse.setContentLengthLong(contentLength);
+        }
+
         @Override
         public OutputStream getOutputStream() throws IOException {
-            return servletResponse.getOutputStream();
+            OutputStream stream = getUncountedOutputStream();
+            return (requestEvent == null || bodySuppressed) ? stream : new ByteCountingOutputStream(stream);
+        }
+
+        private OutputStream getUncountedOutputStream() throws IOException {
+            if (bodySuppressed) {
+                // for HEAD requests, the body is discarded without compressing it
+                return OutputStream.nullOutputStream();
+            }
+            if (bodyOutputStream == null) {
+                ResponseBuffering buffering = api.getResponseBuffering();
+                ResponseCompressor compressor = api.getResponseCompressor();
+                if (contentLengthSet || (buffering == null && compressor == null)) {
+                    return servletResponse.getOutputStream();
+                }
+
+                // the buffer must be outside of compression, so the Content-Length is that of the compressed body
+                OutputStream stream;
+                if (buffering == null) {
+                    stream = servletResponse.getOutputStream();
+                } else {
+                    bufferedOutputStream = new BufferedResponseOutputStream(buffering, servletResponse);
+                    stream = bufferedOutputStream;
+                }
+                if (compressor != null) {
+                    ResponseCompressor.Coding coding = ResponseCompressor.negotiate(servletRequest.getHeader("Accept-Encoding"));
+                    compressingOutputStream = new CompressingOutputStream(compressor, coding, servletResponse, stream,
+                            () -> !contentEncodingSet && compressor.isCompressible(contentType));
+                    stream = compressingOutputStream;
+                }
+                bodyOutputStream = stream;
+            }
+            return bodyOutputStream;
         }
 
         @Override
         public void writeJson(Object value) throws JsonSerializationException, IOException {
             Objects.requireNonNull(value, "value");
 
-            api.getJsonEngine().writeTo(value, servletResponse.getOutputStream());
+            if (bodySuppressed) {
+                // the JSON would be discarded anyway
+                return;
+            }
+            OutputStream outputStream = getOutputStream();
+            if (bufferedOutputStream != null && jsonValueClass == null) {
+                jsonValueClass = value.getClass();
+                bufferedOutputStream.prepare(jsonValueClass);
+            }
+            RequestPhaseListener listener = api.getRequestPhaseListener();
+            if (listener == null) {
+                api.getJsonEngine().writeTo(value, outputStream);
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                api.getJsonEngine().writeTo(value, outputStream);
+            } finally {
+                listener.onPhase(RequestCycle.this, getMatchedRouteOrNull(), RequestPhase.SERIALIZATION, startNanos,
+                        System.nanoTime());
+            }
+        }
+
+        @Override
+        public boolean isBodySuppressed() {
+            return bodySuppressed;
+        }
+
+        @Override
+        public AsyncResponseChannel startAsync() throws IOException {
+            if (bodySuppressed || !servletRequest.isAsyncSupported()) {
+                return null;
+            }
+            if (bodyOutputStream != null) {
+                throw new IllegalStateException("the response body has already been started");
+            }
+
+            // the async context may have been started already, e.g. for a handler that returned a CompletionStage
+            boolean startedHere = !servletRequest.isAsyncStarted();
+            AsyncContext asyncContext = startedHere ? servletRequest.startAsync() : servletRequest.getAsyncContext();
+            if (startedHere) {
+                asyncContext.setTimeout(0);
+            }
+            responseAsync = true;
+            deferCompletion();
+            return new MyAsyncResponseChannel(asyncContext, servletResponse.getOutputStream());
+        }
+
+        @Override
+        public boolean writePreEncodedJson(Response response) throws IOException {
+            Objects.requireNonNull(response, "response");
+
+            byte[] body = api.getPreEncodedJson(response);
+            if (body == null) {
+                return false;
+            }
+            if (!bodySuppressed) {
+                getOutputStream().write(body);
+            }
+            return true;
+        }
+
+        void finish() throws IOException {
+            if (compressingOutputStream != null) {
+                compressingOutputStream.finish();
+            }
+            if (bufferedOutputStream != null) {
+                int size = bufferedOutputStream.finish();
+                if (size >= 0) {
+                    api.getResponseBuffering().recordSize(jsonValueClass, size);
+                }
+            }
+        }
+
+        void abort() {
+            if (compressingOutputStream != null) {
+                compressingOutputStream.abort();
+            }
+            if (bufferedOutputStream != null) {
+                bufferedOutputStream.abort();
+            }
+        }
+
+    }
+
+    private final class MyAsyncResponseChannel implements AsyncResponseChannel, AsyncListener {
+
+        private final AsyncContext asyncContext;
+        private final OutputStream outputStream;
+        private final AtomicBoolean ended = new AtomicBoolean(false);
+        private volatile Runnable disconnectListener;
+
+        MyAsyncResponseChannel(AsyncContext asyncContext, OutputStream outputStream) {
+            this.asyncContext = asyncContext;
+            this.outputStream = outputStream;
+            try {
+                asyncContext.addListener(this);
+            } catch (IllegalStateException e) {
+                // Listeners can only be added during the dispatch that started async mode. Without the listener,
+                // disconnected clients are still detected by write errors.
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public String toJson(Object value) throws JsonSerializationException {
+            Objects.requireNonNull(value, "value");
+
+            return api.getJsonEngine().serializeToString(value);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            Objects.requireNonNull(task, "task");
+
+            asyncContext.start(task);
+        }
+
+        @Override
+        public void setDisconnectListener(Runnable listener) {
+            this.disconnectListener = listener;
+        }
+
+        @Override
+        public void complete() {
+            if (ended.compareAndSet(false, true)) {
+                asyncContext.complete();
+            }
+        }
+
+        private void disconnected(boolean complete) {
+            if (ended.compareAndSet(false, true)) {
+                if (complete) {
+                    try {
+                        asyncContext.complete();
+                    } catch (IllegalStateException e) {
+                        // already completed by the container
+                    }
+                }
+                Runnable listener = disconnectListener;
+                if (listener != null) {
+                    listener.run();
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            disconnected(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            disconnected(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            disconnected(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
         }
 
     }
 
-    private final class MyRequest implements Request {
+    /**
+     * Counts the response body bytes for the flight recorder event.
+     */
+    private final class ByteCountingOutputStream extends FilterOutputStream {
 
-        private JsonElement preParsedBody;
+        ByteCountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            responseBodyBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            responseBodyBytes += len;
+        }
+
+    }
+
+    private final class MyRequest implements Request {
 
         @Override
         public String getMethod() {
@@ -230,66 +651,76 @@ public final class RequestCycle {
         public Object parseQuerystring(Type type) throws QuerystringParsingException {
             Objects.requireNonNull(type, "type");
 
-            Map<String, String[]> querystringMulti = servletRequest.getParameterMap();
-            Map<String, String> querystringSingle = new HashMap<>();
-            Map<String, String> errorMap = new HashMap<>();
-            for (Map.Entry<String, String[]> entry : querystringMulti.entrySet()) {
-                String[] values = entry.getValue();
-                for (String value : values) {
-                    if (querystringSingle.put(entry.getKey(), value) != null) {
-                        errorMap.put(entry.getKey(), ExceptionMessages.DUPLICATE_PARAMETER);
-                    }
-                }
-            }
-            Object result = null;
-            QuerystringParsingException originalException = null;
+            RequestPhaseListener listener = api.getRequestPhaseListener();
+            long startNanos = listener == null ? 0 : System.nanoTime();
             try {
                 var parser = api.getQuerystringParserRegistry().get(type);
-                result = NullReturnCheckingCalls.parse(parser, querystringSingle, type);
-                if (result == null) {
-                    throw new QuerystringParsingException(Map.of("(root)", "querystring parser returned null"));
-                }
+                QuerystringDecoder querystring = QuerystringDecoder.parse(servletRequest.getQueryString());
+                return NullReturnCheckingCalls.parse(parser, querystring, type);
             } catch (NotRegisteredException e) {
-                throw new QuerystringParsingException(Map.of("(root)", e.getMessage()));
-            } catch (QuerystringParsingException e) {
-                originalException = e;
-                // duplicate-parameter errors take precedence here
-                for (Map.Entry<String, String> entry : e.getFieldErrors().entrySet()) {
-                    errorMap.putIfAbsent(entry.getKey(), entry.getValue());
+                throw new QuerystringParsingException(Map.of("(root)", e.getMessage()), false);
+            } finally {
+                if (listener != null) {
+                    listener.onPhase(RequestCycle.this, getMatchedRouteOrNull(), RequestPhase.PARSE_QUERYSTRING,
+                            startNanos, System.nanoTime());
                 }
             }
-            if (!errorMap.isEmpty()) {
-                throw new QuerystringParsingException(Map.copyOf(errorMap));
-            }
-            if (result == null) {
-                // this can only happen if the originalException did not contain any errors
-                throw originalException;
-            }
-            return result;
         }
 
         public Object parseBody(Type type) {
             Objects.requireNonNull(type, "type");
 
+            JsonElement body = prepareParse();
+            RequestPhaseListener listener = api.getRequestPhaseListener();
+            long startNanos = listener == null ? 0 : System.nanoTime();
             try {
-                return api.getJsonEngine().deserialize(prepareParse(), type);
+                return api.getJsonEngine().deserialize(body, type);
             } catch (JsonDeserializationException e) {
-                throw new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(e));
+                throw new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(e), false);
+            } finally {
+                if (listener != null) {
+                    listener.onPhase(RequestCycle.this, getMatchedRouteOrNull(), RequestPhase.PARSE_BODY_CONVERSION,
+                            startNanos, System.nanoTime());
+                }
+            }
+        }
+
+        public Iterator<?> parseBodyLines(Type type) {
+            Objects.requireNonNull(type, "type");
+
+            if (!"application/x-ndjson".equals(servletRequest.getContentType())) {
+                throw new FinishRequestException(StandardErrorResponse.NDJSON_EXPECTED, false);
+            }
+            try {
+                Reader reader = new InputStreamReader(servletRequest.getInputStream(), StandardCharsets.UTF_8);
+                return NdjsonLines.parse(api.getJsonEngine(), reader, type);
+            } catch (IOException e) {
+                throw new FinishRequestException(StandardErrorResponse.IO_ERROR, false);
             }
         }
 
         private JsonElement prepareParse() {
+            if (bodyParseFailure != null) {
+                throw new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(bodyParseFailure), false);
+            }
             if (preParsedBody == null) {
                 String contentType = servletRequest.getContentType();
                 if (contentType == null || !contentType.equals("application/json")) {
-                    throw new FinishRequestException(StandardErrorResponse.JSON_EXPECTED);
+                    throw new FinishRequestException(StandardErrorResponse.JSON_EXPECTED, false);
                 }
+                RequestPhaseListener listener = api.getRequestPhaseListener();
+                long startNanos = listener == null ? 0 : System.nanoTime();
                 try {
                     preParsedBody = api.getJsonEngine().deserialize(servletRequest.getInputStream(), JsonElement.class);
                 } catch (JsonDeserializationException e) {
-                    throw new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(e));
+                    throw new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(e), false);
                 } catch (IOException e) {
-                    throw new FinishRequestException(StandardErrorResponse.IO_ERROR);
+                    throw new FinishRequestException(StandardErrorResponse.IO_ERROR, false);
+                } finally {
+                    if (listener != null) {
+                        listener.onPhase(RequestCycle.this, getMatchedRouteOrNull(), RequestPhase.PARSE_BODY_SYNTAX,
+                                startNanos, System.nanoTime());
+                    }
                 }
             }
             return preParsedBody;
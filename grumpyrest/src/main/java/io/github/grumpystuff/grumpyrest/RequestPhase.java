@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.Request;
+import io.github.grumpystuff.grumpyrest.response.ResponseFactoryRegistry;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+/**
+ * The phases of handling a request that are reported to a {@link RequestPhaseListener}.
+ * <p>
+ * Some phases are nested in others: The parsing phases happen while the handler runs, and serialization happens
+ * while the response gets transmitted. To find out how much time the application code itself took, subtract the
+ * nested phases from the {@link #HANDLER} phase.
+ */
+public enum RequestPhase {
+
+    /**
+     * Finding the route that matches the request.
+     */
+    ROUTE_MATCH,
+
+    /**
+     * Parsing the querystring, see {@link Request#parseQuerystring(java.lang.reflect.Type)}.
+     */
+    PARSE_QUERYSTRING,
+
+    /**
+     * Parsing the request body into a JSON tree, which happens on the first call to
+     * {@link Request#parseBody(java.lang.reflect.Type)}. This phase is not reported if the body has already been parsed
+     * while reading it asynchronously (see {@link RestApi#enableNonBlockingBodyReading(int)}), because that
+     * parsing is interleaved with waiting for the client.
+     */
+    PARSE_BODY_SYNTAX,
+
+    /**
+     * Converting the JSON tree of the request body into the type requested by the handler.
+     */
+    PARSE_BODY_CONVERSION,
+
+    /**
+     * Running the handler. If the handler returns a {@link java.util.concurrent.CompletionStage}, this phase ends when
+     * the stage has been returned, not when it completes.
+     */
+    HANDLER,
+
+    /**
+     * Turning the response value into a response, see {@link ResponseFactoryRegistry}.
+     */
+    CREATE_RESPONSE,
+
+    /**
+     * Converting a response value to JSON and writing it, see {@link ResponseTransmitter#writeJson(Object)}.
+     */
+    SERIALIZATION,
+
+    /**
+     * Transmitting the response, including serialization and, if enabled, compression.
+     */
+    TRANSMIT,
+
+}
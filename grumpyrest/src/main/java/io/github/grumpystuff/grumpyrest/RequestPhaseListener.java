@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+/**
+ * Receives the start and end time of each phase of handling a request, see {@link RequestPhase}. This is meant for
+ * finding out where the time goes for a slow endpoint, for example whether it is spent in application code or in
+ * JSON handling. Listeners are registered with {@link RestApi#addRequestPhaseListener(RequestPhaseListener)}.
+ * <p>
+ * Listeners are called in the thread that ran the phase, right after the phase has ended, even if it ended with an
+ * exception. They should be fast and must not throw exceptions. Phases that did not happen for a request, such as
+ * parsing a body for a request that does not have one, are not reported.
+ * <p>
+ * If no listener is registered, the REST API does not even take the timestamps.
+ */
+public interface RequestPhaseListener {
+
+    /**
+     * Called when a request phase has ended.
+     *
+     * @param requestCycle the request cycle of the request
+     * @param route the matched route, or null if the request did not match any route
+     * @param phase the phase that has ended
+     * @param startNanos the start time of the phase, as returned by {@link System#nanoTime()}
+     * @param endNanos the end time of the phase, as returned by {@link System#nanoTime()}
+     */
+    void onPhase(RequestCycle requestCycle, Route route, RequestPhase phase, long startNanos, long endNanos);
+
+}
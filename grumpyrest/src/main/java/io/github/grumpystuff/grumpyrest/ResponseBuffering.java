@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.util.SizeClassBufferPool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the configuration and the pooled buffers for buffered responses, as well as the typical response size
+ * learned for each type of JSON response value.
+ */
+final class ResponseBuffering {
+
+    private static final int MINIMUM_BUFFER_SIZE = 1024;
+
+    private final int maxBufferedSize;
+    private final SizeClassBufferPool bufferPool;
+    private final ConcurrentMap<Class<?>, Integer> typicalSizes = new ConcurrentHashMap<>();
+
+    ResponseBuffering(int maxBufferedSize) {
+        if (maxBufferedSize < 1) {
+            throw new IllegalArgumentException("maxBufferedSize must be positive");
+        }
+        this.maxBufferedSize = maxBufferedSize;
+        this.bufferPool = new SizeClassBufferPool(MINIMUM_BUFFER_SIZE, Math.max(maxBufferedSize, MINIMUM_BUFFER_SIZE), 16);
+    }
+
+    int getMaxBufferedSize() {
+        return maxBufferedSize;
+    }
+
+    SizeClassBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Returns the buffer size to start with for a response of the specified type.
+     */
+    int getInitialSize(Class<?> valueClass) {
+        Integer typicalSize = valueClass == null ? null : typicalSizes.get(valueClass);
+        return typicalSize == null ? MINIMUM_BUFFER_SIZE : Math.min(typicalSize, maxBufferedSize);
+    }
+
+    /**
+     * Records the actual size of a response. The typical size is a moving average that reacts to changes within a
+     * few responses; concurrent updates may get lost, which does not matter for an estimate.
+     */
+    void recordSize(Class<?> valueClass, int size) {
+        if (valueClass == null) {
+            return;
+        }
+        Integer typicalSize = typicalSizes.get(valueClass);
+        typicalSizes.put(valueClass, typicalSize == null ? size : typicalSize + (size - typicalSize) / 4);
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.PathArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The server-side response cache of a single route. Responses are stored as bytes, keyed by the texts of the path
+ * arguments and the normalized querystring. Eviction is approximately least-recently-used, limited by the number of
+ * entries and the total body size.
+ * <p>
+ * Entries are grouped by their path arguments in a two-level concurrent map, so invalidating the responses for a
+ * single set of path arguments removes a single group instead of scanning all entries. Looking up a response takes
+ * no lock; a hit only records its access time in the entry. When storing a response exceeds the limits, a single
+ * thread scans the cache and evicts the entries with the oldest access times, plus some headroom so the next
+ * responses can be stored without another scan.
+ * <p>
+ * A response that was created concurrently with an invalidation may contain the data from before the invalidation,
+ * so it must not be stored. To detect this, each invalidation starts a new generation of the cache. A request that
+ * missed the cache remembers the generation at that time (see {@link #getGeneration()}), and its response is only
+ * stored if the generation is still the same.
+ */
+final class ResponseCache {
+
+    private final ResponseCacheOptions options;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> groups = new ConcurrentHashMap<>();
+    private final AtomicInteger entryCount = new AtomicInteger();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    ResponseCache(ResponseCacheOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+    }
+
+    /**
+     * Builds the cache key for a request.
+     *
+     * @param pathArguments the path arguments of the request
+     * @param rawQuerystring the raw querystring, or null if absent
+     * @return the key
+     */
+    static Key key(List<PathArgument> pathArguments, String rawQuerystring) {
+        List<String> texts = new ArrayList<>(pathArguments.size());
+        for (PathArgument pathArgument : pathArguments) {
+            texts.add(pathArgument.getText());
+        }
+        StringBuilder builder = new StringBuilder();
+        if (rawQuerystring != null && !rawQuerystring.isEmpty()) {
+            // parameter order is irrelevant for all querystring parsers, so sort the parameters to share entries
+            String[] parameters = rawQuerystring.split("&");
+            Arrays.sort(parameters);
+            for (String parameter : parameters) {
+                if (!parameter.isEmpty()) {
+                    builder.append(parameter).append('&');
+                }
+            }
+        }
+        return new Key(groupKey(texts), builder.toString());
+    }
+
+    // path arguments cannot contain a NUL character, so this cannot be confused with another key
+    private static String groupKey(List<String> pathArgumentTexts) {
+        StringBuilder builder = new StringBuilder();
+        for (String text : pathArgumentTexts) {
+            builder.append(text).append('\0');
+        }
+        return builder.toString();
+    }
+
+    Entry get(Key key) {
+        Map<String, Entry> group = groups.get(key.pathArguments());
+        Entry entry = group == null ? null : group.get(key.querystring());
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.expiresAt >= 0) {
+            remove(key, entry);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry;
+    }
+
+    /**
+     * Creates an entry from a recorded response, expiring after the time to live of this cache.
+     */
+    Entry createEntry(BufferingResponseTransmitter response) {
+        return new Entry(response, System.nanoTime() + options.timeToLive().toNanos());
+    }
+
+    /**
+     * Returns the current generation, which changes with every invalidation.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Stores an entry, unless the cache has been invalidated since the specified generation. Entries that are larger
+     * than the cache are not stored.
+     */
+    void put(Key key, Entry entry, long generation) {
+        if (entry.body.length > options.maxBytes() || generation != this.generation.get()) {
+            // if the generation has changed, the response may have been created from the data from before the
+            // invalidation
+            return;
+        }
+        entry.lastAccess = System.nanoTime();
+        groups.compute(key.pathArguments(), (pathArguments, group) -> {
+            if (group == null) {
+                group = new ConcurrentHashMap<>();
+            }
+            Entry replaced = group.put(key.querystring(), entry);
+            if (replaced != null) {
+                account(-1, -replaced.body.length);
+            }
+            account(1, entry.body.length);
+            return group;
+        });
+        if (generation != this.generation.get()) {
+            // an invalidation has started while storing the entry, and may have missed it
+            remove(key, entry);
+            return;
+        }
+        if (entryCount.get() > options.maxEntries() || totalBytes.get() > options.maxBytes()) {
+            evict();
+        }
+    }
+
+    void invalidate(List<String> pathArgumentTexts) {
+        generation.incrementAndGet();
+        removeGroup(groupKey(pathArgumentTexts));
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        for (String pathArguments : groups.keySet()) {
+            removeGroup(pathArguments);
+        }
+    }
+
+    // the group is only ever changed inside a compute call for its key, so nobody changes it after it was removed
+    private void removeGroup(String pathArguments) {
+        Map<String, Entry> group = groups.remove(pathArguments);
+        if (group != null) {
+            for (Entry entry : group.values()) {
+                account(-1, -entry.body.length);
+            }
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        groups.computeIfPresent(key.pathArguments(), (pathArguments, group) -> {
+            if (group.remove(key.querystring(), entry)) {
+                account(-1, -entry.body.length);
+            }
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    private void account(int entries, long bytes) {
+        entryCount.addAndGet(entries);
+        totalBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is below its limits by a sixteenth, so this does not
+     * have to scan the cache again for each of the next few entries that get stored. Concurrent callers wait for the
+     * running eviction, then usually find the cache below its limits already.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            int entryTarget = options.maxEntries() - options.maxEntries() / 16;
+            long byteTarget = options.maxBytes() - options.maxBytes() / 16;
+            if (entryCount.get() <= options.maxEntries() && totalBytes.get() <= options.maxBytes()) {
+                return;
+            }
+            List<Candidate> candidates = new ArrayList<>(entryCount.get());
+            groups.forEach((pathArguments, group) -> group.forEach((querystring, entry) ->
+                    candidates.add(new Candidate(new Key(pathArguments, querystring), entry, entry.lastAccess))));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            for (Candidate candidate : candidates) {
+                if (entryCount.get() <= entryTarget && totalBytes.get() <= byteTarget) {
+                    break;
+                }
+                remove(candidate.key, candidate.entry);
+            }
+        }
+    }
+
+    /**
+     * The key of a cached response.
+     *
+     * @param pathArguments the texts of the path arguments, joined
+     * @param querystring the normalized querystring
+     */
+    record Key(String pathArguments, String querystring) {
+    }
+
+    // the access time is copied so that concurrent hits do not change the order while sorting
+    private record Candidate(Key key, Entry entry, long lastAccess) {
+    }
+
+    /**
+     * A cached response.
+     */
+    static final class Entry {
+
+        private final int status;
+        private final String contentType;
+        private final List<String> headerNamesAndValues;
+        private final byte[] body;
+        private final long expiresAt;
+        private volatile long lastAccess;
+        private final AtomicReferenceArray<byte[]> compressedBodies =
+                new AtomicReferenceArray<>(ResponseCompressor.Coding.values().length);
+
+        /**
+         * Creates an entry from a recorded response. The entry is not stored in any cache.
+         *
+         * @param response the recorded response
+         * @param expiresAt the {@link System#nanoTime()} value at which the entry expires
+         */
+        Entry(BufferingResponseTransmitter response, long expiresAt) {
+            this.status = response.getStatus();
+            this.contentType = response.getContentType();
+            this.headerNamesAndValues = List.copyOf(response.getHeaderNamesAndValues());
+            this.body = Arrays.copyOf(response.getBodyBytes(), response.getBodyLength());
+            this.expiresAt = expiresAt;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        List<String> getHeaderNamesAndValues() {
+            return headerNamesAndValues;
+        }
+
+        String getHeader(String name) {
+            for (int i = 0; i < headerNamesAndValues.size(); i += 2) {
+                if (headerNamesAndValues.get(i).equalsIgnoreCase(name)) {
+                    return headerNamesAndValues.get(i + 1);
+                }
+            }
+            return null;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Returns the compressed body if it has been compressed already, or null if not.
+         */
+        byte[] getCompressedBodyIfPresent(ResponseCompressor.Coding coding) {
+            return compressedBodies.get(coding.ordinal());
+        }
+
+        /**
+         * Returns the compressed body, compressing it on first use. Concurrent callers may compress it more than
+         * once, which is harmless.
+         */
+        byte[] getCompressedBody(ResponseCompressor compressor, ResponseCompressor.Coding coding) {
+            byte[] compressed = compressedBodies.get(coding.ordinal());
+            if (compressed == null) {
+                compressed = compressor.compress(body, coding);
+                compressedBodies.set(coding.ordinal(), compressed);
+            }
+            return compressed;
+        }
+
+    }
+
+}
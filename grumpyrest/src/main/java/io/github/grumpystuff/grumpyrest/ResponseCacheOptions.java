@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Controls the server-side response cache of a route, see {@link RouteOptions#responseCache()}.
+ *
+ * @param timeToLive how long a cached response may be sent before the handler gets invoked again
+ * @param maxEntries the maximum number of responses cached for the route. When exceeded, the least recently used
+ *                   response gets evicted.
+ * @param maxBytes the maximum total size of the (uncompressed) response bodies cached for the route. When exceeded,
+ *                 the least recently used responses get evicted. Larger responses are never cached.
+ */
+public record ResponseCacheOptions(Duration timeToLive, int maxEntries, long maxBytes) {
+
+    /**
+     * Standard constructor.
+     *
+     * @param timeToLive how long a cached response may be sent
+     * @param maxEntries the maximum number of responses cached for the route
+     * @param maxBytes the maximum total size of the response bodies cached for the route
+     */
+    public ResponseCacheOptions {
+        Objects.requireNonNull(timeToLive, "timeToLive");
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+    }
+
+    /**
+     * Creates options with the specified time to live, up to 1000 entries and up to 16 MB of response bodies.
+     *
+     * @param timeToLive how long a cached response may be sent
+     * @return the options
+     */
+    public static ResponseCacheOptions of(Duration timeToLive) {
+        return new ResponseCacheOptions(timeToLive, 1000, 16 * 1024 * 1024);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #maxEntries()}.
+     *
+     * @param maxEntries the new value
+     * @return the new options
+     */
+    public ResponseCacheOptions withMaxEntries(int maxEntries) {
+        return new ResponseCacheOptions(timeToLive, maxEntries, maxBytes);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #maxBytes()}.
+     *
+     * @param maxBytes the new value
+     * @return the new options
+     */
+    public ResponseCacheOptions withMaxBytes(long maxBytes) {
+        return new ResponseCacheOptions(timeToLive, maxEntries, maxBytes);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.util.BufferPool;
+import io.github.grumpystuff.grumpyrest.util.DeflaterPool;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Holds the configuration and the pooled resources for response compression, and implements the decisions that do
+ * not depend on the response body.
+ */
+final class ResponseCompressor {
+
+    /**
+     * The content codings supported for responses, with their HTTP token.
+     */
+    enum Coding {
+
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Coding(String token) {
+            this.token = token;
+        }
+
+        String getToken() {
+            return token;
+        }
+
+    }
+
+    static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final CompressionOptions options;
+    private final DeflaterPool gzipDeflaterPool;
+    private final DeflaterPool deflateDeflaterPool;
+    private final BufferPool outputBufferPool;
+
+    ResponseCompressor(CompressionOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+        this.gzipDeflaterPool = new DeflaterPool(options.level(), true, 64);
+        this.deflateDeflaterPool = new DeflaterPool(options.level(), false, 64);
+        this.outputBufferPool = new BufferPool(8192, 64);
+    }
+
+    CompressionOptions getOptions() {
+        return options;
+    }
+
+    DeflaterPool getDeflaterPool(Coding coding) {
+        return coding == Coding.GZIP ? gzipDeflaterPool : deflateDeflaterPool;
+    }
+
+    BufferPool getOutputBufferPool() {
+        return outputBufferPool;
+    }
+
+    /**
+     * Compresses a whole response body at once.
+     *
+     * @param body the uncompressed body
+     * @param coding the coding to use
+     * @return the compressed body
+     */
+    byte[] compress(byte[] body, Coding coding) {
+        DeflaterPool deflaterPool = getDeflaterPool(coding);
+        Deflater deflater = deflaterPool.acquire();
+        byte[] buffer = outputBufferPool.acquire();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+            if (coding == Coding.GZIP) {
+                out.writeBytes(GZIP_HEADER);
+            }
+            deflater.setInput(body);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            if (coding == Coding.GZIP) {
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                out.writeBytes(gzipTrailer(crc, deflater));
+            }
+            return out.toByteArray();
+        } finally {
+            outputBufferPool.release(buffer);
+            deflaterPool.release(deflater);
+        }
+    }
+
+    /**
+     * Builds the gzip trailer for a finished deflater.
+     */
+    static byte[] gzipTrailer(CRC32 crc, Deflater deflater) {
+        byte[] trailer = new byte[8];
+        writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+        writeIntLittleEndian(trailer, 4, (int) deflater.getBytesRead());
+        return trailer;
+    }
+
+    private static void writeIntLittleEndian(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    /**
+     * Picks the content coding to use based on the Accept-Encoding request header, preferring gzip over deflate if
+     * the client accepts both with the same quality value.
+     *
+     * @param acceptEncoding the value of the Accept-Encoding header, or null if absent
+     * @return the coding, or null to send the response uncompressed
+     */
+    static Coding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzipQuality = -1;
+        float deflateQuality = -1;
+        float wildcardQuality = -1;
+        int start = 0;
+        while (start <= acceptEncoding.length()) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = acceptEncoding.length();
+            }
+            int semicolon = acceptEncoding.indexOf(';', start);
+            int tokenEnd = (semicolon < 0 || semicolon > end) ? end : semicolon;
+            String token = acceptEncoding.substring(start, tokenEnd).trim().toLowerCase(Locale.ROOT);
+            float quality = tokenEnd == end ? 1 : parseQuality(acceptEncoding.substring(tokenEnd + 1, end));
+            switch (token) {
+                case "gzip", "x-gzip" -> gzipQuality = Math.max(gzipQuality, quality);
+                case "deflate" -> deflateQuality = Math.max(deflateQuality, quality);
+                case "*" -> wildcardQuality = quality;
+                default -> {}
+            }
+            start = end + 1;
+        }
+        if (gzipQuality < 0) {
+            gzipQuality = wildcardQuality;
+        }
+        if (deflateQuality < 0) {
+            deflateQuality = wildcardQuality;
+        }
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+            return Coding.GZIP;
+        }
+        if (deflateQuality > 0) {
+            return Coding.DEFLATE;
+        }
+        return null;
+    }
+
+    // parses the parameters after the coding token; a malformed quality value makes the coding unacceptable
+    private static float parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            parameter = parameter.trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    float quality = Float.parseFloat(parameter.substring(2).trim());
+                    return (quality >= 0 && quality <= 1) ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Checks whether a response with the specified content type may be compressed.
+     *
+     * @param contentType the content type of the response, possibly with parameters, or null if none was set
+     * @return true if compressible, false if not
+     */
+    boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon))
+                .trim().toLowerCase(Locale.ROOT);
+        for (String excluded : options.excludedContentTypes()) {
+            if (excluded.endsWith("/") ? mediaType.startsWith(excluded) : mediaType.equals(excluded)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -9,10 +9,15 @@ package io.github.grumpystuff.grumpyrest;
 import io.github.grumpystuff.grumpyjson.JsonEngine;
 import io.github.grumpystuff.grumpyjson.JsonRegistries;
 import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializer;
+import io.github.grumpystuff.grumpyjson.registry.Sealable;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializer;
 import io.github.grumpystuff.grumpyjson.serialize.JsonSerializerRegistry;
+import io.github.grumpystuff.grumpyrest.jfr.RequestEvent;
+import io.github.grumpystuff.grumpyrest.metrics.ApiMetrics;
+import io.github.grumpystuff.grumpyrest.metrics.RouteMetrics;
 import io.github.grumpystuff.grumpyrest.request.HttpMethod;
 import io.github.grumpystuff.grumpyrest.request.path.Path;
+import io.github.grumpystuff.grumpyrest.request.path.RequestPath;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParser;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParserRegistry;
 import io.github.grumpystuff.grumpyrest.request.stringparser.standard.*;
@@ -22,26 +27,61 @@ import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParser;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
 import io.github.grumpystuff.grumpyrest.response.standard.IdentityResponseFactory;
 import io.github.grumpystuff.grumpyrest.response.standard.JsonResponseFactory;
+import io.github.grumpystuff.grumpyrest.response.standard.MethodNotAllowedResponse;
+import io.github.grumpystuff.grumpyrest.response.standard.OptionsResponse;
+import io.github.grumpystuff.grumpyrest.response.standard.RangeResponseFactory;
 import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import io.github.grumpystuff.grumpyrest.response.standard.StreamingListResponseFactory;
+import io.github.grumpystuff.grumpyrest.util.BufferPool;
+import io.github.grumpystuff.grumpyrest.util.TimeoutScheduler;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class is the main Entry point into grumpyrest. It is used by the application to define the REST API in terms
  * of endpoints and supported data types.
  */
-public final class RestApi {
+public final class RestApi extends Sealable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RestApi.class);
 
     private final JsonEngine jsonEngine;
     private final List<Route> routes = new ArrayList<>();
+    private final Map<HttpMethod, RouteTrie> routeTries = new EnumMap<>(HttpMethod.class);
+    private RouteTrie allMethodsRouteTrie;
+    private final String[] allowHeaders = new String[1 << HttpMethod.values().length];
+    private RouteMatchCache routeMatchCache;
+    private long asyncTimeout = 30_000;
+    private BufferPool bodyBufferPool;
+    private ResponseCompressor responseCompressor;
+    private ResponseBuffering responseBuffering;
+    private ApiMetrics metrics;
+    private final List<RequestPhaseListener> requestPhaseListeners = new ArrayList<>();
+    private RequestPhaseListener requestPhaseListener;
+    private final Map<Response, byte[]> preEncodedResponses = new IdentityHashMap<>();
+    private final Map<Route, RouteOptions> routeOptions = new IdentityHashMap<>();
+    private final Map<Route, ResponseCache> responseCaches = new IdentityHashMap<>();
     private final ResponseFactoryRegistry responseFactoryRegistry = new ResponseFactoryRegistry();
     private final FromStringParserRegistry fromStringParserRegistry = new FromStringParserRegistry();
     private final QuerystringParserRegistry querystringParserRegistry = new QuerystringParserRegistry(fromStringParserRegistry);
@@ -77,6 +117,8 @@ public final class RestApi {
         registerResponseFactory(new NullResponseFactory());
         registerResponseFactory(new JsonResponseFactory());
         registerResponseFactory(new IdentityResponseFactory());
+        registerResponseFactory(new StreamingListResponseFactory());
+        registerResponseFactory(new RangeResponseFactory());
 
         // from-string parsers
         registerFromStringParser(new StringFromStringParser());
@@ -87,6 +129,16 @@ public final class RestApi {
         registerFromStringParser(new LocalDateTimeParser());
         registerFromStringParser(new OptionalFieldParser(fromStringParserRegistry));
 
+        // constant error responses
+        registerPreEncodedResponse(StandardErrorResponse.IO_ERROR);
+        registerPreEncodedResponse(StandardErrorResponse.UNKNOWN_URL);
+        registerPreEncodedResponse(StandardErrorResponse.ID_NOT_FOUND);
+        registerPreEncodedResponse(StandardErrorResponse.METHOD_NOT_ALLOWED);
+        registerPreEncodedResponse(StandardErrorResponse.JSON_EXPECTED);
+        registerPreEncodedResponse(StandardErrorResponse.NDJSON_EXPECTED);
+        registerPreEncodedResponse(StandardErrorResponse.TIMEOUT);
+        registerPreEncodedResponse(StandardErrorResponse.INTERNAL_SERVER_ERROR);
+
     }
 
     // region configuration
@@ -101,9 +153,41 @@ public final class RestApi {
      * @param route the route to add
      */
     public void addRoute(Route route) {
+        addRoute(route, RouteOptions.DEFAULT);
+    }
+
+    /**
+     * Adds a route to handle requests, with options that affect how its requests are handled. This route can only be
+     * matched by requests that do not match any previously added route, and takes precedence over any route added
+     * later.
+     * <p>
+     * The options are associated with this specific {@link Route} object, not with other routes that are equal to it.
+     *
+     * @param route the route to add
+     * @param options the options for the route
+     */
+    public void addRoute(Route route, RouteOptions options) {
         Objects.requireNonNull(route, "route");
+        Objects.requireNonNull(options, "options");
+        ensureConfigurationPhase();
 
         routes.add(route);
+        if (options != RouteOptions.DEFAULT) {
+            routeOptions.put(route, options);
+        }
+    }
+
+    /**
+     * Returns the options that were given when adding the specified route.
+     *
+     * @param route the route
+     * @return the options, or {@link RouteOptions#DEFAULT} if the route was added without options or was not added to
+     * this API at all
+     */
+    public RouteOptions getRouteOptions(Route route) {
+        Objects.requireNonNull(route, "route");
+
+        return routeOptions.getOrDefault(route, RouteOptions.DEFAULT);
     }
 
     /**
@@ -179,6 +263,191 @@ public final class RestApi {
         return List.copyOf(routes);
     }
 
+    /**
+     * Enables a cache for route matching. The cache maps an HTTP method and request path directly to the matching
+     * route and its path arguments, skipping the normal matching process. It only stores results for routes whose
+     * path consists of literal segments, or that explicitly allow it through {@link RouteOptions#matchCacheable()}.
+     * <p>
+     * The cache has a fixed number of slots and never grows. Each path can only be stored in a single slot, replacing
+     * any other path stored there, so the cache should have considerably more slots than the number of frequently
+     * requested paths.
+     *
+     * @param capacity the number of slots
+     */
+    public void enableRouteMatchCache(int capacity) {
+        ensureConfigurationPhase();
+
+        routeMatchCache = new RouteMatchCache(capacity);
+    }
+
+    /**
+     * Returns usage statistics for the route match cache.
+     *
+     * @return the statistics, or null if the route match cache is not enabled
+     */
+    public RouteMatchCacheStatistics getRouteMatchCacheStatistics() {
+        return routeMatchCache == null ? null : routeMatchCache.getStatistics();
+    }
+
+    /**
+     * Sets the timeout for handlers that return a {@link CompletionStage}. If the stage has not completed when the
+     * timeout expires, the client gets a {@link StandardErrorResponse#TIMEOUT} response, and the value the stage
+     * completes with later gets ignored. The default is 30 seconds.
+     *
+     * <p>
+     * If non-blocking body reading is enabled, this timeout also limits the time for receiving the request body.
+     *
+     * @param asyncTimeout the timeout in milliseconds, or 0 to wait forever
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        ensureConfigurationPhase();
+        if (asyncTimeout < 0) {
+            throw new IllegalArgumentException("asyncTimeout cannot be negative");
+        }
+
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * Enables non-blocking reading of JSON request bodies. Normally, the body is read when the handler parses it,
+     * blocking the handler's thread until the client has sent the whole body. With this option, the body of a matched
+     * request is instead read using a servlet {@link jakarta.servlet.ReadListener} before the handler gets invoked,
+     * so a slow client does not tie up a thread. If the JSON engine supports it
+     * ({@link JsonEngine#newIncrementalParser()}), the body is parsed while it is being received.
+     * <p>
+     * This only applies to requests with content type application/json, and only if the servlet container supports
+     * asynchronous processing for the request. All other requests are handled as usual. Receiving the body is limited
+     * by the async timeout (see {@link #setAsyncTimeout(long)}).
+     *
+     * @param bufferSize the size of the pooled buffers used for reading
+     */
+    public void enableNonBlockingBodyReading(int bufferSize) {
+        ensureConfigurationPhase();
+
+        bodyBufferPool = new BufferPool(bufferSize, 64);
+    }
+
+    /**
+     * Enables gzip / deflate compression of response bodies with the default options, see
+     * {@link #enableResponseCompression(CompressionOptions)}.
+     */
+    public void enableResponseCompression() {
+        enableResponseCompression(CompressionOptions.DEFAULT);
+    }
+
+    /**
+     * Enables gzip / deflate compression of response bodies. The content coding is negotiated using the
+     * Accept-Encoding request header, preferring gzip. A response body gets compressed only if it is at least as
+     * large as the configured minimum size and its content type is not excluded, and if the response does not set a
+     * Content-Encoding header itself. Compressible responses carry a "Vary: Accept-Encoding" header so caches keep
+     * compressed and uncompressed variants apart.
+     * <p>
+     * Response bodies are buffered up to the minimum size before anything gets sent. Deflaters are pooled across
+     * requests.
+     *
+     * @param options the compression options
+     */
+    public void enableResponseCompression(CompressionOptions options) {
+        ensureConfigurationPhase();
+        Objects.requireNonNull(options, "options");
+
+        responseCompressor = new ResponseCompressor(options);
+    }
+
+    ResponseCompressor getResponseCompressor() {
+        return responseCompressor;
+    }
+
+    /**
+     * Enables buffering of response bodies. Normally, a response body is streamed to the client while it is being
+     * written, which makes the servlet container use chunked transfer encoding and many small writes. With this
+     * option, the body is collected in a pooled buffer and sent with an exact Content-Length header in a single write
+     * call when the response is complete. The initial buffer size is learned from previous responses of the same
+     * JSON value type.
+     * <p>
+     * Bodies larger than the specified maximum are streamed as usual once they exceed it, so the maximum limits the
+     * memory used per request. Streamed responses such as a {@link StreamingList} hold back their first bytes up to
+     * that size. If response compression is enabled too, the compressed body is buffered.
+     *
+     * @param maxBufferedSize the maximum size of a buffered response body in bytes
+     */
+    public void enableResponseBuffering(int maxBufferedSize) {
+        ensureConfigurationPhase();
+
+        responseBuffering = new ResponseBuffering(maxBufferedSize);
+    }
+
+    ResponseBuffering getResponseBuffering() {
+        return responseBuffering;
+    }
+
+    /**
+     * Enables built-in metrics: per route, the number of requests by status class, the number of requests in
+     * progress, and a latency histogram. Calling this method again returns the same metrics object.
+     * <p>
+     * The metrics are not exposed automatically. To expose them in the Prometheus text format, add a route that
+     * returns {@link ApiMetrics#createPrometheusResponse()}.
+     *
+     * @return the metrics
+     */
+    public ApiMetrics enableMetrics() {
+        ensureConfigurationPhase();
+
+        if (metrics == null) {
+            metrics = new ApiMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Getter method for the built-in metrics
+     *
+     * @return the metrics, or null if metrics have not been enabled (see {@link #enableMetrics()})
+     */
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Adds a listener that receives the start and end time of each phase of handling a request. Listeners are called
+     * in the order they have been added.
+     *
+     * @param listener the listener to add
+     */
+    public void addRequestPhaseListener(RequestPhaseListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        ensureConfigurationPhase();
+
+        requestPhaseListeners.add(listener);
+    }
+
+    /**
+     * Returns the listener to notify about request phases, combining all registered listeners, or null if none are
+     * registered. Callers must check for null before taking any timestamps, so timing costs nothing without listeners.
+     */
+    RequestPhaseListener getRequestPhaseListener() {
+        return requestPhaseListener;
+    }
+
+    /**
+     * Registers a constant error response whose JSON body shall be serialized only once, when this API gets sealed,
+     * instead of every time it is sent. The response is recognized by identity, so this only helps if the same
+     * instance is sent repeatedly, typically one stored in a static final field. The constants from
+     * {@link StandardErrorResponse} are registered by default.
+     *
+     * @param response the response to register
+     */
+    public void registerPreEncodedResponse(StandardErrorResponse response) {
+        ensureConfigurationPhase();
+        Objects.requireNonNull(response, "response");
+
+        preEncodedResponses.put(response, null);
+    }
+
+    byte[] getPreEncodedJson(Response response) {
+        return preEncodedResponses.get(response);
+    }
+
     /**
      * Registers a {@link ResponseFactory} to support new kinds of response values. This includes exception types for
      * which a specific response shall be generated (by default, exceptions just cause a standard 500 response).
@@ -310,13 +579,61 @@ public final class RestApi {
     }
 
     /**
-     * Seals this API, also sealing all registries used in it.
+     * Seals all registries used in this API and prepares the routes for matching. Routes cannot be added anymore
+     * after sealing. Sealing fails if a route has a typed path parameter for which no from-string parser is
+     * registered.
      */
-    public void seal() {
+    @Override
+    protected void onSeal() {
         jsonEngine.seal();
         fromStringParserRegistry.seal();
         querystringParserRegistry.seal();
         responseFactoryRegistry.seal();
+        allMethodsRouteTrie = new RouteTrie(fromStringParserRegistry);
+        for (Route route : routes) {
+            routeTries.computeIfAbsent(route.method(), method -> new RouteTrie(fromStringParserRegistry)).add(route);
+            allMethodsRouteTrie.add(route);
+        }
+        for (int methods = 1; methods < allowHeaders.length; methods++) {
+            StringBuilder builder = new StringBuilder();
+            for (HttpMethod method : HttpMethod.values()) {
+                if ((methods & (1 << method.ordinal())) != 0) {
+                    builder.append(method.name()).append(", ");
+                    if (method == HttpMethod.GET) {
+                        builder.append("HEAD, ");
+                    }
+                }
+            }
+            allowHeaders[methods] = builder.append("OPTIONS").toString();
+        }
+        for (Route route : routes) {
+            ResponseCacheOptions responseCacheOptions = getRouteOptions(route).responseCache();
+            if (responseCacheOptions != null) {
+                responseCaches.put(route, new ResponseCache(responseCacheOptions));
+            }
+        }
+        if (metrics != null) {
+            metrics.registerRoutes(routes);
+        }
+        if (requestPhaseListeners.size() == 1) {
+            requestPhaseListener = requestPhaseListeners.get(0);
+        } else if (!requestPhaseListeners.isEmpty()) {
+            List<RequestPhaseListener> listeners = List.copyOf(requestPhaseListeners);
+            requestPhaseListener = (requestCycle, route, phase, startNanos, endNanos) -> {
+                for (RequestPhaseListener listener : listeners) {
+                    listener.onPhase(requestCycle, route, phase, startNanos, endNanos);
+                }
+            };
+        }
+        for (Map.Entry<Response, byte[]> entry : preEncodedResponses.entrySet()) {
+            BufferingResponseTransmitter buffer = new BufferingResponseTransmitter(jsonEngine);
+            try {
+                entry.getKey().transmit(buffer);
+            } catch (Exception e) {
+                throw new IllegalStateException("could not pre-encode response: " + entry.getKey(), e);
+            }
+            entry.setValue(Arrays.copyOf(buffer.getBodyBytes(), buffer.getBodyLength()));
+        }
     }
 
     // endregion
@@ -328,20 +645,39 @@ public final class RestApi {
      * cycle, i.e. not bind path arguments.
      * <p>
      * If multiple routes match, then the one that was first added to this API will be returned.
+     * <p>
+     * HEAD requests are matched against the GET routes.
+     * <p>
+     * This method can only be called after sealing this API, since the routes are prepared for matching then.
      *
      * @param requestCycle the request cycle to match
      * @return if a route matched, the match result for that route. Otherwise null.
      */
     public RouteMatchResult match(RequestCycle requestCycle) {
         Objects.requireNonNull(requestCycle, "requestCycle");
+        ensureRunTimePhase();
 
-        for (Route route : routes) {
-            RouteMatchResult result = route.match(requestCycle);
+        String servletMethod = requestCycle.getServletRequest().getMethod();
+        HttpMethod method = "HEAD".equalsIgnoreCase(servletMethod) ? HttpMethod.GET : HttpMethod.parse(servletMethod);
+        if (method == null) {
+            return null;
+        }
+        RouteTrie routeTrie = routeTries.get(method);
+        if (routeTrie == null) {
+            return null;
+        }
+        RequestPath requestPath = requestCycle.getRequestPath();
+        if (routeMatchCache == null) {
+            return routeTrie.match(requestPath);
+        }
+        RouteMatchResult result = routeMatchCache.get(method, requestPath.getText());
+        if (result == null) {
+            result = routeTrie.match(requestPath);
             if (result != null) {
-                return result;
+                routeMatchCache.offer(method, requestPath.getText(), result, getRouteOptions(result.route()).matchCacheable());
             }
         }
-        return null;
+        return result;
     }
 
     /**
@@ -350,29 +686,374 @@ public final class RestApi {
      * will then invoke the handler from the matched route to perform application logic and obtain a response value.
      * This response value gets mapped to a response using an appropriate factory. Finally, the response will be
      * transmitted to the client.
+     * <p>
+     * If the handler returns a {@link CompletionStage}, the request is put into asynchronous mode and this method
+     * returns immediately. The response is then created and transmitted when the stage completes, in the thread that
+     * completes it. If the servlet request does not support asynchronous mode, this method waits for the stage to
+     * complete instead.
      *
      * @param requestCycle the request cycle to handle
      */
     public void handle(RequestCycle requestCycle) {
         Objects.requireNonNull(requestCycle, "requestCycle");
 
+        RequestEvent requestEvent = new RequestEvent();
+        if (requestEvent.isEnabled()) {
+            requestEvent.begin();
+            requestCycle.setRequestEvent(requestEvent);
+        }
+        if (metrics != null) {
+            requestCycle.setStartNanos(System.nanoTime());
+        }
+
+        // run the handler
+        Object responseValue;
+        try {
+            long matchStartNanos = requestPhaseListener == null ? 0 : System.nanoTime();
+            RouteMatchResult matchResult = match(requestCycle);
+            if (matchResult != null) {
+                requestCycle.applyRouteMatchResult(matchResult);
+            }
+            if (requestPhaseListener != null) {
+                requestPhaseListener.onPhase(requestCycle, requestCycle.getMatchedRouteOrNull(), RequestPhase.ROUTE_MATCH,
+                        matchStartNanos, System.nanoTime());
+            }
+            if (metrics != null) {
+                startMetrics(requestCycle, matchResult);
+            }
+            if (matchResult != null) {
+                if (!responseCaches.isEmpty() && respondFromCache(requestCycle)) {
+                    return;
+                }
+                if (bodyBufferPool != null && NonBlockingBodyReader.start(this, requestCycle, bodyBufferPool, asyncTimeout)) {
+                    // the body reader invokes the handler once the body has been read
+                    return;
+                }
+                responseValue = invokeHandler(requestCycle);
+            } else {
+                responseValue = getUnmatchedResponseValue(requestCycle);
+            }
+        } catch (Exception e) {
+            responseValue = e;
+        }
+
+        if (responseValue instanceof CompletionStage<?> stage) {
+            handleAsync(requestCycle, stage);
+        } else {
+            respond(requestCycle, responseValue);
+        }
+    }
+
+    private Object invokeHandler(RequestCycle requestCycle) throws Exception {
+        Route route = requestCycle.getMatchedRoute();
+        RequestPhaseListener listener = requestPhaseListener;
+        if (listener == null) {
+            return route.invokeHandler(requestCycle);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            return route.invokeHandler(requestCycle);
+        } finally {
+            listener.onPhase(requestCycle, route, RequestPhase.HANDLER, startNanos, System.nanoTime());
+        }
+    }
+
+    private void startMetrics(RequestCycle requestCycle, RouteMatchResult matchResult) {
+        RouteMetrics routeMetrics = matchResult == null ? null : metrics.getRouteMetrics(matchResult.route());
+        if (routeMetrics == null) {
+            routeMetrics = metrics.getUnmatchedMetrics();
+        }
+        routeMetrics.requestStarted();
+        requestCycle.setRouteMetrics(routeMetrics);
+    }
+
+    /**
+     * Called exactly once per request when the response has been sent (or, for responses that continue
+     * asynchronously, started), or when the container has reported an error before a response could be sent.
+     * Records the request in the metrics and the flight recorder, then runs the finish listener of the request
+     * cycle.
+     */
+    private void finishRequest(RequestCycle requestCycle) {
+        try {
+            recordFinishedRequest(requestCycle);
+        } finally {
+            Runnable finishListener = requestCycle.takeFinishListener();
+            if (finishListener != null) {
+                finishListener.run();
+            }
+        }
+    }
+
+    private void recordFinishedRequest(RequestCycle requestCycle) {
+        if (metrics != null) {
+            RouteMetrics routeMetrics = requestCycle.takeRouteMetrics();
+            if (routeMetrics != null) {
+                routeMetrics.requestFinished(requestCycle.getResponseStatus(), System.nanoTime() - requestCycle.getStartNanos());
+            }
+        }
+        RequestEvent requestEvent = requestCycle.takeRequestEvent();
+        if (requestEvent != null) {
+            requestEvent.end();
+            if (requestEvent.shouldCommit()) {
+                requestEvent.set(requestCycle.getServletRequest().getMethod(), requestCycle.getMatchedRouteOrNull(),
+                        requestCycle.getResponseStatus(), requestCycle.getResponseBodyBytes());
+                requestEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Continues handling a request after its body has been read asynchronously, completing the async context when
+     * done.
+     */
+    void invokeHandlerAndFinish(RequestCycle requestCycle, AsyncContext asyncContext) {
+        Object responseValue;
+        try {
+            responseValue = invokeHandler(requestCycle);
+        } catch (Exception e) {
+            responseValue = e;
+        }
+        if (responseValue instanceof CompletionStage<?> stage) {
+            handleAsync(requestCycle, stage);
+        } else {
+            respondAndComplete(requestCycle, responseValue, asyncContext);
+        }
+    }
+
+    void respondAndComplete(RequestCycle requestCycle, Object responseValue, AsyncContext asyncContext) {
         try {
+            respond(requestCycle, responseValue);
+        } finally {
+            complete(requestCycle, asyncContext);
+        }
+    }
+
+    private static void complete(RequestCycle requestCycle, AsyncContext asyncContext) {
+        // a response that has started async mode itself completes the async context when done
+        if (!requestCycle.isResponseAsync()) {
+            asyncContext.complete();
+        }
+    }
 
-            // run the handler
+    private void handleAsync(RequestCycle requestCycle, CompletionStage<?> stage) {
+        HttpServletRequest servletRequest = requestCycle.getServletRequest();
+        if (!servletRequest.isAsyncSupported()) {
             Object responseValue;
             try {
-                RouteMatchResult matchResult = match(requestCycle);
-                if (matchResult != null) {
-                    requestCycle.applyRouteMatchResult(matchResult);
-                    responseValue = matchResult.route().invokeHandler(requestCycle);
-                } else {
-                    responseValue = StandardErrorResponse.UNKNOWN_URL;
+                responseValue = stage.toCompletableFuture().join();
+            } catch (CompletionException | CancellationException e) {
+                responseValue = unwrapCompletionException(e);
+            }
+            respond(requestCycle, responseValue);
+            return;
+        }
+
+        // the async context may have been started already, e.g. by a servlet that runs handlers in other threads
+        boolean startedHere = !servletRequest.isAsyncStarted();
+        AsyncContext asyncContext;
+        try {
+            asyncContext = startedHere ? servletRequest.startAsync() : servletRequest.getAsyncContext();
+        } catch (Exception e) {
+            respond(requestCycle, e);
+            return;
+        }
+        requestCycle.deferCompletion();
+
+        // whoever gets here first -- completion, timeout or error -- finishes the request
+        AsyncCompletion completion = new AsyncCompletion(requestCycle, asyncContext);
+        if (startedHere) {
+            asyncContext.setTimeout(asyncTimeout);
+            asyncContext.addListener(new AsyncListener() {
+
+                @Override
+                public void onComplete(AsyncEvent event) {
                 }
-            } catch (Exception e) {
-                responseValue = e;
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    if (!completion.finish(StandardErrorResponse.TIMEOUT)) {
+                        // the container must not dispatch an error while the response is being sent
+                        completion.awaitFinished();
+                    }
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    if (completion.claim()) {
+                        try {
+                            LOGGER.error("error during asynchronous request handling", event.getThrowable());
+                            asyncContext.complete();
+                        } finally {
+                            // no response has been sent, so the request is recorded as a server error
+                            requestCycle.setFailedResponseStatus(500);
+                            finishRequest(requestCycle);
+                            completion.markFinished();
+                        }
+                    } else {
+                        completion.awaitFinished();
+                    }
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+
+            });
+        } else if (asyncTimeout > 0) {
+            // The timeout and listeners of an async context cannot be changed anymore once the dispatch that started it
+            // has returned, so we have to implement the timeout ourselves.
+            completion.setTimer(TimeoutScheduler.schedule(() -> completion.finish(StandardErrorResponse.TIMEOUT), asyncTimeout));
+        }
+        stage.whenComplete((value, failure) -> completion.finish(failure == null ? value : unwrapCompletionException(failure)));
+    }
+
+    /**
+     * Decides which of the competing events -- completion of the handler's result, timeout or error -- finishes an
+     * asynchronous request. Only the first one sends a response. Events from the container that lose the race wait
+     * until the response has been sent, because the container would otherwise consider the request failed when the
+     * listener returns, and complete or error-dispatch it while another thread is still writing the response.
+     */
+    private final class AsyncCompletion {
+
+        private final RequestCycle requestCycle;
+        private final AsyncContext asyncContext;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile ScheduledFuture<?> timer;
+
+        AsyncCompletion(RequestCycle requestCycle, AsyncContext asyncContext) {
+            this.requestCycle = requestCycle;
+            this.asyncContext = asyncContext;
+        }
+
+        void setTimer(ScheduledFuture<?> timer) {
+            this.timer = timer;
+            if (claimed.get()) {
+                // finished before the timer was set
+                timer.cancel(false);
+            }
+        }
+
+        /**
+         * Claims the right to finish the request, cancelling the timer if any.
+         *
+         * @return true if claimed, false if another event has claimed the request already
+         */
+        boolean claim() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> timer = this.timer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            return true;
+        }
+
+        /**
+         * Sends the response for the specified response value and completes the async context, unless another event
+         * has claimed the request already.
+         *
+         * @return true if the response has been sent, false if another event has claimed the request already
+         */
+        boolean finish(Object responseValue) {
+            if (!claim()) {
+                return false;
+            }
+            try {
+                respondAndComplete(requestCycle, responseValue, asyncContext);
+            } finally {
+                markFinished();
+            }
+            return true;
+        }
+
+        void markFinished() {
+            finished.countDown();
+        }
+
+        void awaitFinished() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    private static Throwable unwrapCompletionException(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    /**
+     * Removes all cached responses for the specified route (see {@link RouteOptions#responseCache()}). Does nothing if
+     * the route does not use the response cache.
+     *
+     * @param route the route, which must be the same object that was added to this API
+     */
+    public void invalidateResponseCache(Route route) {
+        Objects.requireNonNull(route, "route");
+
+        ResponseCache responseCache = responseCaches.get(route);
+        if (responseCache != null) {
+            responseCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Removes the cached responses for the specified route and path arguments, regardless of the querystring. Does
+     * nothing if the route does not use the response cache.
+     * <p>
+     * Path arguments are identified by their text, not by their parsed values, so responses for requests that
+     * spell the same value differently (such as "5" and "05" for an integer) are only removed if the text matches.
+     * Use {@link #invalidateResponseCache(Route)} if that is a concern.
+     *
+     * @param route the route, which must be the same object that was added to this API
+     * @param pathArgumentTexts the texts of the path arguments, in the order of the variables in the route's path
+     */
+    public void invalidateResponseCache(Route route, List<String> pathArgumentTexts) {
+        Objects.requireNonNull(route, "route");
+        Objects.requireNonNull(pathArgumentTexts, "pathArgumentTexts");
+
+        ResponseCache responseCache = responseCaches.get(route);
+        if (responseCache != null) {
+            responseCache.invalidate(pathArgumentTexts);
+        }
+    }
+
+    /**
+     * Removes all cached responses for all routes.
+     */
+    public void invalidateAllResponseCaches() {
+        for (ResponseCache responseCache : responseCaches.values()) {
+            responseCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Maps a response value to a response using an appropriate factory and transmits it to the client.
+     */
+    private void respond(RequestCycle requestCycle, Object responseValue) {
+        try {
+
+            // answer conditional requests for versioned data without creating a response
+            String entityTag = null;
+            if (responseValue instanceof Versioned versioned) {
+                entityTag = EntityTags.fromVersion(versioned.version());
+                if (isConditional(requestCycle, entityTag)) {
+                    transmitVersionedNotModified(requestCycle, entityTag);
+                    return;
+                }
+                responseValue = versioned.value();
             }
 
             // run the HTTP response factory
+            RequestPhaseListener listener = requestPhaseListener;
+            long phaseStartNanos = listener == null ? 0 : System.nanoTime();
             Response response;
             try {
                 response = responseFactoryRegistry.createResponse(requestCycle, responseValue);
@@ -393,10 +1074,31 @@ public final class RestApi {
                 LOGGER.error("could not create HTTP response for response value", e);
                 response = StandardErrorResponse.INTERNAL_SERVER_ERROR;
             }
+            if (listener != null) {
+                long now = System.nanoTime();
+                listener.onPhase(requestCycle, requestCycle.getMatchedRouteOrNull(), RequestPhase.CREATE_RESPONSE,
+                        phaseStartNanos, now);
+                phaseStartNanos = now;
+            }
 
             // Transmit the response. Catching exceptions here is not useful because the response body has already been
             // started so we cannot change the status line anymore.
-            response.transmit(requestCycle.getResponseTransmitter());
+            try {
+                if (isBufferedRoute(requestCycle)) {
+                    transmitBuffered(requestCycle, response, entityTag);
+                } else {
+                    if (entityTag != null) {
+                        requestCycle.getResponseTransmitter().addCustomHeader("ETag", entityTag);
+                    }
+                    response.transmit(requestCycle.getResponseTransmitter());
+                }
+                requestCycle.finishResponse();
+            } finally {
+                if (listener != null) {
+                    listener.onPhase(requestCycle, requestCycle.getMatchedRouteOrNull(), RequestPhase.TRANSMIT,
+                            phaseStartNanos, System.nanoTime());
+                }
+            }
 
         } catch (Exception e) {
             // If we end up here, we cannot rely on the JSON serializer anymore (since that may the reason we ended
@@ -408,10 +1110,197 @@ public final class RestApi {
                 responseTransmitter.setStatus(500);
                 responseTransmitter.setContentType("application/text");
                 responseTransmitter.getOutputStream().write("internal server error\n".getBytes(StandardCharsets.UTF_8));
+                requestCycle.finishResponse();
             } catch (Exception e2) {
                 // ignore -- typically I/O errors which are transient and we can't fix them
+                requestCycle.abortResponse();
             }
             LOGGER.error("exception during request handling", e);
+        } finally {
+            finishRequest(requestCycle);
+        }
+    }
+
+    /**
+     * Sends a 304 response for versioned data. It must carry the same ETag and Vary headers as the 200 response that
+     * the client has, but the body that decides about compression is not known here. If the client has the tag of
+     * the variant that would be sent now, that variant is assumed: the body for the same version has the same size,
+     * so it has been compressed then as it would be now.
+     */
+    private void transmitVersionedNotModified(RequestCycle requestCycle, String entityTag) {
+        var responseTransmitter = requestCycle.getResponseTransmitter();
+        responseTransmitter.setStatus(304);
+        if (responseCompressor == null) {
+            responseTransmitter.addCustomHeader("ETag", entityTag);
+            return;
+        }
+        HttpServletRequest servletRequest = requestCycle.getServletRequest();
+        ResponseCompressor.Coding coding = ResponseCompressor.negotiate(servletRequest.getHeader("Accept-Encoding"));
+        if (coding != null) {
+            String codingEntityTag = EntityTags.forCoding(entityTag, coding.getToken());
+            if (EntityTags.matches(servletRequest.getHeader("If-None-Match"), codingEntityTag)) {
+                entityTag = codingEntityTag;
+            }
+        }
+        responseTransmitter.addCustomHeader("ETag", entityTag);
+        responseTransmitter.addCustomHeader("Vary", "Accept-Encoding");
+    }
+
+    private boolean isBufferedRoute(RequestCycle requestCycle) {
+        Route route = requestCycle.getMatchedRouteOrNull();
+        return route != null && (getRouteOptions(route).etag() || responseCaches.containsKey(route))
+                && isConditionalMethod(requestCycle);
+    }
+
+    private static boolean isConditionalMethod(RequestCycle requestCycle) {
+        String method = requestCycle.getServletRequest().getMethod();
+        return method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD");
+    }
+
+    private static boolean isConditional(RequestCycle requestCycle, String entityTag) {
+        return isConditionalMethod(requestCycle)
+                && EntityTags.matches(requestCycle.getServletRequest().getHeader("If-None-Match"), entityTag);
+    }
+
+    /**
+     * Sends a cached response for the matched route if available. Otherwise, stores the cache key in the request
+     * cycle so the response can be cached when it has been created.
+     *
+     * @return true if a cached response has been sent, false if the request must be handled normally
+     */
+    private boolean respondFromCache(RequestCycle requestCycle) {
+        ResponseCache responseCache = responseCaches.get(requestCycle.getMatchedRoute());
+        if (responseCache == null || !isConditionalMethod(requestCycle)) {
+            return false;
+        }
+        ResponseCache.Key key = ResponseCache.key(requestCycle.getPathArguments(), requestCycle.getServletRequest().getQueryString());
+        ResponseCache.Entry entry = responseCache.get(key);
+        if (entry == null) {
+            // the generation must be taken before the handler reads any data
+            requestCycle.setResponseCacheKey(key, responseCache.getGeneration());
+            return false;
+        }
+        try {
+            transmitEntry(requestCycle, entry);
+            requestCycle.finishResponse();
+        } catch (Exception e) {
+            // the response has been created successfully before, so this is typically a transient I/O error
+            requestCycle.abortResponse();
+            LOGGER.error("exception while sending cached response", e);
+        }
+        finishRequest(requestCycle);
+        return true;
+    }
+
+    /**
+     * Transmits a response for a route that uses ETags or the response cache. The response is recorded in memory
+     * first. Successful responses then get an ETag or are stored in the cache, or both.
+     * <p>
+     * If the handler has returned {@link Versioned} data, its version-derived ETag is passed and used instead of
+     * computing one from the body.
+     */
+    private void transmitBuffered(RequestCycle requestCycle, Response response, String versionEntityTag)
+            throws IOException {
+        BufferingResponseTransmitter buffer =
+                new BufferingResponseTransmitter(jsonEngine, requestPhaseListener, requestCycle);
+        response.transmit(buffer);
+        if (buffer.getStatus() != 200) {
+            buffer.replay(requestCycle.getResponseTransmitter());
+            return;
+        }
+        Route route = requestCycle.getMatchedRoute();
+        if (versionEntityTag != null) {
+            buffer.addCustomHeader("ETag", versionEntityTag);
+        } else if (getRouteOptions(route).etag()) {
+            buffer.addCustomHeader("ETag", EntityTags.fromBody(buffer.getBodyBytes(), buffer.getBodyLength()));
+        }
+        ResponseCache responseCache = responseCaches.get(route);
+        ResponseCache.Key key = requestCycle.getResponseCacheKey();
+        ResponseCache.Entry entry;
+        if (responseCache != null && key != null) {
+            entry = responseCache.createEntry(buffer);
+            responseCache.put(key, entry, requestCycle.getResponseCacheGeneration());
+        } else {
+            entry = new ResponseCache.Entry(buffer, 0);
+        }
+        transmitEntry(requestCycle, entry);
+    }
+
+    /**
+     * Transmits a recorded response, or a 304 response if it has an ETag that matches the request. If the response
+     * gets compressed, the compressed body is kept in the entry for further requests.
+     */
+    private void transmitEntry(RequestCycle requestCycle, ResponseCache.Entry entry) throws IOException {
+        var responseTransmitter = requestCycle.getResponseTransmitter();
+        String entityTag = entry.getHeader("ETag");
+        boolean notModified = entityTag != null && isConditional(requestCycle, entityTag);
+        byte[] body = entry.getBody();
+
+        // Pick a coding here to send a pre-compressed body. Otherwise, the response transmitter compresses on the
+        // fly if enabled, so its decisions and these must be the same. A 304 needs the same coding as the 200 it
+        // stands for, because it must carry the same ETag and Vary headers.
+        boolean compressible = responseCompressor != null && entry.getHeader("Content-Encoding") == null
+                && responseCompressor.isCompressible(entry.getContentType());
+        ResponseCompressor.Coding coding = null;
+        if (compressible && body.length > responseCompressor.getOptions().minimumSize()) {
+            coding = ResponseCompressor.negotiate(requestCycle.getServletRequest().getHeader("Accept-Encoding"));
+        }
+
+        responseTransmitter.setStatus(notModified ? 304 : entry.getStatus());
+        if (!notModified && entry.getContentType() != null) {
+            responseTransmitter.setContentType(entry.getContentType());
+        }
+        List<String> headerNamesAndValues = entry.getHeaderNamesAndValues();
+        for (int i = 0; i < headerNamesAndValues.size(); i += 2) {
+            String name = headerNamesAndValues.get(i);
+            String value = headerNamesAndValues.get(i + 1);
+            if (coding != null && name.equalsIgnoreCase("ETag")) {
+                value = EntityTags.forCoding(value, coding.getToken());
+            }
+            responseTransmitter.addCustomHeader(name, value);
+        }
+        if (notModified) {
+            if (compressible) {
+                responseTransmitter.addCustomHeader("Vary", "Accept-Encoding");
+            }
+            return;
+        }
+        if (coding != null) {
+            responseTransmitter.addCustomHeader("Vary", "Accept-Encoding");
+            responseTransmitter.addCustomHeader("Content-Encoding", coding.getToken());
+            if (responseTransmitter.isBodySuppressed()) {
+                // for HEAD, the length is sent only if the body has been compressed already
+                body = entry.getCompressedBodyIfPresent(coding);
+            } else {
+                body = entry.getCompressedBody(responseCompressor, coding);
+            }
+        }
+        if (responseTransmitter.isBodySuppressed()) {
+            if (body != null) {
+                responseTransmitter.setContentLength(body.length);
+            }
+            return;
+        }
+        if (body.length > 0) {
+            responseTransmitter.getOutputStream().write(body);
+        }
+    }
+
+    /**
+     * Determines the response value for a request that did not match any route. If routes for the request path exist
+     * for other methods, this is either the automatic answer to an OPTIONS request or a 405 response. Both list the
+     * methods for which routes exist.
+     */
+    private Object getUnmatchedResponseValue(RequestCycle requestCycle) {
+        int methods = allMethodsRouteTrie.matchMethods(requestCycle.getRequestPath());
+        if (methods == 0) {
+            return StandardErrorResponse.UNKNOWN_URL;
+        }
+        String allowedMethods = allowHeaders[methods];
+        if ("OPTIONS".equalsIgnoreCase(requestCycle.getServletRequest().getMethod())) {
+            return new OptionsResponse(allowedMethods);
+        } else {
+            return new MethodNotAllowedResponse(allowedMethods);
         }
     }
 
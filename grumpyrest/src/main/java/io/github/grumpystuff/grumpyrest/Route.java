@@ -105,7 +105,7 @@ public record Route(HttpMethod method, Path path, ComplexHandler handler) {
             return null;
         }
         ParseFromStringService parseFromStringService = requestCycle.getApi().getFromStringParserRegistry();
-        List<PathArgument> pathArguments = path.match(requestCycle.getPathSegments(), parseFromStringService);
+        List<PathArgument> pathArguments = path.match(requestCycle.getRequestPath(), parseFromStringService);
         if (pathArguments == null) {
             return null;
         }
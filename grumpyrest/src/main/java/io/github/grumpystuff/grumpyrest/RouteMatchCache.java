@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.request.path.LiteralPathSegment;
+import io.github.grumpystuff.grumpyrest.request.path.PathSegment;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache for route match results, keyed by HTTP method and request path. It is direct-mapped: each key can
+ * only be stored at a single slot, and storing it replaces whatever was stored there before. Entries are immutable,
+ * so readers never need a lock -- they either see a complete entry or none.
+ * <p>
+ * Only results for routes whose paths consist of literal segments, or that explicitly allow it through
+ * {@link RouteOptions#matchCacheable()}, are stored.
+ * <p>
+ * NOT PUBLIC API
+ */
+final class RouteMatchCache {
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the number of slots, rounded up to the next power of two
+     */
+    RouteMatchCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the cached match result for the specified method and path, or null if none is cached.
+     */
+    RouteMatchResult get(HttpMethod method, String path) {
+        Entry entry = entries.get(index(method, path));
+        if (entry != null && entry.method == method && entry.path.equals(path)) {
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a match result if its route allows caching.
+     *
+     * @param matchCacheable whether the options of the matched route explicitly allow caching
+     */
+    void offer(HttpMethod method, String path, RouteMatchResult result, boolean matchCacheable) {
+        if (matchCacheable || isCacheable(result.route())) {
+            entries.set(index(method, path), new Entry(method, path, result));
+        }
+    }
+
+    RouteMatchCacheStatistics getStatistics() {
+        return new RouteMatchCacheStatistics(hits.sum(), misses.sum());
+    }
+
+    private int index(HttpMethod method, String path) {
+        int hash = path.hashCode() * 31 + method.ordinal();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean isCacheable(Route route) {
+        for (PathSegment segment : route.path().segments()) {
+            if (!(segment instanceof LiteralPathSegment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Entry(HttpMethod method, String path, RouteMatchResult result) {
+    }
+
+}
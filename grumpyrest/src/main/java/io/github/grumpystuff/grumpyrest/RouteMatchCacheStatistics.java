@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+/**
+ * A snapshot of the usage statistics of the route match cache. Requests for which no route matched are counted
+ * as misses.
+ *
+ * @param hits the number of requests that were matched from the cache
+ * @param misses the number of requests that had to be matched normally
+ */
+public record RouteMatchCacheStatistics(long hits, long misses) {
+
+    /**
+     * Returns the fraction of requests that were matched from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if no requests have been matched yet
+     */
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+}
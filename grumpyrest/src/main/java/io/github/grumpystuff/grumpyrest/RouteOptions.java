@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import java.util.List;
+
+/**
+ * Controls optional features of a {@link Route}. Options are specified when adding the route, see
+ * {@link RestApi#addRoute(Route, RouteOptions)}.
+ * <p>
+ * Instances are immutable. Start from {@link #DEFAULT} and use the with-methods to change individual options. This is
+ * not a record, so options can be added without breaking code that uses this class.
+ */
+public final class RouteOptions {
+
+    /**
+     * The options used for routes that do not specify any options.
+     */
+    public static final RouteOptions DEFAULT = new RouteOptions(false, false, null);
+
+    private final boolean matchCacheable;
+    private final boolean etag;
+    private final ResponseCacheOptions responseCache;
+
+    private RouteOptions(boolean matchCacheable, boolean etag, ResponseCacheOptions responseCache) {
+        this.matchCacheable = matchCacheable;
+        this.etag = etag;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Whether the result of matching this route may be kept in the route match cache (see
+     * {@link RestApi#enableRouteMatchCache(int)}) even though its path contains variables. Routes whose paths only
+     * consist of literal segments are always cacheable. Enabling this for a route with variables only makes sense if a
+     * small number of distinct argument values make up most of the requests for that route.
+     *
+     * @return whether match results may be cached
+     */
+    public boolean matchCacheable() {
+        return matchCacheable;
+    }
+
+    /**
+     * Whether responses for this route get an ETag header that is computed from the response body. GET and HEAD
+     * requests whose If-None-Match header matches that ETag get a 304 (Not Modified) response without a body. This
+     * requires the whole response to be buffered and hashed, so it is only useful for responses that clients request
+     * repeatedly while the data does not change. Handlers that can cheaply tell the version of their data should
+     * return a {@link io.github.grumpystuff.grumpyrest.response.Versioned} value instead, which also works without
+     * this option and avoids producing the body at all for a 304.
+     *
+     * @return whether responses get a computed ETag
+     */
+    public boolean etag() {
+        return etag;
+    }
+
+    /**
+     * If not null, successful responses to GET and HEAD requests for this route are kept in a server-side cache,
+     * keyed by the path arguments and the querystring, and sent again for requests with the same path arguments and
+     * querystring without invoking the handler. Handlers that modify the data must invalidate the cache through
+     * {@link RestApi#invalidateResponseCache(Route)} or {@link RestApi#invalidateResponseCache(Route, List)}. Other
+     * request properties such as headers are not part of the key, so this must not be used for responses that depend
+     * on them.
+     *
+     * @return the response cache options, or null if responses are not cached
+     */
+    public ResponseCacheOptions responseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #matchCacheable()}.
+     *
+     * @param matchCacheable the new value
+     * @return the new options
+     */
+    public RouteOptions withMatchCacheable(boolean matchCacheable) {
+        return new RouteOptions(matchCacheable, etag, responseCache);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #etag()}.
+     *
+     * @param etag the new value
+     * @return the new options
+     */
+    public RouteOptions withEtag(boolean etag) {
+        return new RouteOptions(matchCacheable, etag, responseCache);
+    }
+
+    /**
+     * Returns a copy of these options with a different value for {@link #responseCache()}.
+     *
+     * @param responseCache the new value, or null to disable the response cache
+     * @return the new options
+     */
+    public RouteOptions withResponseCache(ResponseCacheOptions responseCache) {
+        return new RouteOptions(matchCacheable, etag, responseCache);
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.registry.NotRegisteredException;
+import io.github.grumpystuff.grumpyrest.request.PathArgument;
+import io.github.grumpystuff.grumpyrest.request.path.LiteralPathSegment;
+import io.github.grumpystuff.grumpyrest.request.path.PathSegment;
+import io.github.grumpystuff.grumpyrest.request.path.RequestPath;
+import io.github.grumpystuff.grumpyrest.request.path.VariablePathSegment;
+import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParser;
+import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserException;
+import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
+import io.github.grumpystuff.grumpyrest.util.NullReturnCheckingCalls;
+import io.github.grumpystuff.grumpyrest.util.StringRegionMap;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A segment trie of the routes for a single HTTP method, used to find the matching route for a request path without
+ * checking every route one-by-one.
+ * <p>
+ * Each node holds the children for literal segments in a hash map, a single child for all variable segments, and
+ * a list of children for custom {@link PathSegment} subclasses that can only be checked by calling
+ * {@link PathSegment#matches(String)}. The literal children are looked up using the segment offsets of the
+ * {@link RequestPath}, so no string gets created for literal segments. Typed variable segments get a separate child
+ * per type, with the from-string parser for that type resolved when the route is added. While matching, the request
+ * segment is parsed once, the child only matches if parsing succeeds, and the parsed value is passed on to the
+ * {@link PathArgument} of the winning route. Routes whose paths have the same literal segments and variables at the same
+ * positions share trie nodes, independent of the variable names.
+ * <p>
+ * Because a request path can match more than one route, matching has to respect the order in which routes have
+ * been added: the route added first wins. To achieve that, each node knows the smallest index of all routes in its
+ * subtree, and matching skips any subtree that cannot contain a better route than the best one found so far.
+ * <p>
+ * A trie can also hold the routes of all HTTP methods. Each node knows the methods of the routes that end there, so
+ * {@link #matchMethods(RequestPath)} can determine the methods of all routes that match a request path in a single
+ * walk, which is needed for the Allow header of 405 and OPTIONS responses.
+ * <p>
+ * NOT PUBLIC API
+ */
+final class RouteTrie {
+
+    private final FromStringParserRegistry fromStringParserRegistry;
+    private final List<Route> routes = new ArrayList<>();
+    private final Node root = new Node();
+
+    /**
+     * Constructor.
+     *
+     * @param fromStringParserRegistry the (sealed) registry used to resolve parsers for typed path parameters
+     */
+    RouteTrie(FromStringParserRegistry fromStringParserRegistry) {
+        this.fromStringParserRegistry = Objects.requireNonNull(fromStringParserRegistry, "fromStringParserRegistry");
+    }
+
+    /**
+     * Adds a route to this trie. Routes must be added in the order of their precedence.
+     *
+     * @param route the route to add
+     * @throws IllegalStateException if the route has a typed path parameter for which no from-string parser is known
+     */
+    void add(Route route) {
+        Objects.requireNonNull(route, "route");
+
+        int index = routes.size();
+        routes.add(route);
+        Node node = root;
+        node.updateMinIndex(index);
+        for (PathSegment segment : route.path().segments()) {
+            node = getOrCreateChild(node, segment, route);
+            node.updateMinIndex(index);
+        }
+        if (node.terminalIndex == Integer.MAX_VALUE) {
+            node.terminalIndex = index;
+        }
+        node.methods |= 1 << route.method().ordinal();
+    }
+
+    private Node getOrCreateChild(Node node, PathSegment segment, Route route) {
+        if (segment instanceof LiteralPathSegment literal) {
+            if (node.literalChildren == null) {
+                node.literalChildren = new StringRegionMap<>();
+            }
+            Node child = node.literalChildren.get(literal.getText());
+            if (child == null) {
+                child = new Node();
+                node.literalChildren.put(literal.getText(), child);
+            }
+            return child;
+        } else if (segment instanceof VariablePathSegment variable && variable.getType() == null) {
+            if (node.variableChild == null) {
+                node.variableChild = new Node();
+            }
+            return node.variableChild;
+        } else if (segment instanceof VariablePathSegment variable) {
+            Type type = variable.getType();
+            if (node.typedChildren == null) {
+                node.typedChildren = new ArrayList<>();
+            }
+            for (TypedChild typedChild : node.typedChildren) {
+                if (typedChild.type.equals(type)) {
+                    return typedChild.node;
+                }
+            }
+            FromStringParser parser;
+            try {
+                parser = fromStringParserRegistry.get(type);
+            } catch (NotRegisteredException e) {
+                throw new IllegalStateException("no from-string parser for path parameter " + variable +
+                        " in route " + route.method() + " " + route.path(), e);
+            }
+            TypedChild typedChild = new TypedChild(type, parser, new Node());
+            node.typedChildren.add(typedChild);
+            return typedChild.node;
+        } else {
+            // custom segments have no equality, so each of them gets its own child
+            if (node.customSegments == null) {
+                node.customSegments = new ArrayList<>();
+                node.customChildren = new ArrayList<>();
+            }
+            Node child = new Node();
+            node.customSegments.add(segment);
+            node.customChildren.add(child);
+            return child;
+        }
+    }
+
+    /**
+     * Finds the first-added route whose path matches the specified request path, and binds its path arguments.
+     *
+     * @param requestPath the path from the request
+     * @return the match result, or null if no route matches
+     */
+    RouteMatchResult match(RequestPath requestPath) {
+        Objects.requireNonNull(requestPath, "requestPath");
+
+        Search search = new Search(requestPath);
+        int index = search.search(root, 0, Integer.MAX_VALUE);
+        if (index == Integer.MAX_VALUE) {
+            return null;
+        }
+        Route route = routes.get(index);
+        List<PathSegment> segments = route.path().segments();
+        List<PathArgument> pathArguments = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i) instanceof VariablePathSegment variable) {
+                String text = requestPath.getSegment(i);
+                if (variable.getType() == null) {
+                    pathArguments.add(new PathArgument(variable.getVariableName(), text, fromStringParserRegistry));
+                } else {
+                    Object value = search.winnerValues[i];
+                    pathArguments.add(new PathArgument(variable.getVariableName(), text, fromStringParserRegistry, variable.getType(), value));
+                }
+            }
+        }
+        return new RouteMatchResult(route, pathArguments);
+    }
+
+    /**
+     * Finds the HTTP methods of all routes whose path matches the specified request path. Unlike
+     * {@link #match(RequestPath)}, this does not stop at the first-added route.
+     *
+     * @param requestPath the path from the request
+     * @return the methods as a bit mask of {@link io.github.grumpystuff.grumpyrest.request.HttpMethod} ordinals, or 0
+     * if no route matches
+     */
+    int matchMethods(RequestPath requestPath) {
+        Objects.requireNonNull(requestPath, "requestPath");
+
+        return collectMethods(root, requestPath, 0);
+    }
+
+    private static int collectMethods(Node node, RequestPath requestPath, int depth) {
+        if (depth == requestPath.getSegmentCount()) {
+            return node.methods;
+        }
+        int methods = 0;
+        if (node.literalChildren != null) {
+            Node child = node.literalChildren.get(requestPath.getText(), requestPath.getSegmentStart(depth), requestPath.getSegmentEnd(depth));
+            if (child != null) {
+                methods |= collectMethods(child, requestPath, depth + 1);
+            }
+        }
+        if (node.variableChild != null) {
+            methods |= collectMethods(node.variableChild, requestPath, depth + 1);
+        }
+        if (node.typedChildren != null) {
+            String requestSegment = requestPath.getSegment(depth);
+            for (TypedChild typedChild : node.typedChildren) {
+                try {
+                    NullReturnCheckingCalls.parseFromString(typedChild.parser, requestSegment, typedChild.type);
+                } catch (FromStringParserException e) {
+                    continue;
+                }
+                methods |= collectMethods(typedChild.node, requestPath, depth + 1);
+            }
+        }
+        if (node.customSegments != null) {
+            String requestSegment = requestPath.getSegment(depth);
+            for (int i = 0; i < node.customSegments.size(); i++) {
+                if (node.customSegments.get(i).matches(requestSegment)) {
+                    methods |= collectMethods(node.customChildren.get(i), requestPath, depth + 1);
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * The state of a single search. Values parsed for typed path parameters are kept per segment index while
+     * searching; whenever a better route is found, they are copied so they can be used for that route.
+     */
+    private static final class Search {
+
+        private final RequestPath requestPath;
+        private Object[] values;
+        private Object[] winnerValues;
+
+        Search(RequestPath requestPath) {
+            this.requestPath = requestPath;
+        }
+
+        /**
+         * Returns the smallest index of a route that is reachable from the specified node and matches the remaining
+         * request segments, or the bound if no such route has an index smaller than the bound.
+         */
+        int search(Node node, int depth, int bound) {
+            if (node.minIndex >= bound) {
+                return bound;
+            }
+            if (depth == requestPath.getSegmentCount()) {
+                if (node.terminalIndex < bound) {
+                    if (values != null) {
+                        winnerValues = values.clone();
+                    }
+                    return node.terminalIndex;
+                }
+                return bound;
+            }
+            if (node.literalChildren != null) {
+                String text = requestPath.getText();
+                Node child = node.literalChildren.get(text, requestPath.getSegmentStart(depth), requestPath.getSegmentEnd(depth));
+                if (child != null) {
+                    bound = search(child, depth + 1, bound);
+                }
+            }
+            if (node.variableChild != null) {
+                bound = search(node.variableChild, depth + 1, bound);
+            }
+            if (node.typedChildren != null) {
+                String requestSegment = requestPath.getSegment(depth);
+                for (TypedChild typedChild : node.typedChildren) {
+                    if (typedChild.node.minIndex >= bound) {
+                        continue;
+                    }
+                    Object value;
+                    try {
+                        value = NullReturnCheckingCalls.parseFromString(typedChild.parser, requestSegment, typedChild.type);
+                    } catch (FromStringParserException e) {
+                        continue;
+                    }
+                    if (values == null) {
+                        values = new Object[requestPath.getSegmentCount()];
+                    }
+                    values[depth] = value;
+                    bound = search(typedChild.node, depth + 1, bound);
+                }
+            }
+            if (node.customSegments != null) {
+                String requestSegment = requestPath.getSegment(depth);
+                for (int i = 0; i < node.customSegments.size(); i++) {
+                    if (node.customSegments.get(i).matches(requestSegment)) {
+                        bound = search(node.customChildren.get(i), depth + 1, bound);
+                    }
+                }
+            }
+            return bound;
+        }
+
+    }
+
+    private static final class Node {
+
+        private StringRegionMap<Node> literalChildren;
+        private Node variableChild;
+        private List<TypedChild> typedChildren;
+        private List<PathSegment> customSegments;
+        private List<Node> customChildren;
+        private int minIndex = Integer.MAX_VALUE;
+        private int terminalIndex = Integer.MAX_VALUE;
+        private int methods;
+
+        void updateMinIndex(int index) {
+            minIndex = Math.min(minIndex, index);
+        }
+
+    }
+
+    private record TypedChild(Type type, FromStringParser parser, Node node) {
+    }
+
+}
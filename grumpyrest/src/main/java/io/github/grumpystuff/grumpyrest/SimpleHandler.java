@@ -10,6 +10,8 @@ import io.github.grumpystuff.grumpyjson.JsonRegistries;
 import io.github.grumpystuff.grumpyrest.request.Request;
 import io.github.grumpystuff.grumpyrest.response.*;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * Interface for a handler in the most common, "simple", case. This handler takes a {@link Request} and returns a
  * response value.
@@ -37,6 +39,11 @@ public interface SimpleHandler {
      * have an appropriate factory and will therefore result in an opaque 500 response. This is exactly what is expected
      * for internal errors, to avoid leaking internal data to the client.
      * <p>
+     * A handler that has to wait for something, such as a downstream service, can return a {@link CompletionStage}
+     * instead. The container thread is then released, and the value the stage completes with (or the exception it
+     * completes with) is treated like a returned value (or thrown exception) once it is available. See
+     * {@link RestApi#setAsyncTimeout(long)} for what happens if it takes too long.
+     * <p>
      * There is one special case to the above rule: Handler code and the methods it calls can throw a
      * {@link FinishRequestException} to stop the current request and send a response immediately. This is typically
      * used for error handling, such as sending a 404 response somewhere in the method that could not find a record
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder event for creating a {@link io.github.grumpystuff.grumpyrest.response.FinishRequestException},
+ * which short-circuits handling a request. The stack trace of the event shows where the request was finished, even
+ * if the exception itself does not capture a stack trace. Disabled by default, see {@link RequestEvent}.
+ */
+@Name("grumpyrest.FinishRequest")
+@Label("Finish Request")
+@Category("grumpyrest")
+@Description("A FinishRequestException has been created to short-circuit handling a request")
+@Enabled(false)
+public final class FinishRequestEvent extends Event {
+
+    @Label("Response Value Type")
+    @Description("The class of the response value to respond with")
+    private Class<?> responseValueType;
+
+    /**
+     * NOT PUBLIC API
+     */
+    public FinishRequestEvent() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param responseValue ...
+     */
+    public void set(Object responseValue) {
+        this.responseValueType = responseValue == null ? null : responseValue.getClass();
+    }
+
+}
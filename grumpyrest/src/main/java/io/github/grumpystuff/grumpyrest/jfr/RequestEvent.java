@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.jfr;
+
+import io.github.grumpystuff.grumpyrest.Route;
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder event for handling a request, from the start of {@link io.github.grumpystuff.grumpyrest.RestApi#handle}
+ * until the response has been sent. Together with the JDK's own events, this allows to find out which endpoints
+ * were running during a GC pause or other stall.
+ * <p>
+ * Like all events of grumpyrest and grumpyjson, this event is disabled by default, so it costs nearly nothing unless
+ * a recording enables it. The settings file io/github/grumpystuff/grumpyrest/jfr/grumpyrest.jfc, contained in
+ * the grumpyrest JAR, enables all of them. Extract it and pass it to the recording together with the JDK's default
+ * settings, or copy its entries into your own settings file.
+ */
+@Name("grumpyrest.Request")
+@Label("REST Request")
+@Category("grumpyrest")
+@Description("Handling a request, until the response has been sent")
+@Enabled(false)
+@StackTrace(false)
+public final class RequestEvent extends Event {
+
+    @Label("Method")
+    private String method;
+
+    @Label("Route")
+    @Description("The path pattern of the matched route, or null if no route matched")
+    private String route;
+
+    @Label("Status")
+    private int status;
+
+    @Label("Bytes")
+    @Description("The number of response body bytes, before compression")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * NOT PUBLIC API
+     */
+    public RequestEvent() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param method ...
+     * @param route ...
+     * @param status ...
+     * @param bytes ...
+     */
+    public void set(String method, Route route, int status, long bytes) {
+        this.method = method;
+        this.route = route == null ? null : route.path().toString();
+        this.status = status;
+        this.bytes = bytes;
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.metrics;
+
+import io.github.grumpystuff.grumpyrest.Route;
+import io.github.grumpystuff.grumpyrest.response.Response;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Holds the metrics of a REST API, with one {@link RouteMetrics} per route plus one for requests that did not match
+ * any route. Obtained from {@link io.github.grumpystuff.grumpyrest.RestApi#enableMetrics()}.
+ * <p>
+ * The metrics can be read programmatically, or exported in the Prometheus text format using
+ * {@link #writePrometheus(Writer)} or {@link #createPrometheusResponse()}. The latter is meant to be returned by an
+ * application route such as GET /metrics. Latencies are exported as a histogram with fixed bucket boundaries
+ * ({@link #PROMETHEUS_BUCKETS}), which are derived from the finer buckets of the {@link LatencyHistogram}.
+ * <p>
+ * This class does not depend on any metrics library, so it works without a metrics service. Applications that use
+ * such a library can read the metrics from here and export them through it.
+ */
+public final class ApiMetrics {
+
+    /**
+     * The upper bounds, in seconds, of the latency histogram buckets in the Prometheus format.
+     */
+    public static final List<Double> PROMETHEUS_BUCKETS = List.of(
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+    );
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final RouteMetrics unmatchedMetrics = new RouteMetrics("(unmatched)");
+    private volatile Map<Route, RouteMetrics> routeMetrics = Map.of();
+    private volatile List<RouteMetrics> allMetrics = List.of(unmatchedMetrics);
+
+    /**
+     * NOT PUBLIC API
+     */
+    public ApiMetrics() {
+    }
+
+    /**
+     * NOT PUBLIC API -- called by the REST API when it gets sealed.
+     *
+     * @param routes the routes of the REST API
+     */
+    public void registerRoutes(List<Route> routes) {
+        Objects.requireNonNull(routes, "routes");
+
+        Map<Route, RouteMetrics> routeMetrics = new IdentityHashMap<>();
+        List<RouteMetrics> allMetrics = new ArrayList<>();
+        for (Route route : routes) {
+            RouteMetrics metrics = new RouteMetrics(route.method() + " " + route.path());
+            routeMetrics.put(route, metrics);
+            allMetrics.add(metrics);
+        }
+        allMetrics.add(unmatchedMetrics);
+        this.routeMetrics = routeMetrics;
+        this.allMetrics = List.copyOf(allMetrics);
+    }
+
+    /**
+     * Returns the metrics for the specified route.
+     *
+     * @param route the route, which must be the same object that was added to the REST API
+     * @return the metrics, or null if the route is not known
+     */
+    public RouteMetrics getRouteMetrics(Route route) {
+        Objects.requireNonNull(route, "route");
+
+        return routeMetrics.get(route);
+    }
+
+    /**
+     * Returns the metrics for requests that did not match any route.
+     *
+     * @return the metrics
+     */
+    public RouteMetrics getUnmatchedMetrics() {
+        return unmatchedMetrics;
+    }
+
+    /**
+     * Returns the metrics for all routes, in the order the routes have been added, followed by the metrics for
+     * requests that did not match any route.
+     *
+     * @return the metrics
+     */
+    public List<RouteMetrics> getAllRouteMetrics() {
+        return allMetrics;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format (version 0.0.4).
+     *
+     * @param writer the writer to write to
+     * @throws IOException on I/O errors
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        Objects.requireNonNull(writer, "writer");
+
+        List<RouteMetrics> allMetrics = this.allMetrics;
+        writer.write("# HELP grumpyrest_requests_total Number of finished requests by route and status class.\n");
+        writer.write("# TYPE grumpyrest_requests_total counter\n");
+        for (RouteMetrics metrics : allMetrics) {
+            String route = escapeLabelValue(metrics.getLabel());
+            for (int statusClass = 0; statusClass <= 5; statusClass++) {
+                long count = metrics.getRequestCount(statusClass);
+                if (count != 0) {
+                    String status = statusClass == 0 ? "other" : statusClass + "xx";
+                    writer.write("grumpyrest_requests_total{route=\"" + route + "\",status=\"" + status + "\"} " + count + "\n");
+                }
+            }
+        }
+
+        writer.write("# HELP grumpyrest_requests_in_flight Number of requests currently being handled by route.\n");
+        writer.write("# TYPE grumpyrest_requests_in_flight gauge\n");
+        for (RouteMetrics metrics : allMetrics) {
+            writer.write("grumpyrest_requests_in_flight{route=\"" + escapeLabelValue(metrics.getLabel()) + "\"} "
+                    + metrics.getInFlight() + "\n");
+        }
+
+        writer.write("# HELP grumpyrest_request_duration_seconds Time from the start of handling until the response has been sent.\n");
+        writer.write("# TYPE grumpyrest_request_duration_seconds histogram\n");
+        for (RouteMetrics metrics : allMetrics) {
+            String route = escapeLabelValue(metrics.getLabel());
+            LatencyHistogram latency = metrics.getLatency();
+            // read the count first, so the buckets are never lower than the count due to concurrent recording
+            long count = latency.getCount();
+            long sumNanos = latency.getSumNanos();
+            for (double bucket : PROMETHEUS_BUCKETS) {
+                long bucketCount = Math.min(count, latency.getCountAtOrBelow((long) (bucket * 1e9)));
+                writer.write("grumpyrest_request_duration_seconds_bucket{route=\"" + route + "\",le=\"" + bucket + "\"} "
+                        + bucketCount + "\n");
+            }
+            writer.write("grumpyrest_request_duration_seconds_bucket{route=\"" + route + "\",le=\"+Inf\"} " + count + "\n");
+            writer.write("grumpyrest_request_duration_seconds_sum{route=\"" + route + "\"} " + (sumNanos / 1e9) + "\n");
+            writer.write("grumpyrest_request_duration_seconds_count{route=\"" + route + "\"} " + count + "\n");
+        }
+    }
+
+    private static String escapeLabelValue(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Creates a response that sends all metrics in the Prometheus text format. The metrics are read when the
+     * response gets transmitted, so the same response can be returned for every request.
+     *
+     * @return the response
+     */
+    public Response createPrometheusResponse() {
+        return responseTransmitter -> {
+            responseTransmitter.setStatus(200);
+            responseTransmitter.setContentType(PROMETHEUS_CONTENT_TYPE);
+            responseTransmitter.addCustomHeader("Cache-Control", "no-store");
+            Writer writer = new OutputStreamWriter(responseTransmitter.getOutputStream(), StandardCharsets.UTF_8);
+            writePrometheus(writer);
+            writer.flush();
+        };
+    }
+
+}
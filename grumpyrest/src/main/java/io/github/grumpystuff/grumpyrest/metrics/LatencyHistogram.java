@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with log-linear buckets, in the style of HdrHistogram: Each power of two is
+ * divided into {@link #SUB_BUCKETS} buckets of equal width, so the relative error of a bucket is at most
+ * 1 / {@link #SUB_BUCKETS} over the whole range, and the number of buckets stays small. Durations from 0 to about
+ * 9 hours are tracked; longer durations are counted in the last bucket.
+ * <p>
+ * Recording is lock-free and does not allocate, so it can be done on every request. Reading is not atomic with
+ * respect to concurrent recording; a reader may see a duration in the count but not yet in the buckets, or vice
+ * versa.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 2^45 ns is about 9.8 hours
+    private static final int MAX_EXPONENT = 45;
+
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(getBucketIndex(nanos));
+        totalCount.increment();
+        totalNanos.add(nanos);
+    }
+
+    static int getBucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the smallest duration that falls into the bucket after the specified one, i.e. the exclusive upper
+     * bound of the bucket.
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << shift;
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the sum of all recorded durations.
+     *
+     * @return the sum in nanoseconds
+     */
+    public long getSumNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the number of recorded durations up to the specified limit. Durations are only known up to the
+     * precision of their bucket, so durations in the bucket that contains the limit are not counted, except if the
+     * limit is the last duration in that bucket. This undercounts by at most the durations that are
+     * 1 / {@link #SUB_BUCKETS} below the limit.
+     *
+     * @param nanos the limit in nanoseconds
+     * @return the number of durations
+     */
+    public long getCountAtOrBelow(long nanos) {
+        long result = 0;
+        for (int i = 0; i < BUCKET_COUNT && getBucketUpperBound(i) <= nanos + 1; i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an upper bound for the duration at the specified quantile, e.g. 0.99 for the 99th percentile. The
+     * result is the upper bound of the bucket that contains that duration.
+     *
+     * @param quantile the quantile, from 0 to 1
+     * @return the duration in nanoseconds, or 0 if no durations have been recorded
+     */
+    public long getValueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return getBucketUpperBound(i) - 1;
+            }
+        }
+        return getBucketUpperBound(BUCKET_COUNT - 1) - 1;
+    }
+
+}
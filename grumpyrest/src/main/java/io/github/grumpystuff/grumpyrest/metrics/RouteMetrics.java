@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.metrics;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics for a single route, or for all requests that did not match any route: the number of requests by status
+ * class, the number of requests in progress, and the latency from the start of handling until the response has been
+ * sent. Responses that continue asynchronously after the handler, such as server-sent events, count as finished
+ * once their headers have been sent.
+ */
+public final class RouteMetrics {
+
+    private final String label;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inFlight = new LongAdder();
+
+    // index 1-5 for status classes 1xx-5xx, 0 for anything else
+    private final LongAdder[] requestsByStatusClass = new LongAdder[6];
+
+    /**
+     * Constructor.
+     *
+     * @param label the label that identifies the route in exported metrics, such as "GET /products/:id"
+     */
+    public RouteMetrics(String label) {
+        this.label = Objects.requireNonNull(label, "label");
+        for (int i = 0; i < requestsByStatusClass.length; i++) {
+            requestsByStatusClass[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Getter method for the label
+     *
+     * @return the label that identifies the route in exported metrics
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Getter method for the latency histogram
+     *
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the number of requests that are currently being handled.
+     *
+     * @return the number of requests
+     */
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * Returns the number of finished requests with a status in the specified class.
+     *
+     * @param statusClass the status class, from 1 (for 1xx) to 5 (for 5xx), or 0 for statuses outside these classes
+     * @return the number of requests
+     */
+    public long getRequestCount(int statusClass) {
+        if (statusClass < 0 || statusClass >= requestsByStatusClass.length) {
+            throw new IllegalArgumentException("invalid status class: " + statusClass);
+        }
+        return requestsByStatusClass[statusClass].sum();
+    }
+
+    /**
+     * Records that handling a request has started. Normally called by the REST API.
+     */
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    /**
+     * Records that handling a request has finished. Normally called by the REST API.
+     *
+     * @param status the HTTP status of the response
+     * @param durationNanos the time since the start of handling in nanoseconds
+     */
+    public void requestFinished(int status, long durationNanos) {
+        inFlight.decrement();
+        int statusClass = status / 100;
+        requestsByStatusClass[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+        latency.record(durationNanos);
+    }
+
+}
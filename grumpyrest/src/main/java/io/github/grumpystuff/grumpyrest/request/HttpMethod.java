@@ -3,8 +3,9 @@ package io.github.grumpystuff.grumpyrest.request;
 import java.util.Objects;
 
 /**
- * HTTP methods as an enum. This type only covers the methods that we use in API routes. OPTIONS (used for CORS) is not
- * listed here since the routes don't deal with it directly.
+ * HTTP methods as an enum. This type only covers the methods that we use in API routes. HEAD and OPTIONS are not
+ * listed here since the routes don't deal with them directly: HEAD requests are handled by GET routes without sending
+ * a response body, and OPTIONS requests are answered automatically from the routes known for the requested path.
  */
 public enum HttpMethod {
 
@@ -26,7 +27,31 @@ public enum HttpMethod {
     /**
      * HTTP DELETE method
      */
-    DELETE;
+    DELETE,
+
+    /**
+     * HTTP PATCH method
+     */
+    PATCH;
+
+    private static final HttpMethod[] VALUES = values();
+
+    /**
+     * Finds the enum constant for an HTTP method name from a request, ignoring case.
+     *
+     * @param method the method name
+     * @return the enum constant, or null if this enum does not contain the specified method
+     */
+    public static HttpMethod parse(String method) {
+        Objects.requireNonNull(method, "method");
+
+        for (HttpMethod value : VALUES) {
+            if (value.name().equalsIgnoreCase(method)) {
+                return value;
+            }
+        }
+        return null;
+    }
 
     /**
      * Checks whether this method matches the specified other method.
@@ -37,6 +62,6 @@ public enum HttpMethod {
     public final boolean matches(String method) {
         Objects.requireNonNull(method, "method");
 
-        return name().equals(method.toUpperCase());
+        return name().equalsIgnoreCase(method);
     }
 }
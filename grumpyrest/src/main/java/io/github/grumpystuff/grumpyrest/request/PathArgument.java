@@ -23,6 +23,8 @@ public final class PathArgument {
     private final String name;
     private final String text;
     private final ParseFromStringService parseFromStringService;
+    private final Type parsedType;
+    private final Object parsedValue;
 
     /**
      * NOT PUBLIC API
@@ -39,6 +41,31 @@ public final class PathArgument {
         this.name = name;
         this.text = text;
         this.parseFromStringService = parseFromStringService;
+        this.parsedType = null;
+        this.parsedValue = null;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param name                   ...
+     * @param text                   ...
+     * @param parseFromStringService ...
+     * @param parsedType             the type of a typed path parameter
+     * @param parsedValue            the value parsed from the text as that type while matching
+     */
+    public PathArgument(String name, String text, ParseFromStringService parseFromStringService, Type parsedType, Object parsedValue) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(text, "text");
+        Objects.requireNonNull(parseFromStringService, "parseFromStringService");
+        Objects.requireNonNull(parsedType, "parsedType");
+        Objects.requireNonNull(parsedValue, "parsedValue");
+
+        this.name = name;
+        this.text = text;
+        this.parseFromStringService = parseFromStringService;
+        this.parsedType = parsedType;
+        this.parsedValue = parsedValue;
     }
 
     /**
@@ -89,7 +116,8 @@ public final class PathArgument {
     }
 
     /**
-     * Converts the path argument to the specified type.
+     * Converts the path argument to the specified type. If the path parameter was declared with the same type, this
+     * returns the value that was parsed while matching the route, without parsing again.
      *
      * @param type the type to convert to
      * @return the converted value
@@ -99,6 +127,9 @@ public final class PathArgument {
     public Object getValue(Type type) throws PathArgumentParseException {
         Objects.requireNonNull(type, "type");
 
+        if (type.equals(parsedType)) {
+            return parsedValue;
+        }
         try {
             return parseFromStringService.parseFromString(text, type);
         } catch (FromStringParserException e) {
@@ -11,6 +11,9 @@ import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
  * other string) and sends a standard response for a 404 error. This is needed because in general, parsing
  * a string from an arbitrary source might correspond to a 400 error or an internal (500) error, and might even
  * reveal sensitive information to the client, so no response factory will handle it by default.
+ * <p>
+ * This exception does not capture a stack trace because it only reports a malformed URL sent by the client. The
+ * cause still has its own stack trace.
  */
 public final class PathArgumentParseException extends Exception implements SelfResponseFactory {
 
@@ -32,7 +35,7 @@ public final class PathArgumentParseException extends Exception implements SelfR
      * @param cause the exception that caused the parsing to fail
      */
     public PathArgumentParseException(String name, String value, FromStringParserException cause) {
-        super(buildMessage(name), cause);
+        super(buildMessage(name), cause, false, false);
         this.name = name;
         this.value = value;
     }
@@ -11,6 +11,7 @@ import io.github.grumpystuff.grumpyrest.SimpleHandler;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
 
 import java.lang.reflect.Type;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -148,4 +149,60 @@ public interface Request {
      */
     Object parseBody(Type type);
 
+    /**
+     * Parses a newline-delimited JSON (NDJSON / JSON Lines) request body with content type application/x-ndjson,
+     * where each non-blank line contains a separate JSON value. Unlike {@link #parseBody(Class)}, the body is not
+     * parsed at once: Each call to {@link Iterator#next()} reads and deserializes the next line, so the body can be
+     * arbitrarily large. This is meant for bulk imports.
+     * <p>
+     * If a line cannot be deserialized, {@link Iterator#next()} finishes the request with an error response whose
+     * field path starts with the index of that element, like for a JSON array. Elements before that one have been
+     * returned already, so handlers that apply the elements one by one should be prepared for partial imports.
+     *
+     * @param clazz the class to parse each line as
+     * @return an iterator for the parsed lines
+     * @param <T> the static type of the class to parse as
+     */
+    default <T> Iterator<T> parseBodyLines(Class<T> clazz) {
+        Objects.requireNonNull(clazz, "clazz");
+
+        Iterator<?> lines = parseBodyLines((Type) clazz);
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return clazz.cast(lines.next());
+            }
+
+        };
+    }
+
+    /**
+     * Parses a newline-delimited JSON request body. See {@link #parseBodyLines(Class)} for details.
+     *
+     * @param typeToken a type token for the type to parse each line as
+     * @return an iterator for the parsed lines
+     * @param <T> the static type to parse as
+     */
+    // the elements are deserialized for the type of the token, so they are instances of T
+    @SuppressWarnings("unchecked")
+    default <T> Iterator<T> parseBodyLines(TypeToken<T> typeToken) {
+        Objects.requireNonNull(typeToken, "typeToken");
+
+        return (Iterator<T>) parseBodyLines(typeToken.getType());
+    }
+
+    /**
+     * Parses a newline-delimited JSON request body. See {@link #parseBodyLines(Class)} for details.
+     *
+     * @param type the type to parse each line as
+     * @return an iterator for the parsed lines
+     */
+    Iterator<?> parseBodyLines(Type type);
+
 }
@@ -8,10 +8,12 @@ import io.github.grumpystuff.grumpyrest.request.Request;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParsingException;
 import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
 import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import io.github.grumpystuff.grumpyrest.util.NdjsonLines;
 import io.github.grumpystuff.grumpyrest.util.NullReturnCheckingCalls;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -27,6 +29,7 @@ public final class MockRequest implements Request {
     private List<PathArgument> pathArguments;
     private Map<String, String> querystring;
     private JsonElement body;
+    private List<JsonElement> bodyLines;
 
     /**
      * Constructor.
@@ -102,6 +105,16 @@ public final class MockRequest implements Request {
         this.body = body;
     }
 
+    /**
+     * Sets the lines of a newline-delimited JSON request body. By default, no body lines are present, and trying to
+     * parse the body lines will cause an {@link IllegalStateException}.
+     *
+     * @param bodyLines the request body lines
+     */
+    public void setBodyLines(List<JsonElement> bodyLines) {
+        this.bodyLines = List.copyOf(bodyLines);
+    }
+
     // ----------------------------------------------------------------------------------------------------------------
     // interface
     // ----------------------------------------------------------------------------------------------------------------
@@ -158,4 +171,14 @@ public final class MockRequest implements Request {
         }
     }
 
+    @Override
+    public Iterator<?> parseBodyLines(Type type) {
+        Objects.requireNonNull(type, "type");
+
+        if (bodyLines == null) {
+            throw new IllegalStateException("No body lines set");
+        }
+        return NdjsonLines.deserialize(services.jsonEngine(), bodyLines, type);
+    }
+
 }
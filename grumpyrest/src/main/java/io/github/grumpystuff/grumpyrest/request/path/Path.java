@@ -7,8 +7,10 @@
 package io.github.grumpystuff.grumpyrest.request.path;
 
 import io.github.grumpystuff.grumpyrest.request.PathArgument;
+import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserException;
 import io.github.grumpystuff.grumpyrest.request.stringparser.ParseFromStringService;
 
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -55,7 +57,8 @@ public record Path(List<PathSegment> segments) {
     /**
      * Matches a request path (i.e. a list of strings) against this path. This can either succeed and return a
      * list of bound path arguments, or fail because the paths are different. "Different" here means that a
-     * literal segment of this path has a different text than the corresponding segment of the request.
+     * literal segment of this path has a different text than the corresponding segment of the request, or that the
+     * request segment for a typed variable cannot be parsed as that type.
      *
      * @param requestSegments the path segments from the request
      * @param parseFromStringService this service is needed because it is baked into returned path argument
@@ -79,12 +82,76 @@ public record Path(List<PathSegment> segments) {
                 return null;
             }
             if (pathSegment instanceof VariablePathSegment variable) {
-                pathArguments.add(new PathArgument(variable.getVariableName(), requestSegment, parseFromStringService));
+                PathArgument pathArgument = bind(variable, requestSegment, parseFromStringService);
+                if (pathArgument == null) {
+                    return null;
+                }
+                pathArguments.add(pathArgument);
             }
         }
         return pathArguments;
     }
 
+    /**
+     * Matches a request path against this path. This does the same as {@link #match(List, ParseFromStringService)},
+     * but only creates strings for the segments that are bound to path parameters.
+     *
+     * @param requestPath the path from the request
+     * @param parseFromStringService this service is needed because it is baked into returned path argument
+     *                               objects to allow the application code to convert the arguments into
+     *                               high-level types
+     * @return if matched successfully, the bound path arguments. This list only contains an element for each
+     * path parameter in this path. That is, it does not contain any entries for literal segments.
+     */
+    public List<PathArgument> match(RequestPath requestPath, ParseFromStringService parseFromStringService) {
+        Objects.requireNonNull(requestPath, "requestPath");
+        Objects.requireNonNull(parseFromStringService, "parseFromStringService");
+
+        if (requestPath.getSegmentCount() != segments.size()) {
+            return null;
+        }
+        List<PathArgument> pathArguments = null;
+        for (int i = 0; i < segments.size(); i++) {
+            PathSegment pathSegment = segments.get(i);
+            if (pathSegment instanceof LiteralPathSegment literal) {
+                if (!requestPath.segmentEquals(i, literal.getText())) {
+                    return null;
+                }
+            } else {
+                String requestSegment = requestPath.getSegment(i);
+                if (!pathSegment.matches(requestSegment)) {
+                    return null;
+                }
+                if (pathSegment instanceof VariablePathSegment variable) {
+                    PathArgument pathArgument = bind(variable, requestSegment, parseFromStringService);
+                    if (pathArgument == null) {
+                        return null;
+                    }
+                    if (pathArguments == null) {
+                        pathArguments = new ArrayList<>();
+                    }
+                    pathArguments.add(pathArgument);
+                }
+            }
+        }
+        return pathArguments == null ? List.of() : pathArguments;
+    }
+
+    // returns null if the variable is typed and the segment cannot be parsed as that type
+    private static PathArgument bind(VariablePathSegment variable, String requestSegment, ParseFromStringService parseFromStringService) {
+        Type type = variable.getType();
+        if (type == null) {
+            return new PathArgument(variable.getVariableName(), requestSegment, parseFromStringService);
+        }
+        Object value;
+        try {
+            value = parseFromStringService.parseFromString(requestSegment, type);
+        } catch (FromStringParserException e) {
+            return null;
+        }
+        return new PathArgument(variable.getVariableName(), requestSegment, parseFromStringService, type, value);
+    }
+
     @Override
     public String toString() {
         if (segments.isEmpty()) {
@@ -22,7 +22,8 @@ public abstract class PathSegment {
     /**
      * Parses an instance from a single segment of a string-based path specification. The segment is turned
      * into a path parameter ({@link VariablePathSegment}) if the segment specification starts with a <code>:</code>
-     * character.
+     * character. The parameter may declare its type after the name, as in
+     * <code>:id&lt;int&gt;</code>.
      *
      * @param segmentSpec the segment specification
      * @return the parsed segment object
@@ -31,7 +32,7 @@ public abstract class PathSegment {
         Objects.requireNonNull(segmentSpec, "segmentSpec");
 
         return segmentSpec.startsWith(":")
-                ? new VariablePathSegment(segmentSpec.substring(1))
+                ? VariablePathSegment.parseVariable(segmentSpec.substring(1))
                 : new LiteralPathSegment(segmentSpec);
     }
 
@@ -7,15 +7,12 @@
 package io.github.grumpystuff.grumpyrest.request.path;
 
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 /**
  * NOT PUBLIC API
  */
 public final class PathUtil {
 
-    private static final Pattern slashPattern = Pattern.compile("/");
-
     private PathUtil() {
     }
 
@@ -28,13 +25,37 @@ public final class PathUtil {
     public static String trimSlashes(String pathText) {
         Objects.requireNonNull(pathText);
 
-        while (pathText.startsWith("/")) {
-            pathText = pathText.substring(1);
+        int start = getTrimmedStart(pathText);
+        return pathText.substring(start, getTrimmedEnd(pathText, start));
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param pathText ...
+     * @return the index of the first character that is not a leading slash
+     */
+    public static int getTrimmedStart(String pathText) {
+        int start = 0;
+        while (start < pathText.length() && pathText.charAt(start) == '/') {
+            start++;
         }
-        while (pathText.endsWith("/")) {
-            pathText = pathText.substring(0, pathText.length() - 1);
+        return start;
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param pathText ...
+     * @param start the result of {@link #getTrimmedStart(String)}
+     * @return the index after the last character that is not a trailing slash
+     */
+    public static int getTrimmedEnd(String pathText, int start) {
+        int end = pathText.length();
+        while (end > start && pathText.charAt(end - 1) == '/') {
+            end--;
         }
-        return pathText;
+        return end;
     }
 
     /**
@@ -44,7 +65,12 @@ public final class PathUtil {
      * @return ...
      */
     public static String[] splitIntoSegments(String pathText) {
-        return slashPattern.split(trimSlashes(Objects.requireNonNull(pathText)));
+        RequestPath requestPath = RequestPath.parse(Objects.requireNonNull(pathText));
+        String[] segments = new String[requestPath.getSegmentCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = requestPath.getSegment(i);
+        }
+        return segments;
     }
 
 }
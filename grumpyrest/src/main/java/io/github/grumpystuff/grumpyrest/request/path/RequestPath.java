@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.request.path;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The path of an incoming request, split into segments at slashes. Leading and trailing slashes are ignored.
+ * <p>
+ * Segments are not stored as separate strings, but as offsets into the original path string. This allows to match
+ * the request path against literal path segments without creating a string for each segment. Only segments that are
+ * actually needed as strings, such as the values for path parameters, are created on demand.
+ */
+public final class RequestPath {
+
+    private final String text;
+
+    // start and end offset for each segment, alternating
+    private final int[] bounds;
+
+    private List<String> segments;
+
+    private RequestPath(String text, int[] bounds) {
+        this.text = text;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Splits a path string into segments. Leading and trailing slashes are ignored. Empty segments are retained, so
+     * "a//b" has three segments, and the empty path (as well as "/") has a single empty segment.
+     *
+     * @param pathText the path to split
+     * @return the request path
+     */
+    public static RequestPath parse(String pathText) {
+        Objects.requireNonNull(pathText, "pathText");
+
+        int start = PathUtil.getTrimmedStart(pathText);
+        int end = PathUtil.getTrimmedEnd(pathText, start);
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (pathText.charAt(i) == '/') {
+                count++;
+            }
+        }
+        int[] bounds = new int[2 * count];
+        int segmentIndex = 0;
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (pathText.charAt(i) == '/') {
+                bounds[segmentIndex++] = segmentStart;
+                bounds[segmentIndex++] = i;
+                segmentStart = i + 1;
+            }
+        }
+        bounds[segmentIndex++] = segmentStart;
+        bounds[segmentIndex] = end;
+        return new RequestPath(pathText, bounds);
+    }
+
+    /**
+     * Getter method for the path string this object was created from
+     *
+     * @return the path string, including leading and trailing slashes if present
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the number of segments
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return bounds.length >> 1;
+    }
+
+    /**
+     * Returns the offset in the path string at which a segment starts.
+     *
+     * @param index the segment index
+     * @return the start offset (inclusive)
+     */
+    public int getSegmentStart(int index) {
+        return bounds[2 * index];
+    }
+
+    /**
+     * Returns the offset in the path string at which a segment ends.
+     *
+     * @param index the segment index
+     * @return the end offset (exclusive)
+     */
+    public int getSegmentEnd(int index) {
+        return bounds[2 * index + 1];
+    }
+
+    /**
+     * Checks whether a segment is equal to the specified text, without creating a string for the segment.
+     *
+     * @param index the segment index
+     * @param segmentText the text to compare with
+     * @return true if equal, false if not
+     */
+    public boolean segmentEquals(int index, String segmentText) {
+        int start = bounds[2 * index];
+        int length = bounds[2 * index + 1] - start;
+        return segmentText.length() == length && text.regionMatches(start, segmentText, 0, length);
+    }
+
+    /**
+     * Returns a segment as a string. This creates a new string on each call, unless the segment happens to be the
+     * whole path string.
+     *
+     * @param index the segment index
+     * @return the segment
+     */
+    public String getSegment(int index) {
+        return text.substring(bounds[2 * index], bounds[2 * index + 1]);
+    }
+
+    /**
+     * Returns all segments as strings. The list gets created on the first call and is then reused.
+     *
+     * @return the segments
+     */
+    public List<String> getSegments() {
+        if (segments == null) {
+            String[] array = new String[getSegmentCount()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = getSegment(i);
+            }
+            segments = List.of(array);
+        }
+        return segments;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
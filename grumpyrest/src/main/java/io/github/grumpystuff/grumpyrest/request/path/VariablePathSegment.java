@@ -8,18 +8,37 @@ package io.github.grumpystuff.grumpyrest.request.path;
 
 import io.github.grumpystuff.grumpyrest.request.PathArgument;
 
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * This segment matches any request path segment. The request handling logic will generate a {@link PathArgument} for
  * each such segment.
+ * <p>
+ * A variable segment may optionally declare a type. For such a segment, the request path segment is parsed using the
+ * from-string parser for that type while matching. The segment only matches if parsing succeeds, and the parsed value
+ * is kept in the {@link PathArgument}, so it does not get parsed again when the handler asks for it.
  */
 public final class VariablePathSegment extends PathSegment {
 
+    private static final Map<String, Type> TYPE_ALIASES = Map.of(
+            "int", Integer.class,
+            "long", Long.class,
+            "string", String.class,
+            "date", LocalDate.class,
+            "time", LocalTime.class,
+            "datetime", LocalDateTime.class
+    );
+
     private final String variableName;
+    private final Type type;
 
     /**
-     * Constructor.
+     * Constructor for an untyped variable.
      *
      * @param variableName the name of the variable. This is currently not used anywhere. It is usually specified by
      *                     providing the whole path pattern as a string-based specification that contains variable
@@ -27,6 +46,42 @@ public final class VariablePathSegment extends PathSegment {
      */
     public VariablePathSegment(String variableName) {
         this.variableName = Objects.requireNonNull(variableName);
+        this.type = null;
+    }
+
+    /**
+     * Constructor for a typed variable.
+     *
+     * @param variableName the name of the variable (see {@link #VariablePathSegment(String)})
+     * @param type         the type of the variable. A from-string parser for this type must be registered when the
+     *                     API gets sealed.
+     */
+    public VariablePathSegment(String variableName, Type type) {
+        this.variableName = Objects.requireNonNull(variableName);
+        this.type = Objects.requireNonNull(type, "type");
+    }
+
+    /**
+     * Parses a variable segment from the part of a string-based path specification after the <code>:</code>. This
+     * is either just the name, or the name followed by a type alias in angle brackets, such as <code>id&lt;int&gt;</code>.
+     * Supported type aliases are int, long, string, date, time and datetime.
+     *
+     * @param spec the variable specification
+     * @return the variable segment
+     */
+    static VariablePathSegment parseVariable(String spec) {
+        Objects.requireNonNull(spec, "spec");
+
+        int typeStart = spec.indexOf('<');
+        if (typeStart < 0 || !spec.endsWith(">")) {
+            return new VariablePathSegment(spec);
+        }
+        String alias = spec.substring(typeStart + 1, spec.length() - 1);
+        Type type = TYPE_ALIASES.get(alias);
+        if (type == null) {
+            throw new IllegalArgumentException("unknown path parameter type: " + alias);
+        }
+        return new VariablePathSegment(spec.substring(0, typeStart), type);
     }
 
     /**
@@ -38,6 +93,15 @@ public final class VariablePathSegment extends PathSegment {
         return variableName;
     }
 
+    /**
+     * Getter for the variable type
+     *
+     * @return the variable type, or null if the variable is untyped
+     */
+    public Type getType() {
+        return type;
+    }
+
     @Override
     public boolean matches(String segment) {
         Objects.requireNonNull(segment);
@@ -46,7 +110,7 @@ public final class VariablePathSegment extends PathSegment {
 
     @Override
     public String toString() {
-        return ":" + variableName;
+        return type == null ? ":" + variableName : ":" + variableName + "<" + type.getTypeName() + ">";
     }
 
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.request.querystring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Splits a raw (still URL-encoded) querystring into parameters without decoding them. Each parameter is stored as
+ * the offsets of its name and value in the raw querystring. Names and values are only decoded when asked for, and
+ * only those that actually contain escape sequences need more than a substring operation. This allows parsers to
+ * look up parameter names without creating a string for them.
+ * <p>
+ * Decoding follows the rules for application/x-www-form-urlencoded data in UTF-8, like the servlet container does
+ * for querystring parameters: Parameters are separated by '&amp;', names and values by the first '=', a '+' stands
+ * for a space and percent-escapes encode UTF-8 bytes. A parameter without '=' has an empty value. Empty parameters
+ * and parameters with an empty name are ignored. Malformed percent-escapes are kept literally.
+ * <p>
+ * Parameters are kept in the order they appear in the querystring, including duplicates.
+ */
+public final class QuerystringDecoder {
+
+    private static final QuerystringDecoder EMPTY = new QuerystringDecoder("", new int[0], 0);
+
+    // per parameter: name start, name end, value start, value end, flags
+    private static final int STRIDE = 5;
+    private static final int NAME_ENCODED = 1;
+    private static final int VALUE_ENCODED = 2;
+
+    private final String source;
+    private final int[] offsets;
+    private final int parameterCount;
+
+    private QuerystringDecoder(String source, int[] offsets, int parameterCount) {
+        this.source = source;
+        this.offsets = offsets;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Splits a raw querystring into parameters.
+     *
+     * @param rawQuerystring the querystring as obtained from the request URL, without the leading '?'. May be null,
+     *                       which is treated like an empty querystring.
+     * @return the decoder
+     */
+    public static QuerystringDecoder parse(String rawQuerystring) {
+        if (rawQuerystring == null || rawQuerystring.isEmpty()) {
+            return EMPTY;
+        }
+        int[] offsets = new int[STRIDE * 4];
+        int count = 0;
+        int length = rawQuerystring.length();
+        int start = 0;
+        while (start <= length) {
+            int nameEnd = -1;
+            int flags = 0;
+            int end = start;
+            while (end < length) {
+                char c = rawQuerystring.charAt(end);
+                if (c == '&') {
+                    break;
+                } else if (c == '=' && nameEnd < 0) {
+                    nameEnd = end;
+                } else if (c == '%' || c == '+') {
+                    flags |= (nameEnd < 0) ? NAME_ENCODED : VALUE_ENCODED;
+                }
+                end++;
+            }
+            int valueStart = (nameEnd < 0) ? end : nameEnd + 1;
+            if (nameEnd < 0) {
+                nameEnd = end;
+            }
+            if (nameEnd > start) {
+                if (STRIDE * (count + 1) > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+                }
+                int base = STRIDE * count;
+                offsets[base] = start;
+                offsets[base + 1] = nameEnd;
+                offsets[base + 2] = valueStart;
+                offsets[base + 3] = end;
+                offsets[base + 4] = flags;
+                count++;
+            }
+            start = end + 1;
+        }
+        return new QuerystringDecoder(rawQuerystring, offsets, count);
+    }
+
+    /**
+     * Returns the raw querystring
+     *
+     * @return the raw querystring
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of parameters, counting duplicates separately
+     *
+     * @return the number of parameters
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    private int base(int index) {
+        Objects.checkIndex(index, parameterCount);
+        return STRIDE * index;
+    }
+
+    /**
+     * Returns the start index of a parameter name in the raw querystring
+     *
+     * @param index the index of the parameter
+     * @return the start index of the name (inclusive)
+     */
+    public int getNameStart(int index) {
+        return offsets[base(index)];
+    }
+
+    /**
+     * Returns the end index of a parameter name in the raw querystring
+     *
+     * @param index the index of the parameter
+     * @return the end index of the name (exclusive)
+     */
+    public int getNameEnd(int index) {
+        return offsets[base(index) + 1];
+    }
+
+    /**
+     * Checks whether the name of a parameter contains escape sequences. If not, the region given by
+     * {@link #getNameStart(int)} and {@link #getNameEnd(int)} is the decoded name.
+     *
+     * @param index the index of the parameter
+     * @return true if the name must be decoded, false if it can be used as-is
+     */
+    public boolean isNameEncoded(int index) {
+        return (offsets[base(index) + 4] & NAME_ENCODED) != 0;
+    }
+
+    /**
+     * Returns the decoded name of a parameter
+     *
+     * @param index the index of the parameter
+     * @return the name
+     */
+    public String getName(int index) {
+        int base = base(index);
+        return decode(offsets[base], offsets[base + 1], (offsets[base + 4] & NAME_ENCODED) != 0);
+    }
+
+    /**
+     * Returns the decoded value of a parameter
+     *
+     * @param index the index of the parameter
+     * @return the value, or the empty string if the parameter has no '='
+     */
+    public String getValue(int index) {
+        int base = base(index);
+        return decode(offsets[base + 2], offsets[base + 3], (offsets[base + 4] & VALUE_ENCODED) != 0);
+    }
+
+    private String decode(int start, int end, boolean encoded) {
+        if (!encoded) {
+            return source.substring(start, end);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        byte[] bytes = null;
+        int i = start;
+        while (i < end) {
+            char c = source.charAt(i);
+            if (c == '+') {
+                builder.append(' ');
+                i++;
+            } else if (c == '%' && isEscape(i, end)) {
+                // collect a run of escapes, since a single character may be encoded as multiple bytes
+                if (bytes == null) {
+                    bytes = new byte[(end - i) / 3];
+                }
+                int byteCount = 0;
+                while (i < end && source.charAt(i) == '%' && isEscape(i, end)) {
+                    bytes[byteCount++] = (byte) ((hexValue(source.charAt(i + 1)) << 4) + hexValue(source.charAt(i + 2)));
+                    i += 3;
+                }
+                builder.append(new String(bytes, 0, byteCount, StandardCharsets.UTF_8));
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isEscape(int index, int end) {
+        return index + 2 < end && hexValue(source.charAt(index + 1)) >= 0 && hexValue(source.charAt(index + 2)) >= 0;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        } else {
+            return -1;
+        }
+    }
+
+}
@@ -6,8 +6,12 @@
  */
 package io.github.grumpystuff.grumpyrest.request.querystring;
 
+import io.github.grumpystuff.grumpyrest.ExceptionMessages;
+
 import java.lang.reflect.Type;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * A QuerystringParser turns a querystring into a Java Object, typically a record since parsers for them can be
@@ -30,7 +34,7 @@ public interface QuerystringParser {
     /**
      * Converts the querystring to an application object.
      *
-     * @param querystring the querystring to convert, pre-parsed into key/value pairs by the servlet container
+     * @param querystring the querystring to convert, pre-parsed into key/value pairs
      * @param type the type to parse as
      * @return the parsed object
      * @throws QuerystringParsingException on parsing errors, such as wrongly formatted fields, unknown fields,
@@ -38,4 +42,43 @@ public interface QuerystringParser {
      */
     Object parse(Map<String, String> querystring, Type type) throws QuerystringParsingException;
 
+    /**
+     * Converts a querystring that has been split into parameters, but not decoded yet, to an application object.
+     * This is the method used for actual requests. Parsers can override it to avoid building a map, e.g. to look up
+     * parameter names directly in the raw querystring.
+     * <p>
+     * The default implementation builds a map and calls {@link #parse(Map, Type)}. Duplicate parameters are reported
+     * as errors; these errors take precedence over errors reported by {@link #parse(Map, Type)} for the same field.
+     *
+     * @param querystring the querystring to convert
+     * @param type the type to parse as
+     * @return the parsed object
+     * @throws QuerystringParsingException on parsing errors, such as wrongly formatted fields, unknown fields,
+     * missing fields or duplicate fields
+     */
+    default Object parse(QuerystringDecoder querystring, Type type) throws QuerystringParsingException {
+        Objects.requireNonNull(querystring, "querystring");
+        Objects.requireNonNull(type, "type");
+
+        Map<String, String> parameters = new HashMap<>();
+        Map<String, String> errorMap = new HashMap<>();
+        for (int i = 0; i < querystring.getParameterCount(); i++) {
+            String name = querystring.getName(i);
+            if (parameters.put(name, querystring.getValue(i)) != null) {
+                errorMap.put(name, ExceptionMessages.DUPLICATE_PARAMETER);
+            }
+        }
+        if (errorMap.isEmpty()) {
+            return parse(parameters, type);
+        }
+        try {
+            parse(parameters, type);
+        } catch (QuerystringParsingException e) {
+            for (Map.Entry<String, String> entry : e.getFieldErrors().entrySet()) {
+                errorMap.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        throw new QuerystringParsingException(errorMap, false);
+    }
+
 }
@@ -31,6 +31,19 @@ public class QuerystringParsingException extends Exception {
         this.fieldErrors = Map.copyOf(fieldErrors);
     }
 
+    /**
+     * Creates an instance from a set of field errors, optionally without capturing a stack trace. Since querystring
+     * errors are caused by the client, the stack trace is rarely useful, and skipping it makes the exception much
+     * cheaper to create. Suppressed exceptions are disabled if the stack trace is.
+     *
+     * @param fieldErrors the field errors
+     * @param writableStackTrace whether to capture a stack trace
+     */
+    public QuerystringParsingException(Map<String, String> fieldErrors, boolean writableStackTrace) {
+        super("exception during querystring parsing", null, writableStackTrace, writableStackTrace);
+        this.fieldErrors = Map.copyOf(fieldErrors);
+    }
+
     /**
      * Getter for the field errors
      *
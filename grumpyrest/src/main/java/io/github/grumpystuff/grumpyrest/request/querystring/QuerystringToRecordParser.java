@@ -12,19 +12,26 @@ import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParser;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserException;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
 import io.github.grumpystuff.grumpyrest.util.NullReturnCheckingCalls;
+import io.github.grumpystuff.grumpyrest.util.StringRegionMap;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class implements an auto-generated record parser.
+ * <p>
+ * For each concrete record type, the parser resolves the component types and their {@link FromStringParser}s once,
+ * when that type is first parsed, and then re-uses them for all later requests.
  */
 public final class QuerystringToRecordParser implements QuerystringParser {
 
     private final RecordInfo recordInfo;
     private final FromStringParserRegistry fromStringParserRegistry;
+    private final ConcurrentMap<Type, Binder> binders = new ConcurrentHashMap<>();
 
     QuerystringToRecordParser(Class<?> rawRecordClass, FromStringParserRegistry fromStringParserRegistry) {
         Objects.requireNonNull(rawRecordClass, "rawRecordClass");
@@ -52,58 +59,134 @@ public final class QuerystringToRecordParser implements QuerystringParser {
         Objects.requireNonNull(querystring, "querystring");
         Objects.requireNonNull(recordType, "recordType");
 
-        List<RecordInfo.ComponentInfo> componentInfos = recordInfo.getComponentInfos();
-        int numberOfPresentParameters = 0;
-        Object[] fieldValues = new Object[componentInfos.size()];
-        Map<String, String> fieldErrors = new HashMap<>();
-
-        for (int i = 0; i < componentInfos.size(); i++) {
-            RecordInfo.ComponentInfo componentInfo = componentInfos.get(i);
-            String name = componentInfo.getName();
-            String value = querystring.get(name);
-            if (value != null) {
-                numberOfPresentParameters++;
+        Binder binder = getBinder(recordType);
+        String[] values = new String[binder.names.length];
+        Map<String, String> fieldErrors = null;
+        for (Map.Entry<String, String> entry : querystring.entrySet()) {
+            Integer index = binder.nameIndex.get(entry.getKey());
+            if (index == null) {
+                fieldErrors = addError(fieldErrors, entry.getKey(), ExceptionMessages.UNEXPECTED_PARAMETER);
+            } else {
+                values[index] = entry.getValue();
             }
-            try {
-                Type concreteFieldType = componentInfo.getConcreteType(recordType);
-                FromStringParser parser = fromStringParserRegistry.get(concreteFieldType);
-                if (value == null) {
-                    fieldValues[i] = NullReturnCheckingCalls.parseFromAbsentString(parser, concreteFieldType);
-                } else {
-                    fieldValues[i] = NullReturnCheckingCalls.parseFromString(parser, value, concreteFieldType);
+        }
+        return binder.bind(values, fieldErrors);
+    }
+
+    /**
+     * This implementation looks up parameter names directly in the raw querystring and only decodes the values that
+     * are actually used.
+     */
+    @Override
+    public Object parse(QuerystringDecoder querystring, Type recordType) throws QuerystringParsingException {
+        Objects.requireNonNull(querystring, "querystring");
+        Objects.requireNonNull(recordType, "recordType");
+
+        Binder binder = getBinder(recordType);
+        String source = querystring.getSource();
+        String[] values = new String[binder.names.length];
+        Map<String, String> fieldErrors = null;
+        for (int i = 0; i < querystring.getParameterCount(); i++) {
+            Integer index = querystring.isNameEncoded(i)
+                    ? binder.nameIndex.get(querystring.getName(i))
+                    : binder.nameIndex.get(source, querystring.getNameStart(i), querystring.getNameEnd(i));
+            if (index == null) {
+                fieldErrors = addError(fieldErrors, querystring.getName(i), ExceptionMessages.UNEXPECTED_PARAMETER);
+            } else if (values[index] != null) {
+                fieldErrors = addError(fieldErrors, binder.names[index], ExceptionMessages.DUPLICATE_PARAMETER);
+            } else {
+                values[index] = querystring.getValue(i);
+            }
+        }
+        return binder.bind(values, fieldErrors);
+    }
+
+    private static Map<String, String> addError(Map<String, String> fieldErrors, String name, String message) {
+        if (fieldErrors == null) {
+            fieldErrors = new HashMap<>();
+        }
+        fieldErrors.putIfAbsent(name, message);
+        return fieldErrors;
+    }
+
+    private Binder getBinder(Type recordType) {
+        Binder binder = binders.get(recordType);
+        if (binder == null) {
+            binder = binders.computeIfAbsent(recordType, Binder::new);
+        }
+        return binder;
+    }
+
+    /**
+     * Holds everything needed to bind parameters to the components of a concrete record type, resolved once when
+     * the type is first parsed.
+     */
+    private final class Binder {
+
+        private final String[] names;
+        private final StringRegionMap<Integer> nameIndex = new StringRegionMap<>();
+        private final Type[] concreteTypes;
+        private final FromStringParser[] parsers;
+
+        // error message for components whose type or parser could not be resolved
+        private final String[] resolutionErrors;
+
+        Binder(Type recordType) {
+            List<RecordInfo.ComponentInfo> componentInfos = recordInfo.getComponentInfos();
+            int n = componentInfos.size();
+            names = new String[n];
+            concreteTypes = new Type[n];
+            parsers = new FromStringParser[n];
+            resolutionErrors = new String[n];
+            for (int i = 0; i < n; i++) {
+                RecordInfo.ComponentInfo componentInfo = componentInfos.get(i);
+                names[i] = componentInfo.getName();
+                nameIndex.put(names[i], i);
+                try {
+                    concreteTypes[i] = componentInfo.getConcreteType(recordType);
+                    parsers[i] = fromStringParserRegistry.get(concreteTypes[i]);
+                } catch (Exception e) {
+                    resolutionErrors[i] = "parse error";
                 }
-            } catch (FromStringParserException e) {
-                fieldErrors.put(name, e.getMessage());
-            } catch (Exception e) {
-                fieldErrors.put(name, "parse error");
             }
         }
 
-        if (numberOfPresentParameters != querystring.size()) {
-            // this is more expensive, so only do this if there is really an error
-            Set<String> propertyNames = new HashSet<>(querystring.keySet());
-            for (RecordInfo.ComponentInfo componentInfo : componentInfos) {
-                propertyNames.remove(componentInfo.getName());
+        Object bind(String[] values, Map<String, String> fieldErrors) throws QuerystringParsingException {
+            Object[] fieldValues = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                if (resolutionErrors[i] != null) {
+                    fieldErrors = addError(fieldErrors, names[i], resolutionErrors[i]);
+                    continue;
+                }
+                try {
+                    if (values[i] == null) {
+                        fieldValues[i] = NullReturnCheckingCalls.parseFromAbsentString(parsers[i], concreteTypes[i]);
+                    } else {
+                        fieldValues[i] = NullReturnCheckingCalls.parseFromString(parsers[i], values[i], concreteTypes[i]);
+                    }
+                } catch (FromStringParserException e) {
+                    fieldErrors = addError(fieldErrors, names[i], e.getMessage());
+                } catch (Exception e) {
+                    fieldErrors = addError(fieldErrors, names[i], "parse error");
+                }
             }
-            for (String unexpectedProperty : propertyNames) {
-                fieldErrors.put(unexpectedProperty, ExceptionMessages.UNEXPECTED_PARAMETER);
+
+            if (fieldErrors != null) {
+                throw new QuerystringParsingException(fieldErrors, false);
+            }
+            try {
+                return recordInfo.invokeConstructor(fieldValues);
+            } catch (InvocationTargetException e) {
+                // Since records are considered data containers, we expect exceptions from a record constructor to be
+                // related to the record arguments, which we know. So returning the exception message in the response
+                // should not leak any sensitive information. This allows error messages related to the *combination*
+                // of multiple fields to be visible in the response without writing any custom code.
+                throw new QuerystringParsingException(Map.of("(root)", e.getTargetException().getMessage()), false);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
         }
 
-        if (!fieldErrors.isEmpty()) {
-            throw new QuerystringParsingException(Map.copyOf(fieldErrors));
-        }
-        try {
-            return recordInfo.invokeConstructor(fieldValues);
-        } catch (InvocationTargetException e) {
-            // Since records are considered data containers, we expect exceptions from a record constructor to be
-            // related to the record arguments, which we know. So returning the exception message in the response
-            // should not leak any sensitive information. This allows error messages related to the *combination*
-            // of multiple fields to be visible in the response without writing any custom code.
-            throw new QuerystringParsingException(Map.of("(root)", e.getTargetException().getMessage()));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
     }
 
 }
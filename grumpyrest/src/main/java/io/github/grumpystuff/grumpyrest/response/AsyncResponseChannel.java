@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response;
+
+import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
+
+import java.io.OutputStream;
+
+/**
+ * A response that stays open after {@link Response#transmit(ResponseTransmitter)} has returned, so its body can be
+ * sent from other threads over a long time, such as for server-sent events. Obtained from
+ * {@link ResponseTransmitter#startAsync()}.
+ * <p>
+ * The response ends when {@link #complete()} is called. Writes to the output stream must not happen concurrently,
+ * and not after the response has been completed.
+ */
+public interface AsyncResponseChannel {
+
+    /**
+     * Returns the output stream to send body data to the client. Data is sent as-is, without response compression or
+     * buffering, and is only guaranteed to reach the client when the stream gets flushed.
+     *
+     * @return the body output stream
+     */
+    OutputStream getOutputStream();
+
+    /**
+     * Converts the specified value to JSON, using the JSON engine of the REST API.
+     *
+     * @param value the value to convert
+     * @return the JSON text
+     * @throws JsonSerializationException if the value is in an inconsistent state or in a state that cannot be converted to JSON
+     */
+    String toJson(Object value) throws JsonSerializationException;
+
+    /**
+     * Runs the specified task in a thread provided by the servlet container. This is meant for tasks that write to
+     * the output stream, since those writes can block.
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task);
+
+    /**
+     * Sets a listener that gets called when the servlet container ends the response on its own, typically because
+     * the client has disconnected. Write errors are not reported to this listener; the code that writes to the output
+     * stream sees those as exceptions. The listener is called at most once, and not after {@link #complete()}.
+     * <p>
+     * Not all containers report disconnected clients, so code that sends data only rarely should send some data
+     * periodically to detect them.
+     *
+     * @param listener the listener
+     */
+    void setDisconnectListener(Runnable listener);
+
+    /**
+     * Ends the response. Calling this method more than once has no effect.
+     */
+    void complete();
+
+}
@@ -6,6 +6,8 @@
  */
 package io.github.grumpystuff.grumpyrest.response;
 
+import io.github.grumpystuff.grumpyrest.jfr.FinishRequestEvent;
+
 /**
  * This exception type can be thrown to immediately finish handling a request and respond with a specific response
  * value. This value can be a normal response value, a response using the standard error format, a custom HTTP-level
@@ -19,6 +21,12 @@ package io.github.grumpystuff.grumpyrest.response;
  * the normal mechanism to handle response values, but will usually be one of two cases: Either the response value is
  * JSON-able (normal response, as well as standard error response) or is a {@link Response} itself (redirect,
  * request for HTTP authentication, or similar).
+ * <p>
+ * Since this exception is used for ordinary control flow, capturing a stack trace is often wasted effort. The
+ * constructor with a <code>writableStackTrace</code> parameter creates an instance without a stack trace, which is
+ * much cheaper to create. The framework itself uses that constructor. To find out where requests are finished
+ * without a stack trace, enable the {@link FinishRequestEvent} in the JDK Flight Recorder, which records its own
+ * stack trace.
  */
 public class FinishRequestException extends RuntimeException implements ResponseValueWrapper {
 
@@ -34,6 +42,27 @@ public class FinishRequestException extends RuntimeException implements Response
      */
     public FinishRequestException(Object responseValue) {
         this.responseValue = responseValue;
+        recordEvent(responseValue);
+    }
+
+    /**
+     * Constructor that can skip capturing a stack trace. Suppressed exceptions are disabled if the stack trace is.
+     *
+     * @param responseValue the response value to respond
+     * @param writableStackTrace whether to capture a stack trace
+     */
+    public FinishRequestException(Object responseValue, boolean writableStackTrace) {
+        super(null, null, writableStackTrace, writableStackTrace);
+        this.responseValue = responseValue;
+        recordEvent(responseValue);
+    }
+
+    private static void recordEvent(Object responseValue) {
+        FinishRequestEvent event = new FinishRequestEvent();
+        if (event.shouldCommit()) {
+            event.set(responseValue);
+            event.commit();
+        }
     }
 
     @Override
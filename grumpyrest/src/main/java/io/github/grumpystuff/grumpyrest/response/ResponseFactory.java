@@ -27,4 +27,24 @@ public interface ResponseFactory {
      */
     Response createResponse(RequestCycle requestCycle, Object value);
 
+    /**
+     * Declares whether this factory is "class-determined", that is, whether its decision to support a response value
+     * or not only depends on the run-time class of that value, and not on the value itself. The {@link Response}
+     * returned for a supported value may still depend on the value -- only the decision between null and non-null
+     * must not.
+     * <p>
+     * The {@link ResponseFactoryRegistry} uses this information to remember, per response value class, which factory
+     * handles that class, so it does not have to ask all factories again for the next value of the same class. Null
+     * response values are not subject to this, so a factory that supports only null is class-determined too.
+     * <p>
+     * Returning true for a factory whose decision depends on the value breaks response factory selection in subtle
+     * ways. The default implementation therefore returns false, which is always safe, but keeps the factory in the
+     * slower path that asks it for every response value.
+     *
+     * @return true if class-determined, false if not
+     */
+    default boolean isClassDetermined() {
+        return false;
+    }
+
 }
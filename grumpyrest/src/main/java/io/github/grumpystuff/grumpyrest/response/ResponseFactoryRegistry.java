@@ -15,6 +15,8 @@ import io.github.grumpystuff.grumpyrest.RestApi;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Allows to register {@link ResponseFactory}s that provide {@link Response} implementations for the response values
@@ -22,10 +24,15 @@ import java.util.Objects;
  * <p>
  * This class does not extend {@link Registry} because it does not work with keys reported by its registrables (i.e.
  * response factories), but directly calls all factories and uses the first non-null result.
+ * <p>
+ * For factories that are {@link ResponseFactory#isClassDetermined() class-determined}, the registry remembers which
+ * factory handled a response value class, and for the next value of the same class, skips all class-determined
+ * factories that come before it. Factories that are not class-determined are still called for every value.
  */
 public final class ResponseFactoryRegistry extends Sealable {
 
     private final List<ResponseFactory> factories = new ArrayList<>();
+    private final ConcurrentMap<Class<?>, Dispatch> dispatchCache = new ConcurrentHashMap<>();
 
     /**
      * Constructor. This constructor does not register any factories, but the {@link RestApi} calling this constructor
@@ -76,13 +83,55 @@ public final class ResponseFactoryRegistry extends Sealable {
         while (value instanceof ResponseValueWrapper wrapper) {
             value = wrapper.getWrappedResponseValue();
         }
+        if (value != null) {
+            Dispatch dispatch = dispatchCache.get(value.getClass());
+            if (dispatch != null) {
+                Response response = dispatch.createResponse(requestCycle, value);
+                if (response != null) {
+                    return response;
+                }
+                // the class-determined factory broke its contract -- fall back to asking all factories
+            }
+        }
+        // allocated only when needed, since most factories are class-determined
+        List<ResponseFactory> skippedValueDependentFactories = null;
         for (ResponseFactory factory : factories) {
             Response response = factory.createResponse(requestCycle, value);
+            boolean classDetermined = factory.isClassDetermined();
             if (response != null) {
+                if (value != null && classDetermined) {
+                    List<ResponseFactory> valueDependentFactories = skippedValueDependentFactories == null
+                            ? List.of() : List.copyOf(skippedValueDependentFactories);
+                    dispatchCache.put(value.getClass(), new Dispatch(valueDependentFactories, factory));
+                }
                 return response;
             }
+            if (!classDetermined) {
+                if (skippedValueDependentFactories == null) {
+                    skippedValueDependentFactories = new ArrayList<>();
+                }
+                skippedValueDependentFactories.add(factory);
+            }
         }
         throw new NoResponseFactoryException(value);
     }
 
+    /**
+     * The remembered factory selection for a single response value class. The value-dependent factories come before
+     * the class-determined one in the list of all factories, so they still get a chance to handle each value.
+     */
+    private record Dispatch(List<ResponseFactory> valueDependentFactories, ResponseFactory classDeterminedFactory) {
+
+        Response createResponse(RequestCycle requestCycle, Object value) {
+            for (ResponseFactory factory : valueDependentFactories) {
+                Response response = factory.createResponse(requestCycle, value);
+                if (response != null) {
+                    return response;
+                }
+            }
+            return classDeterminedFactory.createResponse(requestCycle, value);
+        }
+
+    }
+
 }
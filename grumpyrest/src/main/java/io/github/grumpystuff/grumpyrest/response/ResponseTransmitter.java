@@ -45,6 +45,34 @@ public interface ResponseTransmitter {
      */
     void addCustomHeader(String name, String value);
 
+    /**
+     * Header Method: Sets the Content-Length header, for responses that know the exact size of their body in advance.
+     * The body sent afterwards must have exactly this size. It is sent as-is, without response compression or
+     * buffering, since those would change or duplicate the size.
+     * <p>
+     * The default implementation just adds a custom header.
+     *
+     * @param contentLength the size of the body in bytes
+     */
+    default void setContentLength(long contentLength) {
+        addCustomHeader("Content-Length", Long.toString(contentLength));
+    }
+
+    /**
+     * Checks whether the body is discarded instead of sent, which is the case for HEAD requests. Anything written to
+     * the body output stream is then discarded without being compressed, and {@link #writeJson(Object)} does not
+     * serialize the value at all. A Content-Length is only sent if set explicitly, so responses that know their
+     * length in advance should still set it. Responses that would be expensive to produce, such as large files,
+     * can skip writing the body in that case.
+     * <p>
+     * The default implementation returns false.
+     *
+     * @return true if the body is discarded, false if it is sent
+     */
+    default boolean isBodySuppressed() {
+        return false;
+    }
+
     /**
      * Body method: Obtains the output stream to send body data to the client.
      *
@@ -65,4 +93,39 @@ public interface ResponseTransmitter {
      */
     void writeJson(Object value) throws JsonSerializationException, IOException;
 
+    /**
+     * Body method: Keeps the response open after {@link Response#transmit(ResponseTransmitter)} has returned, so it
+     * can send its body from other threads. No other body method may be called before or after this method; the
+     * body must be sent through the returned channel.
+     * <p>
+     * This method returns null if the response cannot be kept open, for example because the servlet container does
+     * not support asynchronous requests for this servlet, or because the request is a HEAD request which must not
+     * have a body. In that case, the response ends as usual when transmit() returns.
+     * <p>
+     * The default implementation returns null.
+     *
+     * @return the channel to send the body, or null if the response cannot be kept open
+     * @throws IOException on I/O errors
+     */
+    default AsyncResponseChannel startAsync() throws IOException {
+        return null;
+    }
+
+    /**
+     * Body method: Sends the JSON bytes that have been encoded in advance for the specified response, if any. This
+     * is used by constant responses such as the
+     * {@link io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse} constants, which only need to be
+     * serialized once (see {@link io.github.grumpystuff.grumpyrest.RestApi#registerPreEncodedResponse}). If this
+     * method returns false, the caller has to send the body itself.
+     * <p>
+     * The default implementation does not support pre-encoded responses and always returns false.
+     *
+     * @param response the response whose pre-encoded body shall be sent
+     * @return true if the body has been sent, false if not
+     * @throws IOException on I/O errors
+     */
+    default boolean writePreEncodedJson(Response response) throws IOException {
+        return false;
+    }
+
 }
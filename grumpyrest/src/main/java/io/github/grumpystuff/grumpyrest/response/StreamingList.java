@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A response value that represents a JSON array whose elements are produced one by one while the response is being
+ * sent. Unlike a {@link java.util.List}, the elements are never all kept in memory at the same time, and the first
+ * elements are sent to the client before the last ones have been produced. This is useful for large exports.
+ * <p>
+ * The elements are converted to JSON individually, using the JSON engine of the REST API. The element class is only
+ * used to check that the elements can be converted to JSON before the response gets started; the actual conversion
+ * uses the class of each element, just like for a {@link java.util.List}.
+ * <p>
+ * The response is sent with status 200. Since this status is sent before the elements are produced, an exception
+ * while producing or converting an element cannot change it anymore. Instead, the response body is cut off, leaving
+ * malformed JSON that the client can recognize as such.
+ * <p>
+ * By default, the elements are sent as a JSON array. {@link #asNdjson()} sends them as newline-delimited JSON
+ * (NDJSON / JSON Lines, content type application/x-ndjson) instead, with one element per line. This requires the
+ * JSON engine to produce JSON without line breaks, which is the default for the standard engines.
+ * <p>
+ * A streaming list can only be sent once. If it was created from a {@link Stream}, the stream is closed after the
+ * response has been sent.
+ *
+ * @param <T> the static element type
+ */
+public final class StreamingList<T> implements AutoCloseable {
+
+    /**
+     * The default number of elements after which the output is flushed to the client.
+     */
+    public static final int DEFAULT_FLUSH_INTERVAL = 100;
+
+    /**
+     * The formats in which the elements can be sent.
+     */
+    public enum Format {
+
+        /**
+         * A JSON array, with content type application/json.
+         */
+        JSON_ARRAY,
+
+        /**
+         * Newline-delimited JSON, with content type application/x-ndjson.
+         */
+        NDJSON
+
+    }
+
+    private final Iterator<? extends T> iterator;
+    private final Class<T> elementClass;
+    private final Runnable closeAction;
+    private final int flushInterval;
+    private final Format format;
+
+    private StreamingList(
+            Iterator<? extends T> iterator,
+            Class<T> elementClass,
+            Runnable closeAction,
+            int flushInterval,
+            Format format
+    ) {
+        this.iterator = Objects.requireNonNull(iterator, "iterator");
+        this.elementClass = Objects.requireNonNull(elementClass, "elementClass");
+        this.closeAction = closeAction;
+        if (flushInterval < 1) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+        this.flushInterval = flushInterval;
+        this.format = Objects.requireNonNull(format, "format");
+    }
+
+    /**
+     * Creates a streaming list from an iterator.
+     *
+     * @param iterator the iterator that produces the elements
+     * @param elementClass the class of the elements
+     * @return the streaming list
+     * @param <T> the static element type
+     */
+    public static <T> StreamingList<T> of(Iterator<? extends T> iterator, Class<T> elementClass) {
+        return new StreamingList<>(iterator, elementClass, null, DEFAULT_FLUSH_INTERVAL, Format.JSON_ARRAY);
+    }
+
+    /**
+     * Creates a streaming list from a stream. The stream will be closed after the response has been sent.
+     *
+     * @param stream the stream that produces the elements
+     * @param elementClass the class of the elements
+     * @return the streaming list
+     * @param <T> the static element type
+     */
+    public static <T> StreamingList<T> of(Stream<? extends T> stream, Class<T> elementClass) {
+        Objects.requireNonNull(stream, "stream");
+
+        return new StreamingList<>(stream.iterator(), elementClass, stream::close, DEFAULT_FLUSH_INTERVAL, Format.JSON_ARRAY);
+    }
+
+    /**
+     * Returns a copy of this streaming list which flushes the output after the specified number of elements. Note
+     * that the copy shares the underlying iterator with this object, so only one of them can be sent.
+     *
+     * @param flushInterval the number of elements after which the output is flushed
+     * @return the new streaming list
+     */
+    public StreamingList<T> withFlushInterval(int flushInterval) {
+        return new StreamingList<>(iterator, elementClass, closeAction, flushInterval, format);
+    }
+
+    /**
+     * Returns a copy of this streaming list which is sent as newline-delimited JSON. Note that the copy shares the
+     * underlying iterator with this object, so only one of them can be sent.
+     *
+     * @return the new streaming list
+     */
+    public StreamingList<T> asNdjson() {
+        return new StreamingList<>(iterator, elementClass, closeAction, flushInterval, Format.NDJSON);
+    }
+
+    /**
+     * Getter method for the iterator that produces the elements
+     *
+     * @return the iterator
+     */
+    public Iterator<? extends T> getIterator() {
+        return iterator;
+    }
+
+    /**
+     * Getter method for the element class
+     *
+     * @return the element class
+     */
+    public Class<T> getElementClass() {
+        return elementClass;
+    }
+
+    /**
+     * Getter method for the flush interval
+     *
+     * @return the number of elements after which the output is flushed
+     */
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Getter method for the format
+     *
+     * @return the format in which the elements are sent
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Releases the source of the elements, e.g. closes the stream this list was created from.
+     */
+    @Override
+    public void close() {
+        if (closeAction != null) {
+            closeAction.run();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response;
+
+import java.util.Objects;
+
+/**
+ * A handler can return this wrapper to tell the version of the data it responds with. The response then gets an ETag
+ * header derived from the version, and a GET or HEAD request whose If-None-Match header matches that ETag gets a 304
+ * (Not Modified) response instead -- without creating a response for the wrapped value at all. The handler still has
+ * to determine the version, but can defer loading and serializing the actual data by wrapping a {@link Response}
+ * that does so.
+ * <p>
+ * This wrapper is only recognized as the value returned by the handler, not when wrapped in another
+ * {@link ResponseValueWrapper}. Since it is a wrapper itself, it can still be used with response factories that do not
+ * know about it.
+ *
+ * @param value the wrapped response value
+ * @param version the version of the data, which must be different for different data. It becomes the opaque part of
+ *                the ETag, so it may only contain printable ASCII characters except double quotes.
+ */
+public record Versioned(Object value, String version) implements ResponseValueWrapper {
+
+    /**
+     * Constructor.
+     *
+     * @param value the wrapped response value
+     * @param version the version of the data
+     */
+    public Versioned {
+        Objects.requireNonNull(value, "value");
+        Objects.requireNonNull(version, "version");
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+            if (c <= 0x20 || c >= 0x7f || c == '"') {
+                throw new IllegalArgumentException("invalid character in version: " + version);
+            }
+        }
+    }
+
+    @Override
+    public Object getWrappedResponseValue() {
+        return value;
+    }
+
+}
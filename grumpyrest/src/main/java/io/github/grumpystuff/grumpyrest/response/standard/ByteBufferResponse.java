@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Sends the remaining contents of a {@link ByteBuffer}, supporting Range requests (see {@link RangeableResponse}).
+ * The buffer can be a heap buffer, a direct buffer or a memory-mapped file region; its contents are written directly
+ * without copying them into a new array first. Since the buffer is not copied, it must not be modified while the
+ * response is being sent; its position and limit are not affected.
+ * <p>
+ * Because a buffer can be sent any number of times, a single instance can be reused for all requests that send the
+ * same data, such as a static artifact.
+ */
+public final class ByteBufferResponse extends RangeableResponse {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor.
+     *
+     * @param buffer the buffer whose remaining contents shall be sent
+     * @param contentType the content type of the contents
+     */
+    public ByteBufferResponse(ByteBuffer buffer, String contentType) {
+        super(contentType);
+        this.buffer = Objects.requireNonNull(buffer, "buffer").slice();
+    }
+
+    @Override
+    protected long getContentLength() {
+        return buffer.limit();
+    }
+
+    @Override
+    protected void writeContent(OutputStream out, long start, long length) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + (int) start, (int) length);
+            return;
+        }
+        ByteBuffer region = buffer.slice((int) start, (int) length);
+        WritableByteChannel target = Channels.newChannel(out);
+        while (region.hasRemaining()) {
+            target.write(region);
+        }
+    }
+
+}
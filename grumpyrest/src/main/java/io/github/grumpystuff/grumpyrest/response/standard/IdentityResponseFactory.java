@@ -31,4 +31,9 @@ public final class IdentityResponseFactory implements ResponseFactory {
         return (value instanceof Response response) ? response : null;
     }
 
+    @Override
+    public boolean isClassDetermined() {
+        return true;
+    }
+
 }
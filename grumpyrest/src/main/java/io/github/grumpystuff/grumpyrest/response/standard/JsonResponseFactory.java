@@ -45,4 +45,9 @@ public final class JsonResponseFactory implements ResponseFactory {
         };
     }
 
+    @Override
+    public boolean isClassDetermined() {
+        return true;
+    }
+
 }
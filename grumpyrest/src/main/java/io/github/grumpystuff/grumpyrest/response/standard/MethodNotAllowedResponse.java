@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Sends {@link StandardErrorResponse#METHOD_NOT_ALLOWED} together with an <code>Allow</code> header that lists the
+ * methods supported for the requested path. The {@link io.github.grumpystuff.grumpyrest.RestApi} sends this response
+ * automatically when the request path matches a route, but only for other methods.
+ */
+public final class MethodNotAllowedResponse implements Response {
+
+    private final String allowedMethods;
+
+    /**
+     * Constructor.
+     *
+     * @param allowedMethods the value of the <code>Allow</code> header, e.g. "GET, HEAD, OPTIONS"
+     */
+    public MethodNotAllowedResponse(String allowedMethods) {
+        this.allowedMethods = Objects.requireNonNull(allowedMethods, "allowedMethods");
+    }
+
+    @Override
+    public void transmit(ResponseTransmitter responseTransmitter) throws IOException {
+        Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+        responseTransmitter.addCustomHeader("Allow", allowedMethods);
+        StandardErrorResponse.METHOD_NOT_ALLOWED.transmit(responseTransmitter);
+    }
+
+}
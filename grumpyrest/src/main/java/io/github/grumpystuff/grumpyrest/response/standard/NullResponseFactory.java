@@ -34,4 +34,9 @@ public final class NullResponseFactory implements ResponseFactory {
         }
     }
 
+    @Override
+    public boolean isClassDetermined() {
+        return true;
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+import java.util.Objects;
+
+/**
+ * Answers an OPTIONS request with an empty 204 response that lists the methods supported for the requested path in
+ * an <code>Allow</code> header. The {@link io.github.grumpystuff.grumpyrest.RestApi} sends this response
+ * automatically, based on its routes.
+ */
+public final class OptionsResponse implements Response {
+
+    private final String allowedMethods;
+
+    /**
+     * Constructor.
+     *
+     * @param allowedMethods the value of the <code>Allow</code> header, e.g. "GET, HEAD, OPTIONS"
+     */
+    public OptionsResponse(String allowedMethods) {
+        this.allowedMethods = Objects.requireNonNull(allowedMethods, "allowedMethods");
+    }
+
+    @Override
+    public void transmit(ResponseTransmitter responseTransmitter) {
+        Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+        responseTransmitter.setStatus(204);
+        responseTransmitter.addCustomHeader("Allow", allowedMethods);
+    }
+
+}
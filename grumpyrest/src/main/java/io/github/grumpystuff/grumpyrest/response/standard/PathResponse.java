@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * Sends the contents of a file, supporting Range requests (see {@link RangeableResponse}). The file is sent using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, so it is never loaded into memory as a whole, and
+ * the JDK can avoid intermediate copies where the target allows it. The response has a Last-Modified header, which
+ * also serves as the validator for If-Range.
+ * <p>
+ * The file must not change while being sent; if it gets shorter, the response ends early with an error.
+ */
+public final class PathResponse extends RangeableResponse {
+
+    private final Path path;
+    private long contentLength = -1;
+    private String lastModified;
+
+    /**
+     * Constructor.
+     *
+     * @param path the path of the file to send
+     * @param contentType the content type of the file
+     */
+    public PathResponse(Path path, String contentType) {
+        super(contentType);
+        this.path = Objects.requireNonNull(path, "path");
+    }
+
+    /**
+     * Getter method for the path of the file
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    protected long getContentLength() throws IOException {
+        if (contentLength < 0) {
+            contentLength = Files.size(path);
+        }
+        return contentLength;
+    }
+
+    @Override
+    protected String getValidator() throws IOException {
+        if (lastModified == null) {
+            lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    Files.getLastModifiedTime(path).toInstant().atOffset(ZoneOffset.UTC).withNano(0));
+        }
+        return lastModified;
+    }
+
+    @Override
+    protected void addHeaders(ResponseTransmitter responseTransmitter) throws IOException {
+        responseTransmitter.addCustomHeader("Last-Modified", getValidator());
+    }
+
+    @Override
+    protected void writeContent(OutputStream out, long start, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("file is shorter than expected: " + path);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.RequestCycle;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseFactory;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * Accepts {@link RangeableResponse} values and picks the response for the Range and If-Range headers of GET requests
+ * (see {@link RangeableResponse#forRange(String, String)}). This factory must be registered after the
+ * {@link IdentityResponseFactory} to take precedence over it.
+ */
+public final class RangeResponseFactory implements ResponseFactory {
+
+    /**
+     * Constructor.
+     */
+    public RangeResponseFactory() {
+    }
+
+    @Override
+    public Response createResponse(RequestCycle requestCycle, Object value) {
+        Objects.requireNonNull(requestCycle, "requestCycle");
+
+        if (!(value instanceof RangeableResponse response)) {
+            return null;
+        }
+        HttpServletRequest request = requestCycle.getServletRequest();
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return response;
+        }
+        try {
+            return response.forRange(request.getHeader("Range"), request.getHeader("If-Range"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isClassDetermined() {
+        return true;
+    }
+
+}
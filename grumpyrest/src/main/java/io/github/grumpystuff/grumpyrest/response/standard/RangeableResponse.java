@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Base class for responses that send a body of known size which the client can request in parts, using the HTTP
+ * Range header. Transmitting the response itself sends the whole body; {@link #forRange(String, String)} returns the
+ * response for a Range header, which is either a 206 (Partial Content) response, a 416 (Range Not Satisfiable)
+ * response, or this response if the range cannot be served. The {@link RangeResponseFactory} calls that method for
+ * GET requests.
+ * <p>
+ * Only single ranges are supported. Requests for multiple ranges get the whole body, which HTTP allows.
+ * <p>
+ * For HEAD requests, only the headers are sent, and {@link #writeContent(OutputStream, long, long)} is not called.
+ */
+public abstract class RangeableResponse implements Response {
+
+    private final String contentType;
+
+    /**
+     * Constructor.
+     *
+     * @param contentType the content type of the body
+     */
+    protected RangeableResponse(String contentType) {
+        this.contentType = Objects.requireNonNull(contentType, "contentType");
+    }
+
+    /**
+     * Getter method for the content type
+     *
+     * @return the content type
+     */
+    public final String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the size of the whole body.
+     *
+     * @return the size in bytes
+     * @throws IOException on I/O errors
+     */
+    protected abstract long getContentLength() throws IOException;
+
+    /**
+     * Returns the validator that an If-Range header must match for the Range header to be used, or null if this
+     * response does not have a validator. In the latter case, requests with an If-Range header get the whole body.
+     * <p>
+     * The default implementation returns null.
+     *
+     * @return the validator, i.e. the value of the ETag or Last-Modified header sent with this response
+     * @throws IOException on I/O errors
+     */
+    protected String getValidator() throws IOException {
+        return null;
+    }
+
+    /**
+     * Adds headers other than Content-Type, Content-Length and Content-Range, such as Last-Modified.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param responseTransmitter the response transmitter
+     * @throws IOException on I/O errors
+     */
+    protected void addHeaders(ResponseTransmitter responseTransmitter) throws IOException {
+    }
+
+    /**
+     * Writes a part of the body.
+     *
+     * @param out the stream to write to
+     * @param start the index of the first byte to write
+     * @param length the number of bytes to write
+     * @throws IOException on I/O errors
+     */
+    protected abstract void writeContent(OutputStream out, long start, long length) throws IOException;
+
+    @Override
+    public void transmit(ResponseTransmitter responseTransmitter) throws IOException {
+        Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+        long length = getContentLength();
+        responseTransmitter.setStatus(200);
+        responseTransmitter.setContentType(contentType);
+        responseTransmitter.addCustomHeader("Accept-Ranges", "bytes");
+        addHeaders(responseTransmitter);
+        responseTransmitter.setContentLength(length);
+        if (!responseTransmitter.isBodySuppressed()) {
+            writeContent(responseTransmitter.getOutputStream(), 0, length);
+        }
+    }
+
+    /**
+     * Returns the response to send for the specified Range and If-Range headers.
+     *
+     * @param range the value of the Range header, or null if absent
+     * @param ifRange the value of the If-Range header, or null if absent
+     * @return the response
+     * @throws IOException on I/O errors
+     */
+    public Response forRange(String range, String ifRange) throws IOException {
+        if (range == null || (ifRange != null && !ifRange.equals(getValidator()))) {
+            return this;
+        }
+        range = range.trim();
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return this;
+        }
+        int dash = range.indexOf('-');
+        if (dash < 0) {
+            return this;
+        }
+        long length = getContentLength();
+        long first;
+        long last;
+        try {
+            String firstText = range.substring(6, dash).trim();
+            String lastText = range.substring(dash + 1).trim();
+            if (firstText.isEmpty()) {
+                // suffix range: the last n bytes
+                long suffixLength = Long.parseLong(lastText);
+                if (suffixLength < 0) {
+                    return this;
+                }
+                if (suffixLength == 0 || length == 0) {
+                    return new RangeNotSatisfiable(length);
+                }
+                first = Math.max(0, length - suffixLength);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(firstText);
+                last = lastText.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastText);
+                if (first < 0 || last < first) {
+                    return this;
+                }
+                if (first >= length) {
+                    return new RangeNotSatisfiable(length);
+                }
+                last = Math.min(last, length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return this;
+        }
+        return new PartialContent(first, last, length);
+    }
+
+    private final class PartialContent implements Response {
+
+        private final long first;
+        private final long last;
+        private final long completeLength;
+
+        PartialContent(long first, long last, long completeLength) {
+            this.first = first;
+            this.last = last;
+            this.completeLength = completeLength;
+        }
+
+        @Override
+        public void transmit(ResponseTransmitter responseTransmitter) throws IOException {
+            Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+            long length = last - first + 1;
+            responseTransmitter.setStatus(206);
+            responseTransmitter.setContentType(contentType);
+            responseTransmitter.addCustomHeader("Accept-Ranges", "bytes");
+            responseTransmitter.addCustomHeader("Content-Range", "bytes " + first + "-" + last + "/" + completeLength);
+            addHeaders(responseTransmitter);
+            responseTransmitter.setContentLength(length);
+            if (!responseTransmitter.isBodySuppressed()) {
+                writeContent(responseTransmitter.getOutputStream(), first, length);
+            }
+        }
+
+    }
+
+    private record RangeNotSatisfiable(long completeLength) implements Response {
+
+        @Override
+        public void transmit(ResponseTransmitter responseTransmitter) {
+            Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+            responseTransmitter.setStatus(416);
+            responseTransmitter.addCustomHeader("Content-Range", "bytes */" + completeLength);
+        }
+
+    }
+
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyrest.response.AsyncResponseChannel;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseTransmitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends server-sent events (content type text/event-stream) to the client. A handler returns this response, then
+ * keeps a reference to it and calls {@link #send(Object)} from any thread to push events, until either side ends the
+ * stream. The data of each event is converted to JSON using the JSON engine of the REST API.
+ * <p>
+ * The response keeps the connection open using asynchronous servlet mode, so no thread is blocked between events.
+ * Events are written by threads of the servlet container. To limit the memory used for slow clients, at most
+ * a fixed number of events can be waiting to be written; beyond that, {@link #send(Object)} rejects events by
+ * returning false, and the caller can decide whether to drop them, retry later, or {@link #close()} the stream.
+ * <p>
+ * If no event has been sent for the heartbeat interval, a comment line is sent instead. This keeps proxies from
+ * closing the idle connection and detects clients that have disconnected without the container noticing. When the
+ * client disconnects, the stream is closed and the listeners registered with {@link #onClose(Runnable)} are called.
+ * <p>
+ * Events sent before the response has been transmitted are kept until then. If the response cannot keep the
+ * connection open (see {@link ResponseTransmitter#startAsync()}), it is closed right after sending the headers. This
+ * always happens for HEAD requests and for routes whose responses are buffered for ETags or caching. Handlers that
+ * return this response through a {@link java.util.concurrent.CompletionStage} are subject to the async timeout of the
+ * REST API, so they should return it directly instead.
+ * <p>
+ * A server-sent events response can only be transmitted once.
+ */
+public final class ServerSentEventsResponse implements Response {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerSentEventsResponse.class);
+
+    /**
+     * The default maximum number of events that can be waiting to be written.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /**
+     * The default heartbeat interval.
+     */
+    public static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private record Event(String name, String id, Object data) {
+    }
+
+    private final int queueCapacity;
+    private final long heartbeatIntervalMillis;
+
+    // all fields below are guarded by "this"
+    private final ArrayDeque<Event> queue = new ArrayDeque<>();
+    private final List<Runnable> closeListeners = new ArrayList<>();
+    private boolean transmitted;
+    private AsyncResponseChannel channel;
+    private boolean writing;
+    private boolean closing;
+    private boolean finished;
+    private boolean heartbeatDue;
+    private boolean sentSinceHeartbeat;
+
+    /**
+     * Constructor with default settings.
+     */
+    public ServerSentEventsResponse() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_HEARTBEAT_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param queueCapacity the maximum number of events that can be waiting to be written
+     * @param heartbeatInterval the time without events after which a heartbeat is sent, or {@link Duration#ZERO} to
+     *                          disable heartbeats
+     */
+    public ServerSentEventsResponse(int queueCapacity, Duration heartbeatInterval) {
+        Objects.requireNonNull(heartbeatInterval, "heartbeatInterval");
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        if (heartbeatInterval.isNegative()) {
+            throw new IllegalArgumentException("heartbeatInterval cannot be negative");
+        }
+
+        this.queueCapacity = queueCapacity;
+        this.heartbeatIntervalMillis = heartbeatInterval.toMillis();
+    }
+
+    /**
+     * Sends an event without a name, which the client receives as a "message" event.
+     *
+     * @param data the event data, to be converted to JSON
+     * @return true if the event has been accepted, false if the queue is full or the stream has been closed
+     */
+    public boolean send(Object data) {
+        return send(null, null, data);
+    }
+
+    /**
+     * Sends a named event.
+     *
+     * @param name the event name, or null for a "message" event
+     * @param data the event data, to be converted to JSON
+     * @return true if the event has been accepted, false if the queue is full or the stream has been closed
+     */
+    public boolean send(String name, Object data) {
+        return send(name, null, data);
+    }
+
+    /**
+     * Sends a named event with an ID, which the client sends back in the Last-Event-ID header when it reconnects.
+     *
+     * @param name the event name, or null for a "message" event
+     * @param id the event ID, or null to send no ID
+     * @param data the event data, to be converted to JSON
+     * @return true if the event has been accepted, false if the queue is full or the stream has been closed
+     */
+    public boolean send(String name, String id, Object data) {
+        Objects.requireNonNull(data, "data");
+        checkField(name, "name");
+        checkField(id, "id");
+
+        synchronized (this) {
+            if (closing || queue.size() >= queueCapacity) {
+                return false;
+            }
+            queue.add(new Event(name, id, data));
+        }
+        scheduleWriting();
+        return true;
+    }
+
+    private static void checkField(String value, String what) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+            throw new IllegalArgumentException("event " + what + " cannot contain line breaks");
+        }
+    }
+
+    /**
+     * Adds a listener that gets called once the stream has been closed, either by {@link #close()}, because the
+     * client has disconnected, or because the response could not keep the connection open. If the stream has already
+     * been closed, the listener is called immediately. The listener is called in an unspecified thread.
+     *
+     * @param listener the listener to add
+     */
+    public void onClose(Runnable listener) {
+        Objects.requireNonNull(listener, "listener");
+
+        synchronized (this) {
+            if (!finished) {
+                closeListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Closes the stream after the events that are waiting have been written. Events sent afterwards are rejected.
+     */
+    public void close() {
+        boolean closeNow;
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            closeNow = channel != null && !writing && queue.isEmpty();
+        }
+        if (closeNow) {
+            finish();
+        }
+    }
+
+    /**
+     * Checks whether the stream is still open, i.e. whether it would accept events (if the queue isn't full).
+     *
+     * @return true if open, false if closed or closing
+     */
+    public synchronized boolean isOpen() {
+        return !closing;
+    }
+
+    @Override
+    public void transmit(ResponseTransmitter responseTransmitter) throws IOException {
+        Objects.requireNonNull(responseTransmitter, "responseTransmitter");
+
+        synchronized (this) {
+            if (transmitted) {
+                throw new IllegalStateException("this response has already been transmitted");
+            }
+            transmitted = true;
+        }
+        responseTransmitter.setStatus(200);
+        responseTransmitter.setContentType("text/event-stream");
+        responseTransmitter.addCustomHeader("Cache-Control", "no-cache");
+        // keeps reverse proxies such as nginx from buffering the events
+        responseTransmitter.addCustomHeader("X-Accel-Buffering", "no");
+        AsyncResponseChannel channel = responseTransmitter.startAsync();
+        if (channel == null) {
+            finish();
+            return;
+        }
+        channel.setDisconnectListener(this::finish);
+
+        // send the headers right away, so the client knows that the stream has started
+        try {
+            channel.getOutputStream().flush();
+        } catch (IOException e) {
+            synchronized (this) {
+                this.channel = channel;
+            }
+            finish();
+            throw e;
+        }
+        boolean closeNow;
+        synchronized (this) {
+            this.channel = channel;
+            closeNow = closing && queue.isEmpty();
+        }
+        if (closeNow) {
+            finish();
+            return;
+        }
+        scheduleWriting();
+        scheduleHeartbeat();
+    }
+
+    private void scheduleWriting() {
+        AsyncResponseChannel writingChannel;
+        synchronized (this) {
+            if (channel == null || writing || finished || (queue.isEmpty() && !heartbeatDue)) {
+                return;
+            }
+            writing = true;
+            writingChannel = channel;
+        }
+        try {
+            writingChannel.execute(() -> write(writingChannel));
+        } catch (RuntimeException e) {
+            LOGGER.error("could not start writing server-sent events", e);
+            finish();
+        }
+    }
+
+    private void write(AsyncResponseChannel channel) {
+        OutputStream out = channel.getOutputStream();
+        boolean closeNow;
+        try {
+            while (true) {
+                Event event;
+                boolean flush;
+                synchronized (this) {
+                    event = finished ? null : queue.poll();
+                    if (event == null && !(heartbeatDue && !finished)) {
+                        // Events sent from now on start a new writer. This check and the poll above happen atomically,
+                        // so no event gets lost in between.
+                        writing = false;
+                        closeNow = closing && !finished;
+                        break;
+                    }
+                    heartbeatDue = false;
+                    sentSinceHeartbeat = true;
+                    // flush only once the queue runs empty, to send bursts of events together
+                    flush = queue.isEmpty();
+                }
+                if (event == null) {
+                    out.write(HEARTBEAT);
+                } else {
+                    writeEvent(channel, out, event);
+                }
+                if (flush) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // typically the client has disconnected
+            finish();
+            return;
+        }
+        if (closeNow) {
+            finish();
+        }
+    }
+
+    private static void writeEvent(AsyncResponseChannel channel, OutputStream out, Event event) throws IOException {
+        String json;
+        try {
+            json = channel.toJson(event.data());
+        } catch (RuntimeException e) {
+            LOGGER.error("could not convert server-sent event to JSON, skipping it", e);
+            return;
+        }
+        StringBuilder builder = new StringBuilder(json.length() + 32);
+        if (event.name() != null) {
+            builder.append("event: ").append(event.name()).append('\n');
+        }
+        if (event.id() != null) {
+            builder.append("id: ").append(event.id()).append('\n');
+        }
+        // JSON is usually a single line, but a pretty-printing JSON engine may produce multiple lines
+        for (String line : json.split("\r\n|\r|\n", -1)) {
+            builder.append("data: ").append(line).append('\n');
+        }
+        builder.append('\n');
+        out.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void scheduleHeartbeat() {
+        if (heartbeatIntervalMillis == 0) {
+            return;
+        }
+        CompletableFuture.delayedExecutor(heartbeatIntervalMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (!sentSinceHeartbeat) {
+                    heartbeatDue = true;
+                }
+                sentSinceHeartbeat = false;
+            }
+            scheduleWriting();
+            scheduleHeartbeat();
+        });
+    }
+
+    private void finish() {
+        AsyncResponseChannel channel;
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            closing = true;
+            finished = true;
+            queue.clear();
+            channel = this.channel;
+            listeners = new ArrayList<>(closeListeners);
+            closeListeners.clear();
+        }
+        if (channel != null) {
+            channel.complete();
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("exception in close listener of server-sent events response", e);
+            }
+        }
+    }
+
+}
@@ -23,6 +23,10 @@ import java.util.Objects;
  * field path and message. This allows to send a response that mentions errors in multiple fields at the same time.
  * If, for example, JSON validation fails for the request body, then the individual field errors can be mentioned
  * to the client all at once.
+ * <p>
+ * The constants defined in this class are serialized only once per {@link io.github.grumpystuff.grumpyrest.RestApi},
+ * and so can other instances that are registered with
+ * {@link io.github.grumpystuff.grumpyrest.RestApi#registerPreEncodedResponse(StandardErrorResponse)}.
  *
  * @param status  the HTTP status
  * @param message the error message
@@ -61,12 +65,29 @@ public record StandardErrorResponse(int status, String message, List<Field> fiel
      */
     public static final StandardErrorResponse ID_NOT_FOUND = new StandardErrorResponse(404, "ID not found");
 
+    /**
+     * This response indicates that routes are known for the requested URL, but not for the request method. It is
+     * normally sent through {@link MethodNotAllowedResponse}, which adds the required <code>Allow</code> header.
+     */
+    public static final StandardErrorResponse METHOD_NOT_ALLOWED = new StandardErrorResponse(405, "method not allowed");
+
     /**
      * Most endpoints expect a JSON request body (if they expect a request body at all), so here is a standard
      * response for other request content types.
      */
     public static final StandardErrorResponse JSON_EXPECTED = new StandardErrorResponse(415, "expected application/json content type");
 
+    /**
+     * Standard response for endpoints that expect a newline-delimited JSON request body (see
+     * {@link io.github.grumpystuff.grumpyrest.request.Request#parseBodyLines(java.lang.reflect.Type)}) but got another content type.
+     */
+    public static final StandardErrorResponse NDJSON_EXPECTED = new StandardErrorResponse(415, "expected application/x-ndjson content type");
+
+    /**
+     * This response is sent when an asynchronous handler did not complete within the configured timeout.
+     */
+    public static final StandardErrorResponse TIMEOUT = new StandardErrorResponse(503, "request timed out");
+
     /**
      * The standard response for "something went wrong in the server", usually an uncaught exception.
      */
@@ -75,6 +96,10 @@ public record StandardErrorResponse(int status, String message, List<Field> fiel
     /**
      * This is an error response for failed request body validation. The error lists the fields that failed
      * validation and their error messages.
+     * <p>
+     * To limit the size of this response for inputs with many errors, set
+     * {@link io.github.grumpystuff.grumpyjson.deserialize.DeserializationOptions} on the JSON engine. The list of
+     * errors then ends early, and contains an extra error to indicate that.
      *
      * @param e the exception from the failed validation
      * @return the instance of this class
@@ -144,7 +169,9 @@ public record StandardErrorResponse(int status, String message, List<Field> fiel
 
         responseTransmitter.setStatus(status);
         responseTransmitter.setContentType("application/json");
-        responseTransmitter.writeJson(new Body(message, fields));
+        if (!responseTransmitter.writePreEncodedJson(this)) {
+            responseTransmitter.writeJson(new Body(message, fields));
+        }
     }
 
     /**
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response.standard;
+
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyrest.RequestCycle;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.ResponseFactory;
+import io.github.grumpystuff.grumpyrest.response.StreamingList;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Sends a {@link StreamingList} as a JSON array or as newline-delimited JSON, converting and writing one element at
+ * a time.
+ */
+public final class StreamingListResponseFactory implements ResponseFactory {
+
+    /**
+     * Constructor.
+     */
+    public StreamingListResponseFactory() {
+    }
+
+    @Override
+    public Response createResponse(RequestCycle requestCycle, Object value) {
+        Objects.requireNonNull(requestCycle, "requestCycle");
+
+        if (!(value instanceof StreamingList<?> list)) {
+            return null;
+        }
+        JsonEngine jsonEngine = requestCycle.getApi().getJsonEngine();
+        if (!jsonEngine.supportsClassForSerialization(list.getElementClass())) {
+            // fail before the response has been started, so the client gets a proper error response
+            list.close();
+            throw new IllegalArgumentException("element class not supported for JSON serialization: " + list.getElementClass());
+        }
+        boolean ndjson = list.getFormat() == StreamingList.Format.NDJSON;
+        return responseTransmitter -> {
+            try (list) {
+                responseTransmitter.setStatus(200);
+                responseTransmitter.setContentType(ndjson ? "application/x-ndjson" : "application/json");
+                if (responseTransmitter.isBodySuppressed()) {
+                    return;
+                }
+
+                // The writer is not closed, only flushed, because closing it would close the servlet output stream.
+                Writer writer = new OutputStreamWriter(responseTransmitter.getOutputStream(), StandardCharsets.UTF_8);
+                if (!ndjson) {
+                    writer.write('[');
+                }
+                Iterator<?> iterator = list.getIterator();
+                int count = 0;
+                while (iterator.hasNext()) {
+                    if (count > 0 && !ndjson) {
+                        writer.write(',');
+                    }
+                    jsonEngine.writeTo(iterator.next(), writer);
+                    if (ndjson) {
+                        writer.write('\n');
+                    }
+                    count++;
+                    if (count % list.getFlushInterval() == 0) {
+                        writer.flush();
+                    }
+                }
+                if (!ndjson) {
+                    writer.write(']');
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    @Override
+    public boolean isClassDetermined() {
+        return true;
+    }
+
+}
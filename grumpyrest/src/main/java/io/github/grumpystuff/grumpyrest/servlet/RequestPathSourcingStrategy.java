@@ -22,7 +22,7 @@ public enum RequestPathSourcingStrategy {
         public String getPath(HttpServletRequest request) {
             Objects.requireNonNull(request, "request");
 
-            return handleResult(mergeParts(mergeParts(getContextPath(request), getServletPath(request)), getPathInfo(request)));
+            return concatenate(request.getContextPath(), request.getServletPath(), request.getPathInfo());
         }
     },
 
@@ -34,7 +34,7 @@ public enum RequestPathSourcingStrategy {
         public String getPath(HttpServletRequest request) {
             Objects.requireNonNull(request, "request");
 
-            return handleResult(mergeParts(getServletPath(request), getPathInfo(request)));
+            return concatenate(null, request.getServletPath(), request.getPathInfo());
         }
     },
 
@@ -46,7 +46,8 @@ public enum RequestPathSourcingStrategy {
         public String getPath(HttpServletRequest request) {
             Objects.requireNonNull(request, "request");
 
-            return handleResult(getPathInfo(request));
+            String pathInfo = request.getPathInfo();
+            return pathInfo == null ? "" : PathUtil.trimSlashes(pathInfo);
         }
     };
 
@@ -58,38 +59,32 @@ public enum RequestPathSourcingStrategy {
      */
     public abstract String getPath(HttpServletRequest request);
 
-    private static String getContextPath(HttpServletRequest request) {
-        Objects.requireNonNull(request, "request");
-
-        return preparePart(request.getContextPath());
-    }
-
-    private static String getServletPath(HttpServletRequest request) {
-        Objects.requireNonNull(request, "request");
-
-        return preparePart(request.getServletPath());
+    // concatenates the non-empty parts with single slashes, trimming slashes from each part
+    private static String concatenate(String first, String second, String third) {
+        StringBuilder builder = new StringBuilder(length(first) + length(second) + length(third) + 2);
+        appendPart(builder, first);
+        appendPart(builder, second);
+        appendPart(builder, third);
+        return builder.toString();
     }
 
-    private static String getPathInfo(HttpServletRequest request) {
-        Objects.requireNonNull(request, "request");
-
-        return preparePart(request.getPathInfo());
+    private static int length(String part) {
+        return part == null ? 0 : part.length();
     }
 
-    private static String preparePart(String part) {
+    private static void appendPart(StringBuilder builder, String part) {
         if (part == null) {
-            return null;
+            return;
         }
-        part = PathUtil.trimSlashes(part);
-        return part.isEmpty() ? null : part;
-    }
-
-    private static String mergeParts(String a, String b) {
-        return a == null ? b : b == null ? a : (a + '/' + b);
-    }
-
-    private static String handleResult(String result) {
-        return result == null ? "" : result;
+        int start = PathUtil.getTrimmedStart(part);
+        int end = PathUtil.getTrimmedEnd(part, start);
+        if (start == end) {
+            return;
+        }
+        if (!builder.isEmpty()) {
+            builder.append('/');
+        }
+        builder.append(part, start, end);
     }
 
 }
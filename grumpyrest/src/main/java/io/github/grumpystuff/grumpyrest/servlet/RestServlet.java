@@ -43,32 +43,31 @@ public class RestServlet extends HttpServlet {
         this.requestPathSourcingStrategy = requestPathSourcingStrategy;
     }
 
-    @Override
-    protected void doGet(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
-        Objects.requireNonNull(servletRequest, "servletRequest");
-        Objects.requireNonNull(servletResponse, "servletResponse");
-
-        api.handle(new RequestCycle(api, servletRequest, servletResponse, requestPathSourcingStrategy));
-    }
-
-    @Override
-    protected void doPut(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
-        Objects.requireNonNull(servletRequest, "servletRequest");
-        Objects.requireNonNull(servletResponse, "servletResponse");
-
-        api.handle(new RequestCycle(api, servletRequest, servletResponse, requestPathSourcingStrategy));
+    /**
+     * Getter method for the API definition
+     *
+     * @return the API
+     */
+    protected final RestApi getApi() {
+        return api;
     }
 
-    @Override
-    protected void doPost(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
-        Objects.requireNonNull(servletRequest, "servletRequest");
-        Objects.requireNonNull(servletResponse, "servletResponse");
-
-        api.handle(new RequestCycle(api, servletRequest, servletResponse, requestPathSourcingStrategy));
+    /**
+     * Getter method for the strategy used to determine the request path
+     *
+     * @return the request path sourcing strategy
+     */
+    protected final RequestPathSourcingStrategy getRequestPathSourcingStrategy() {
+        return requestPathSourcingStrategy;
     }
 
+    /**
+     * Handles all requests through the {@link RestApi}, independent of the HTTP method. In particular, HEAD and OPTIONS
+     * requests are not handled by the default implementations of {@link HttpServlet}, but by the API, based on its
+     * routes.
+     */
     @Override
-    protected void doDelete(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+    protected void service(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
         Objects.requireNonNull(servletRequest, "servletRequest");
         Objects.requireNonNull(servletResponse, "servletResponse");
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.servlet;
+
+import io.github.grumpystuff.grumpyrest.RequestCycle;
+import io.github.grumpystuff.grumpyrest.RestApi;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link RestServlet} that runs the {@link RestApi} in threads from an application-supplied {@link Executor} instead
+ * of the container's threads, using async servlet mode to hand requests over. On JDK 21 and later, the executor from
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} gives each request its own virtual thread, so handlers that
+ * block on I/O do not tie up the container's thread pool. On older JDKs, a bounded pool of platform threads works
+ * the same way but does not scale as well.
+ * <p>
+ * The number of requests handled concurrently in these threads is limited. Requests above that limit are handled
+ * in the container thread as {@link RestServlet} would do, which slows down accepting new requests and so applies
+ * back-pressure. The same happens if the servlet has not been registered with async support. A request counts
+ * towards the limit until the {@link RestApi} has finished it, including asynchronous work such as a handler's
+ * {@link java.util.concurrent.CompletionStage}.
+ */
+public class VirtualThreadRestServlet extends RestServlet {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadRestServlet.class);
+
+    /**
+     * needs javadoc because this class is {@link java.io.Serializable}
+     */
+    private final transient Semaphore permits;
+
+    /**
+     * needs javadoc because this class is {@link java.io.Serializable}
+     */
+    private final transient Executor executor;
+
+    /**
+     * Constructor.
+     * <p>
+     * The executor is owned by the caller: this servlet does not shut it down when it gets destroyed. If the
+     * executor rejects a request, for example because it has been shut down, the request is handled in the container
+     * thread.
+     *
+     * @param api                         the API definition
+     * @param requestPathSourcingStrategy how to determine the request path from the servlet request object
+     * @param executor                    the executor that runs the handlers
+     * @param maxConcurrency              the maximum number of requests to handle concurrently in separate threads
+     */
+    public VirtualThreadRestServlet(RestApi api, RequestPathSourcingStrategy requestPathSourcingStrategy,
+                                    Executor executor, int maxConcurrency) {
+        super(api, requestPathSourcingStrategy);
+        Objects.requireNonNull(executor, "executor");
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = executor;
+    }
+
+    @Override
+    protected void service(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+        Objects.requireNonNull(servletRequest, "servletRequest");
+        Objects.requireNonNull(servletResponse, "servletResponse");
+
+        if (!servletRequest.isAsyncSupported() || !permits.tryAcquire()) {
+            super.service(servletRequest, servletResponse);
+            return;
+        }
+        Permit permit = new Permit();
+        AsyncContext asyncContext;
+        try {
+            asyncContext = servletRequest.startAsync();
+
+            // handler timeouts are implemented by the RestApi
+            asyncContext.setTimeout(0);
+
+            // the RestApi cannot add listeners to an async context it has not started, so we watch for errors here
+            asyncContext.addListener(permit);
+
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        try {
+            executor.execute(() -> handleAndComplete(servletRequest, servletResponse, asyncContext, permit));
+        } catch (RejectedExecutionException e) {
+            // happens after the executor has been shut down -- just use the container thread
+            handleAndComplete(servletRequest, servletResponse, asyncContext, permit);
+        }
+    }
+
+    private void handleAndComplete(HttpServletRequest servletRequest, HttpServletResponse servletResponse,
+                                   AsyncContext asyncContext, Permit permit) {
+        RequestCycle requestCycle = null;
+        try {
+            requestCycle = new RequestCycle(getApi(), servletRequest, servletResponse, getRequestPathSourcingStrategy());
+
+            // asynchronous handling (a CompletionStage or a request body that is read asynchronously) still counts
+            // towards the limit, so the permit is released when the RestApi has finished the request
+            requestCycle.setFinishListener(permit::release);
+
+            getApi().handle(requestCycle);
+        } catch (RuntimeException e) {
+            LOGGER.error("exception during request handling", e);
+        } finally {
+            if (requestCycle == null || !requestCycle.isCompletionDeferred()) {
+                asyncContext.complete();
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * The permit of a single request. It gets released when the RestApi has finished the request, or when the
+     * async context has ended, whichever happens first -- the latter covers errors such as client disconnects that
+     * the RestApi does not see.
+     */
+    private final class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of byte arrays of a fixed size, to avoid allocating a new buffer for each request. The pool only keeps a
+ * limited number of idle buffers; buffers that are released while the pool is full are left to the garbage
+ * collector. If the pool is empty, a new buffer is allocated.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class BufferPool {
+
+    private final int bufferSize;
+    private final int maxIdleBuffers;
+    private final ConcurrentLinkedQueue<byte[]> idleBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleBufferCount = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param bufferSize the size of each buffer
+     * @param maxIdleBuffers the maximum number of idle buffers kept in the pool
+     */
+    public BufferPool(int bufferSize, int maxIdleBuffers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        if (maxIdleBuffers < 0) {
+            throw new IllegalArgumentException("maxIdleBuffers cannot be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.maxIdleBuffers = maxIdleBuffers;
+    }
+
+    /**
+     * Getter method for the size of the buffers in this pool
+     *
+     * @return the buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates a new one if the pool is empty. The contents of the buffer are
+     * undefined.
+     *
+     * @return the buffer
+     */
+    public byte[] acquire() {
+        byte[] buffer = idleBuffers.poll();
+        if (buffer == null) {
+            return new byte[bufferSize];
+        }
+        idleBufferCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer anymore after calling this method.
+     *
+     * @param buffer the buffer, which must have been acquired from this pool
+     */
+    public void release(byte[] buffer) {
+        if (buffer.length != bufferSize) {
+            throw new IllegalArgumentException("buffer does not belong to this pool");
+        }
+        if (idleBufferCount.incrementAndGet() <= maxIdleBuffers) {
+            idleBuffers.offer(buffer);
+        } else {
+            idleBufferCount.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of {@link Deflater} instances with the same settings. Creating a deflater allocates native memory which is
+ * only freed when the deflater is ended or garbage-collected, so reusing deflaters across responses is considerably
+ * cheaper than creating a new one each time. The pool only keeps a limited number of idle deflaters; deflaters that
+ * are released while the pool is full get ended.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class DeflaterPool {
+
+    private final int level;
+    private final boolean nowrap;
+    private final int maxIdleDeflaters;
+    private final ConcurrentLinkedQueue<Deflater> idleDeflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleDeflaterCount = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param level the compression level (see {@link Deflater#Deflater(int, boolean)})
+     * @param nowrap true to produce raw deflate data without the zlib header and checksum, as needed for gzip
+     * @param maxIdleDeflaters the maximum number of idle deflaters kept in the pool
+     */
+    public DeflaterPool(int level, boolean nowrap, int maxIdleDeflaters) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+        if (maxIdleDeflaters < 0) {
+            throw new IllegalArgumentException("maxIdleDeflaters cannot be negative");
+        }
+
+        this.level = level;
+        this.nowrap = nowrap;
+        this.maxIdleDeflaters = maxIdleDeflaters;
+    }
+
+    /**
+     * Takes a deflater from the pool, or creates a new one if the pool is empty. The deflater is ready to compress a
+     * new stream.
+     *
+     * @return the deflater
+     */
+    public Deflater acquire() {
+        Deflater deflater = idleDeflaters.poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+        idleDeflaterCount.decrementAndGet();
+        return deflater;
+    }
+
+    /**
+     * Returns a deflater to the pool. The caller must not use the deflater anymore after calling this method. The
+     * deflater does not have to be finished; it gets reset here.
+     *
+     * @param deflater the deflater, which must have been acquired from this pool
+     */
+    public void release(Deflater deflater) {
+        if (idleDeflaterCount.incrementAndGet() <= maxIdleDeflaters) {
+            deflater.reset();
+            idleDeflaters.offer(deflater);
+        } else {
+            idleDeflaterCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+}
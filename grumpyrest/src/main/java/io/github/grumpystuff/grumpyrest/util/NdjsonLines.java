@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.StructuralJsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Deserializes newline-delimited JSON (NDJSON / JSON Lines) one line at a time. Blank lines are skipped. Errors are
+ * reported as a {@link FinishRequestException} when the offending line is reached, with the index of the element
+ * (counting non-blank lines only) as the first element of the field path, like for a JSON array.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class NdjsonLines {
+
+    // prevent instantiation
+    private NdjsonLines() {
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param jsonEngine ...
+     * @param source ...
+     * @param type ...
+     * @return ...
+     */
+    public static Iterator<Object> parse(JsonEngine jsonEngine, Reader source, Type type) {
+        Objects.requireNonNull(jsonEngine, "jsonEngine");
+        Objects.requireNonNull(source, "source");
+        Objects.requireNonNull(type, "type");
+
+        BufferedReader reader = (source instanceof BufferedReader b) ? b : new BufferedReader(source);
+        return new Iterator<>() {
+
+            private String nextLine;
+            private boolean finished;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (nextLine == null && !finished) {
+                    String line;
+                    try {
+                        line = reader.readLine();
+                    } catch (IOException e) {
+                        throw new FinishRequestException(StandardErrorResponse.IO_ERROR, false);
+                    }
+                    if (line == null) {
+                        finished = true;
+                    } else if (!line.isBlank()) {
+                        nextLine = line;
+                    }
+                }
+                return nextLine != null;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = null;
+                try {
+                    return jsonEngine.deserialize(line, type);
+                } catch (JsonDeserializationException e) {
+                    throw lineFailed(e, index);
+                } finally {
+                    index++;
+                }
+            }
+
+        };
+    }
+
+    /**
+     * NOT PUBLIC API
+     *
+     * @param jsonEngine ...
+     * @param elements ...
+     * @param type ...
+     * @return ...
+     */
+    public static Iterator<Object> deserialize(StructuralJsonEngine jsonEngine, List<JsonElement> elements, Type type) {
+        Objects.requireNonNull(jsonEngine, "jsonEngine");
+        Objects.requireNonNull(elements, "elements");
+        Objects.requireNonNull(type, "type");
+
+        Iterator<JsonElement> iterator = elements.iterator();
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                JsonElement element = iterator.next();
+                try {
+                    return jsonEngine.deserialize(element, type);
+                } catch (JsonDeserializationException e) {
+                    throw lineFailed(e, index);
+                } finally {
+                    index++;
+                }
+            }
+
+        };
+    }
+
+    private static FinishRequestException lineFailed(JsonDeserializationException e, int index) {
+        return new FinishRequestException(StandardErrorResponse.requestBodyValidationFailed(
+                e.getFieldErrorNode().in(Integer.toString(index))
+        ), false);
+    }
+
+}
@@ -1,5 +1,6 @@
 package io.github.grumpystuff.grumpyrest.util;
 
+import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringDecoder;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParser;
 import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParsingException;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParser;
@@ -31,6 +32,19 @@ public class NullReturnCheckingCalls {
         return Objects.requireNonNull(querystringParser.parse(querystring, type), "querystring parser returned null");
     }
 
+    /**
+     * NOT PUBLIC API
+     *
+     * @param querystringParser ...
+     * @param querystring ...
+     * @param type ...
+     * @return ...
+     * @throws QuerystringParsingException ...
+     */
+    public static Object parse(QuerystringParser querystringParser, QuerystringDecoder querystring, Type type) throws QuerystringParsingException {
+        return Objects.requireNonNull(querystringParser.parse(querystring, type), "querystring parser returned null");
+    }
+
     /**
      * NOT PUBLIC API
      *
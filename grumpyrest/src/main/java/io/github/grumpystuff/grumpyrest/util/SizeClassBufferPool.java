@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+/**
+ * A pool of byte arrays in several sizes, each twice as large as the previous one. A buffer of at least the
+ * requested capacity is taken from the smallest suitable size class. Each size class is a {@link BufferPool}.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class SizeClassBufferPool {
+
+    private final BufferPool[] sizeClasses;
+
+    /**
+     * Constructor.
+     *
+     * @param minimumSize the size of the smallest buffers
+     * @param maximumSize the minimum size of the largest buffers. The actual size is the smallest size class
+     *                    that is at least this large.
+     * @param maxIdleBuffersPerSizeClass the maximum number of idle buffers kept for each size class
+     */
+    public SizeClassBufferPool(int minimumSize, int maximumSize, int maxIdleBuffersPerSizeClass) {
+        if (minimumSize < 1) {
+            throw new IllegalArgumentException("minimumSize must be positive");
+        }
+        if (maximumSize < minimumSize) {
+            throw new IllegalArgumentException("maximumSize cannot be less than minimumSize");
+        }
+
+        int count = 1;
+        for (long size = minimumSize; size < maximumSize; size *= 2) {
+            count++;
+        }
+        sizeClasses = new BufferPool[count];
+        for (int i = 0; i < count; i++) {
+            sizeClasses[i] = new BufferPool(minimumSize << i, maxIdleBuffersPerSizeClass);
+        }
+    }
+
+    /**
+     * Returns the size of the largest buffers in this pool.
+     *
+     * @return the size
+     */
+    public int getMaximumSize() {
+        return sizeClasses[sizeClasses.length - 1].getBufferSize();
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates a new one if the pool for that size class is empty. The contents of
+     * the buffer are undefined.
+     *
+     * @param capacity the minimum size of the buffer, which must not exceed {@link #getMaximumSize()}
+     * @return the buffer
+     */
+    public byte[] acquire(int capacity) {
+        for (BufferPool sizeClass : sizeClasses) {
+            if (sizeClass.getBufferSize() >= capacity) {
+                return sizeClass.acquire();
+            }
+        }
+        throw new IllegalArgumentException("capacity exceeds the maximum buffer size: " + capacity);
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer anymore after calling this method.
+     *
+     * @param buffer the buffer, which must have been acquired from this pool
+     */
+    public void release(byte[] buffer) {
+        for (BufferPool sizeClass : sizeClasses) {
+            if (sizeClass.getBufferSize() == buffer.length) {
+                sizeClass.release(buffer);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("buffer does not belong to this pool");
+    }
+
+}
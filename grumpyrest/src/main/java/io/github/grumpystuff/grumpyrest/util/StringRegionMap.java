@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import java.util.Objects;
+
+/**
+ * A hash map with string keys that can be looked up using a region of a larger string, without creating a separate
+ * string for that region. Keys cannot be removed.
+ * <p>
+ * This class is not thread-safe for modification, but can be read concurrently once all keys have been added and
+ * the map has been safely published.
+ * <p>
+ * NOT PUBLIC API
+ *
+ * @param <V> the value type
+ */
+public final class StringRegionMap<V> {
+
+    private String[] keys = new String[8];
+    private Object[] values = new Object[8];
+    private int size = 0;
+
+    /**
+     * Constructor.
+     */
+    public StringRegionMap() {
+    }
+
+    /**
+     * Returns the number of keys in this map
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a key/value pair, replacing the previous value for the same key if any.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(String key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        insert(key, value);
+    }
+
+    /**
+     * Returns the value for a key.
+     *
+     * @param key the key
+     * @return the value, or null if not found
+     */
+    public V get(String key) {
+        Objects.requireNonNull(key, "key");
+
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * Returns the value for a key that is specified as a region of a string.
+     *
+     * @param source the string that contains the key
+     * @param start the start index of the key in the source (inclusive)
+     * @param end the end index of the key in the source (exclusive)
+     * @return the value, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String source, int start, int end) {
+        int length = end - start;
+        int mask = keys.length - 1;
+        int index = spread(hash(source, start, end)) & mask;
+        while (true) {
+            String key = keys[index];
+            if (key == null) {
+                return null;
+            }
+            if (key.length() == length && key.regionMatches(0, source, start, length)) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insert(String key, Object value) {
+        int mask = keys.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[2 * oldKeys.length];
+        values = new Object[2 * oldValues.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // same result as String.hashCode() for the substring, so stored keys can use their cached hash code
+    private static int hash(String source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules timeouts that are usually cancelled because the request finishes in time. Cancelled timeouts are removed
+ * from the queue right away, so they don't keep the objects they refer to alive until they would have expired.
+ * <p>
+ * The scheduler uses a single daemon thread that only triggers expired timeouts. The timeout actions run in the
+ * common fork-join pool, since they typically send a response and could otherwise delay other timeouts.
+ * <p>
+ * NOT PUBLIC API
+ */
+public final class TimeoutScheduler {
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR;
+
+    static {
+        EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "grumpyrest-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    private TimeoutScheduler() {
+    }
+
+    /**
+     * Schedules an action to run after the specified timeout, unless the returned future gets cancelled before.
+     *
+     * @param action the action to run
+     * @param timeoutMillis the timeout in milliseconds
+     * @return the future to cancel the timeout
+     */
+    public static ScheduledFuture<?> schedule(Runnable action, long timeoutMillis) {
+        return EXECUTOR.schedule(() -> ForkJoinPool.commonPool().execute(action), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of timeouts that are waiting to expire. Useful to check that timeouts get cancelled.
+     *
+     * @return the number of timeouts
+     */
+    public static int getPendingCount() {
+        return EXECUTOR.getQueue().size();
+    }
+
+}
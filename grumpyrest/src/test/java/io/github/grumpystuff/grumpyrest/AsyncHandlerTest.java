@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncHandlerTest {
+
+    @Test
+    public void testAsyncCompletion() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.setAsyncTimeout(1234);
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> future);
+        });
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/slow", Map.of(), asyncState);
+        assertTrue(asyncState.started);
+        assertFalse(asyncState.completed);
+        assertEquals(1234, asyncState.timeout);
+        assertEquals("", response.getBodyText());
+
+        future.complete("done");
+        assertTrue(asyncState.completed);
+        assertEquals(200, response.status);
+        assertEquals("application/json", response.contentType);
+        assertFalse(response.getBodyText().isEmpty());
+    }
+
+    @Test
+    public void testAsyncFailure() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> future.thenApply(x -> x));
+        });
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/slow", Map.of(), asyncState);
+        future.completeExceptionally(new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND));
+        assertTrue(asyncState.completed);
+        assertEquals(404, response.status);
+    }
+
+    @Test
+    public void testAsyncTimeout() throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> future);
+        });
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/slow", Map.of(), asyncState);
+        asyncState.fireTimeout();
+        assertTrue(asyncState.completed);
+        assertEquals(503, response.status);
+
+        // late completion is ignored
+        future.complete("done");
+        assertEquals(503, response.status);
+    }
+
+    @Test
+    public void testTimeoutWaitsForResponseInProgress() throws Exception {
+        CountDownLatch transmitting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Response slowResponse = transmitter -> {
+            transmitter.setStatus(200);
+            transmitting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            transmitter.setContentType("text/plain");
+            transmitter.getOutputStream().write("done".getBytes(StandardCharsets.UTF_8));
+        };
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> future);
+        });
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/slow", Map.of(), asyncState);
+        Thread completer = new Thread(() -> future.complete(slowResponse));
+        completer.start();
+        assertTrue(transmitting.await(5, TimeUnit.SECONDS));
+
+        // the timeout arrives while the response is being sent, and must not return before it has been sent
+        Thread timeout = new Thread(() -> {
+            try {
+                asyncState.fireTimeout();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        timeout.start();
+        timeout.join(200);
+        assertTrue(timeout.isAlive());
+        assertFalse(asyncState.completed);
+
+        release.countDown();
+        timeout.join(5000);
+        completer.join(5000);
+        assertFalse(timeout.isAlive());
+        assertTrue(asyncState.completed);
+        assertEquals(200, response.status);
+        assertEquals("done", response.getBodyText());
+    }
+
+    @Test
+    public void testBlockingWithoutAsyncSupport() {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> CompletableFuture.supplyAsync(() -> "done"));
+        });
+
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/slow", Map.of(), null);
+        assertEquals(200, response.status);
+        assertFalse(response.getBodyText().isEmpty());
+    }
+
+}
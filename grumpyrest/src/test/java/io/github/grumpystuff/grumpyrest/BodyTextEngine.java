@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyjson.json_model.JsonString;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+
+/**
+ * A {@link TestJsonEngine} that "parses" the body as a JSON string that contains the body text, and rejects bodies
+ * that start with '!'.
+ */
+public class BodyTextEngine extends TestJsonEngine {
+
+    @Override
+    public Object deserialize(Reader source, Type type) throws JsonDeserializationException {
+        StringWriter writer = new StringWriter();
+        try {
+            source.transferTo(writer);
+        } catch (IOException e) {
+            throw new JsonDeserializationException(e);
+        }
+        return deserialize(toElement(writer.toString()), type);
+    }
+
+    /**
+     * Converts body text to the JSON string this engine would parse it as.
+     *
+     * @param text the body text
+     * @return the JSON string
+     * @throws JsonDeserializationException if the text starts with '!'
+     */
+    public static JsonElement toElement(String text) throws JsonDeserializationException {
+        if (text.startsWith("!")) {
+            throw new JsonDeserializationException("malformed");
+        }
+        return JsonString.of(text);
+    }
+
+}
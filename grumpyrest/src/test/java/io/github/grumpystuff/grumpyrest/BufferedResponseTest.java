@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BufferedResponseTest {
+
+    private static Response chunkedResponse(int chunks, int chunkSize) {
+        return transmitter -> {
+            transmitter.setContentType("text/plain");
+            OutputStream out = transmitter.getOutputStream();
+            for (int i = 0; i < chunks; i++) {
+                out.write("x".repeat(chunkSize).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        };
+    }
+
+    private static RestApi createBufferingApi(Object responseValue, boolean compression) {
+        return ServletStubs.createDataApi(request -> responseValue, api -> {
+            api.enableResponseBuffering(10_000);
+            if (compression) {
+                api.enableResponseCompression();
+            }
+        });
+    }
+
+    @Test
+    public void testSmallResponseIsBuffered() {
+        ServletStubs.RecordedResponse response = ServletStubs.getData(createBufferingApi(chunkedResponse(50, 100), false), Map.of());
+        assertEquals(5000, response.contentLength);
+        assertEquals(5000, response.body.size());
+        assertEquals(1, response.writeCalls);
+    }
+
+    @Test
+    public void testLargeResponseIsStreamed() {
+        ServletStubs.RecordedResponse response = ServletStubs.getData(createBufferingApi(chunkedResponse(50, 1000), false), Map.of());
+        assertEquals(-1, response.contentLength);
+        assertEquals(50_000, response.body.size());
+        assertTrue(response.writeCalls > 1);
+    }
+
+    @Test
+    public void testJsonResponse() {
+        RestApi api = createBufferingApi("hello", false);
+        for (int i = 0; i < 3; i++) {
+            ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+            assertEquals(200, response.status);
+            assertTrue(response.getBodyText().contains("hello"));
+            assertEquals(response.body.size(), response.contentLength);
+            assertEquals(1, response.writeCalls);
+        }
+    }
+
+    @Test
+    public void testHead() {
+        ServletStubs.RecordedResponse response = ServletStubs.handle(createBufferingApi("hello", false), "HEAD", ServletStubs.DATA_PATH, Map.of());
+        assertEquals(200, response.status);
+        assertEquals(0, response.body.size());
+    }
+
+    @Test
+    public void testHeadDiscardsBodyWithoutCompressing() {
+        RestApi api = createBufferingApi(chunkedResponse(50, 100), true);
+        ServletStubs.RecordedResponse headResponse = ServletStubs.handle(api, "HEAD", ServletStubs.DATA_PATH, Map.of("Accept-Encoding", "gzip"));
+        assertEquals(0, headResponse.body.size());
+        assertNull(headResponse.headers.get("Content-Encoding"));
+        assertEquals(-1, headResponse.contentLength);
+    }
+
+    @Test
+    public void testContentLengthOfCompressedBody() throws Exception {
+        RestApi api = createBufferingApi(chunkedResponse(50, 100), true);
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of("Accept-Encoding", "gzip"));
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertEquals(response.body.size(), response.contentLength);
+        assertTrue(response.contentLength < 5000);
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(response.body.toByteArray())).readAllBytes();
+        assertEquals("x".repeat(5000), new String(body, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import io.github.grumpystuff.grumpyrest.response.Versioned;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityTagTest {
+
+    @Test
+    public void testMatches() {
+        assertFalse(EntityTags.matches(null, "\"abc\""));
+        assertTrue(EntityTags.matches("\"abc\"", "\"abc\""));
+        assertTrue(EntityTags.matches("W/\"abc\"", "\"abc\""));
+        assertTrue(EntityTags.matches("\"x\", \"abc\"", "\"abc\""));
+        assertTrue(EntityTags.matches(" * ", "\"abc\""));
+        assertTrue(EntityTags.matches("\"abc-gzip\"", "\"abc\""));
+        assertFalse(EntityTags.matches("\"abc-br\"", "\"abc\""));
+        assertFalse(EntityTags.matches("\"abcd\"", "\"abc\""));
+        assertFalse(EntityTags.matches("abc", "\"abc\""));
+        assertFalse(EntityTags.matches("\"abc", "\"abc\""));
+    }
+
+    @Test
+    public void testComputedEtag() {
+        AtomicInteger value = new AtomicInteger(1);
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(new Route(HttpMethod.GET, ServletStubs.DATA_PATH, (SimpleHandler) request -> "value" + value.get()),
+                    RouteOptions.DEFAULT.withEtag(true));
+        });
+
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+        assertEquals(200, response.status);
+        String entityTag = response.headers.get("ETag");
+        assertNotNull(entityTag);
+        assertTrue(response.getBodyText().contains("value1"));
+
+        response = ServletStubs.handle(api, "HEAD", ServletStubs.DATA_PATH);
+        assertEquals(entityTag, response.headers.get("ETag"));
+        assertEquals("", response.getBodyText());
+
+        response = ServletStubs.getData(api, Map.of("If-None-Match", entityTag));
+        assertEquals(304, response.status);
+        assertEquals(entityTag, response.headers.get("ETag"));
+        assertEquals("", response.getBodyText());
+
+        value.set(2);
+        response = ServletStubs.getData(api, Map.of("If-None-Match", entityTag));
+        assertEquals(200, response.status);
+        assertNotEquals(entityTag, response.headers.get("ETag"));
+        assertTrue(response.getBodyText().contains("value2"));
+    }
+
+    @Test
+    public void testNoEtagForErrors() {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(new Route(HttpMethod.GET, ServletStubs.DATA_PATH, (SimpleHandler) request -> new IllegalStateException("test")),
+                    RouteOptions.DEFAULT.withEtag(true));
+        });
+
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+        assertEquals(500, response.status);
+        assertNull(response.headers.get("ETag"));
+    }
+
+    @Test
+    public void testVersioned() {
+        AtomicInteger serializations = new AtomicInteger();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, ServletStubs.DATA_PATH, request -> new Versioned((Response) transmitter -> {
+                serializations.incrementAndGet();
+                transmitter.writeJson("data");
+            }, "v7"));
+        });
+
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+        assertEquals(200, response.status);
+        assertEquals("\"v7\"", response.headers.get("ETag"));
+        assertEquals(1, serializations.get());
+
+        response = ServletStubs.getData(api, Map.of("If-None-Match", "\"v6\", \"v7\""));
+        assertEquals(304, response.status);
+        assertEquals("\"v7\"", response.headers.get("ETag"));
+        assertEquals(1, serializations.get());
+    }
+
+    @Test
+    public void testCompressedRevalidation() {
+        String text = "compressible text ".repeat(200);
+        Response response = transmitter -> {
+            transmitter.setContentType("text/plain");
+            transmitter.getOutputStream().write(text.getBytes(StandardCharsets.UTF_8));
+        };
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.enableResponseCompression(CompressionOptions.DEFAULT.withMinimumSize(100));
+            restApi.addRoute(new Route(HttpMethod.GET, ServletStubs.DATA_PATH, (SimpleHandler) request -> response),
+                    RouteOptions.DEFAULT.withEtag(true));
+            restApi.addRoute(HttpMethod.GET, "/versioned", request -> new Versioned(response, "v7"));
+        });
+
+        for (String path : new String[] {ServletStubs.DATA_PATH, "/versioned"}) {
+            ServletStubs.RecordedResponse full = ServletStubs.handle(api, "GET", path, Map.of("Accept-Encoding", "gzip"));
+            assertEquals(200, full.status);
+            assertEquals("gzip", full.headers.get("Content-Encoding"));
+            assertEquals("Accept-Encoding", full.headers.get("Vary"));
+            String entityTag = full.headers.get("ETag");
+            assertTrue(entityTag.endsWith("-gzip\""));
+
+            ServletStubs.RecordedResponse notModified = ServletStubs.handle(api, "GET", path,
+                    Map.of("Accept-Encoding", "gzip", "If-None-Match", entityTag));
+            assertEquals(304, notModified.status);
+            assertEquals(entityTag, notModified.headers.get("ETag"));
+            assertEquals("Accept-Encoding", notModified.headers.get("Vary"));
+            assertEquals("", notModified.getBodyText());
+        }
+    }
+
+    @Test
+    public void testVersionedOnCachedRoute() {
+        AtomicInteger invocations = new AtomicInteger();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(new Route(HttpMethod.GET, ServletStubs.DATA_PATH, (SimpleHandler) request -> {
+                invocations.incrementAndGet();
+                return new Versioned("data", "v7");
+            }), RouteOptions.DEFAULT.withEtag(true).withResponseCache(ResponseCacheOptions.of(Duration.ofHours(1))));
+        });
+
+        // the version-derived tag is used instead of one computed from the body
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+        assertEquals(200, response.status);
+        assertEquals("\"v7\"", response.headers.get("ETag"));
+        assertEquals(1, invocations.get());
+
+        // the response has been cached together with its tag
+        response = ServletStubs.getData(api, Map.of());
+        assertEquals(200, response.status);
+        assertEquals("\"v7\"", response.headers.get("ETag"));
+        response = ServletStubs.getData(api, Map.of("If-None-Match", "\"v7\""));
+        assertEquals(304, response.status);
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void testInvalidVersion() {
+        assertThrows(IllegalArgumentException.class, () -> new Versioned("x", "a\"b"));
+        assertThrows(IllegalArgumentException.class, () -> new Versioned("x", "a b"));
+    }
+
+}
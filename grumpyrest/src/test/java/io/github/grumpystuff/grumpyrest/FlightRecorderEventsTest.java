@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderEventsTest {
+
+    public record Item(String name) {
+    }
+
+    private static List<RecordedEvent> record(Runnable action) throws Exception {
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(
+                RestApi.class.getResourceAsStream("/io/github/grumpystuff/grumpyrest/jfr/grumpyrest.jfc"),
+                StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        Path file = Files.createTempFile("grumpyrest", ".jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.enable("grumpyjson.Serialize").withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRoute(HttpMethod.GET, "/data", request -> new Item("hello"));
+            restApi.addRoute(HttpMethod.GET, "/finish", request -> {
+                throw new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND, false);
+            });
+        });
+
+        ServletStubs.RecordedResponse[] dataResponse = new ServletStubs.RecordedResponse[1];
+        List<RecordedEvent> events = record(() -> {
+            dataResponse[0] = ServletStubs.handle(api, "GET", "/data");
+            ServletStubs.handle(api, "GET", "/finish");
+        });
+
+        List<RecordedEvent> requests = filter(events, "grumpyrest.Request");
+        assertEquals(2, requests.size());
+        RecordedEvent data = requests.get(0);
+        assertEquals("GET", data.getString("method"));
+        assertEquals("/data", data.getString("route"));
+        assertEquals(200, data.getInt("status"));
+        assertEquals(dataResponse[0].body.size(), data.getLong("bytes"));
+        assertTrue(data.getLong("bytes") > 0);
+        assertEquals(404, requests.get(1).getInt("status"));
+
+        List<RecordedEvent> finishes = filter(events, "grumpyrest.FinishRequest");
+        assertEquals(1, finishes.size());
+        assertEquals(StandardErrorResponse.class.getName(), finishes.get(0).getClass("responseValueType").getName());
+        assertNotNull(finishes.get(0).getStackTrace());
+
+        List<RecordedEvent> serializations = filter(events, "grumpyjson.Serialize");
+        assertEquals(1, serializations.size());
+        assertEquals(Item.class.getName(), serializations.get(0).getClass("type").getName());
+        assertEquals(data.getLong("bytes"), serializations.get(0).getLong("bytes"));
+
+        // the serializer for the record is generated on first use
+        List<RecordedEvent> misses = filter(events, "grumpyjson.RegistryMiss").stream()
+                .filter(event -> event.getString("key").equals(Item.class.getName()))
+                .toList();
+        assertEquals(1, misses.size());
+        assertTrue(misses.get(0).getBoolean("generated"));
+    }
+
+}
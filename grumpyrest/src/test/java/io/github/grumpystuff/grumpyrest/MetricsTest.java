@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.metrics.ApiMetrics;
+import io.github.grumpystuff.grumpyrest.metrics.RouteMetrics;
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    private static RestApi createMetricsApi() {
+        return ServletStubs.createApi(api -> {
+            ApiMetrics metrics = api.enableMetrics();
+            api.addRoute(HttpMethod.GET, "/data", request -> "hello");
+            api.addRoute(HttpMethod.GET, "/fail", request -> StandardErrorResponse.ID_NOT_FOUND);
+            api.addRoute(HttpMethod.GET, "/metrics", request -> metrics.createPrometheusResponse());
+        });
+    }
+
+    private static RouteMetrics getRouteMetrics(RestApi api, int routeIndex) {
+        return api.getMetrics().getRouteMetrics(api.getRoutes().get(routeIndex));
+    }
+
+    @Test
+    public void testMetricsDisabledByDefault() {
+        RestApi api = ServletStubs.createDataApi(request -> "hello", restApi -> {});
+        assertNull(api.getMetrics());
+        assertEquals(200, ServletStubs.getData(api, Map.of()).status);
+    }
+
+    @Test
+    public void testRequestsAreCountedPerRouteAndStatusClass() {
+        RestApi api = createMetricsApi();
+        ServletStubs.handle(api, "GET", "/data");
+        ServletStubs.handle(api, "GET", "/data");
+        ServletStubs.handle(api, "GET", "/fail");
+        ServletStubs.handle(api, "GET", "/unknown");
+
+        RouteMetrics data = getRouteMetrics(api, 0);
+        assertEquals("GET /data", data.getLabel());
+        assertEquals(2, data.getRequestCount(2));
+        assertEquals(0, data.getRequestCount(4));
+        assertEquals(0, data.getInFlight());
+        assertEquals(2, data.getLatency().getCount());
+
+        RouteMetrics fail = getRouteMetrics(api, 1);
+        assertEquals(0, fail.getRequestCount(2));
+        assertEquals(1, fail.getRequestCount(4));
+
+        RouteMetrics unmatched = api.getMetrics().getUnmatchedMetrics();
+        assertEquals(1, unmatched.getRequestCount(4));
+        assertEquals(0, unmatched.getInFlight());
+    }
+
+    @Test
+    public void testPrometheusResponse() {
+        RestApi api = createMetricsApi();
+        ServletStubs.handle(api, "GET", "/data");
+        ServletStubs.handle(api, "GET", "/fail");
+
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/metrics");
+        assertEquals(200, response.status);
+        assertTrue(response.contentType.startsWith("text/plain; version=0.0.4"));
+        String text = response.getBodyText();
+        assertTrue(text.contains("# TYPE grumpyrest_requests_total counter\n"));
+        assertTrue(text.contains("grumpyrest_requests_total{route=\"GET /data\",status=\"2xx\"} 1\n"));
+        assertTrue(text.contains("grumpyrest_requests_total{route=\"GET /fail\",status=\"4xx\"} 1\n"));
+        assertTrue(text.contains("grumpyrest_requests_in_flight{route=\"GET /metrics\"} 1\n"));
+        assertTrue(text.contains("grumpyrest_request_duration_seconds_bucket{route=\"GET /data\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("grumpyrest_request_duration_seconds_count{route=\"GET /data\"} 1\n"));
+        assertTrue(text.contains("grumpyrest_request_duration_seconds_count{route=\"(unmatched)\"} 0\n"));
+    }
+
+    @Test
+    public void testAsyncErrorFinishesRequest() throws Exception {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.enableMetrics();
+            restApi.addRoute(HttpMethod.GET, "/slow", request -> new CompletableFuture<>());
+        });
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.handle(api, "GET", "/slow", Map.of(), asyncState);
+        RouteMetrics slow = getRouteMetrics(api, 0);
+        assertEquals(1, slow.getInFlight());
+
+        asyncState.fireError(new IOException("client disconnected"));
+        assertTrue(asyncState.completed);
+        assertEquals(0, slow.getInFlight());
+        assertEquals(1, slow.getRequestCount(5));
+        assertEquals(1, slow.getLatency().getCount());
+    }
+
+}
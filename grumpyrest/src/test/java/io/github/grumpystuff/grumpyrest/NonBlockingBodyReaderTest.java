@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.IncrementalJsonParser;
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.util.TimeoutScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonBlockingBodyReaderTest {
+
+    private static class IncrementalBodyTextEngine extends BodyTextEngine {
+
+        final List<String> chunks = new ArrayList<>();
+
+        @Override
+        public IncrementalJsonParser newIncrementalParser() {
+            StringBuilder builder = new StringBuilder();
+            return new IncrementalJsonParser() {
+
+                @Override
+                public void feed(byte[] buffer, int offset, int length) {
+                    String chunk = new String(buffer, offset, length, StandardCharsets.UTF_8);
+                    chunks.add(chunk);
+                    builder.append(chunk);
+                }
+
+                @Override
+                public JsonElement finish() throws JsonDeserializationException {
+                    return BodyTextEngine.toElement(builder.toString());
+                }
+
+            };
+        }
+
+    }
+
+    private static RestApi createApi(JsonEngine engine, List<String> invocations) {
+        return ServletStubs.createApi(engine, api -> {
+            api.enableNonBlockingBodyReading(4);
+            api.addRoute(HttpMethod.POST, "/echo", request -> {
+                invocations.add("echo");
+                return request.parseBody(String.class);
+            });
+            api.addRoute(HttpMethod.POST, "/ignore", request -> {
+                invocations.add("ignore");
+                return "ignored";
+            });
+        });
+    }
+
+    @Test
+    public void testBufferedBody() throws Exception {
+        List<String> invocations = new ArrayList<>();
+        RestApi api = createApi(new BodyTextEngine(), invocations);
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody();
+
+        ServletStubs.RecordedResponse response = ServletStubs.postJson(api, "/echo", asyncState, body);
+        assertTrue(asyncState.started);
+        assertTrue(body.hasReadListener());
+
+        body.deliver("Grüße, ");
+        body.deliver("world!");
+        assertTrue(invocations.isEmpty());
+        assertFalse(asyncState.completed);
+
+        body.finish();
+        assertEquals(List.of("echo"), invocations);
+        assertTrue(asyncState.completed);
+        assertEquals(200, response.status);
+        assertTrue(response.getBodyText().contains("\"Grüße, world!\""));
+    }
+
+    @Test
+    public void testIncrementalBody() throws Exception {
+        List<String> invocations = new ArrayList<>();
+        IncrementalBodyTextEngine engine = new IncrementalBodyTextEngine();
+        RestApi api = createApi(engine, invocations);
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody();
+
+        ServletStubs.RecordedResponse response = ServletStubs.postJson(api, "/echo", asyncState, body);
+        body.deliver("abcdef");
+        assertEquals(List.of("abcd", "ef"), engine.chunks);
+        body.deliver("gh");
+        assertEquals(List.of("abcd", "ef", "gh"), engine.chunks);
+        assertTrue(invocations.isEmpty());
+
+        body.finish();
+        assertEquals(List.of("echo"), invocations);
+        assertTrue(asyncState.completed);
+        assertTrue(response.getBodyText().contains("\"abcdefgh\""));
+    }
+
+    @Test
+    public void testMalformedBody() throws Exception {
+        List<String> invocations = new ArrayList<>();
+        RestApi api = createApi(new BodyTextEngine(), invocations);
+
+        // the error is only reported if the handler actually parses the body
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody();
+        ServletStubs.RecordedResponse response = ServletStubs.postJson(api, "/echo", asyncState, body);
+        body.deliver("!foo");
+        body.finish();
+        assertTrue(asyncState.completed);
+        assertEquals(400, response.status);
+
+        asyncState = new ServletStubs.AsyncState();
+        body = new ServletStubs.RequestBody();
+        response = ServletStubs.postJson(api, "/ignore", asyncState, body);
+        body.deliver("!foo");
+        body.finish();
+        assertTrue(asyncState.completed);
+        assertEquals(200, response.status);
+        assertEquals(List.of("echo", "ignore"), invocations);
+    }
+
+    @Test
+    public void testEndOfBodyDetectedByRead() throws Exception {
+        List<String> invocations = new ArrayList<>();
+        RestApi api = createApi(new BodyTextEngine(), invocations);
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody();
+
+        ServletStubs.RecordedResponse response = ServletStubs.postJson(api, "/echo", asyncState, body);
+        body.deliver("abc");
+        body.finishByRead();
+        assertEquals(List.of("echo"), invocations);
+        assertTrue(asyncState.completed);
+        assertTrue(response.getBodyText().contains("\"abc\""));
+
+        // a late onAllDataRead() is ignored
+        body.finish();
+        assertEquals(List.of("echo"), invocations);
+    }
+
+    @Test
+    public void testTimeoutIsCancelledWhenFinished() throws Exception {
+        List<String> invocations = new ArrayList<>();
+        RestApi api = ServletStubs.createApi(new BodyTextEngine(), restApi -> {
+            restApi.enableNonBlockingBodyReading(4);
+            restApi.setAsyncTimeout(60_000);
+            restApi.addRoute(HttpMethod.POST, "/echo", request -> {
+                invocations.add("echo");
+                return request.parseBody(String.class);
+            });
+        });
+        int pendingBefore = TimeoutScheduler.getPendingCount();
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody();
+        ServletStubs.postJson(api, "/echo", asyncState, body);
+        assertEquals(pendingBefore + 1, TimeoutScheduler.getPendingCount());
+
+        body.deliver("abc");
+        body.finish();
+        assertEquals(List.of("echo"), invocations);
+        assertEquals(pendingBefore, TimeoutScheduler.getPendingCount());
+    }
+
+    @Test
+    public void testWithoutAsyncSupport() {
+        List<String> invocations = new ArrayList<>();
+        RestApi api = createApi(new BodyTextEngine(), invocations);
+        ServletStubs.RequestBody body = new ServletStubs.RequestBody("blocking");
+
+        ServletStubs.RecordedResponse response = ServletStubs.postJson(api, "/echo", null, body);
+        assertFalse(body.hasReadListener());
+        assertEquals(List.of("echo"), invocations);
+        assertTrue(response.getBodyText().contains("\"blocking\""));
+    }
+
+}
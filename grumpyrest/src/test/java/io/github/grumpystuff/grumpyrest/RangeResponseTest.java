@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.response.standard.ByteBufferResponse;
+import io.github.grumpystuff.grumpyrest.response.standard.PathResponse;
+import io.github.grumpystuff.grumpyrest.response.standard.RangeableResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeResponseTest {
+
+    private static final String CONTENT = "0123456789".repeat(300);
+
+    @TempDir
+    Path tempDir;
+
+    private static RestApi createCompressingApi(Supplier<Object> responseValue) {
+        return ServletStubs.createDataApi(request -> responseValue.get(), api -> {
+            api.enableResponseBuffering(10_000);
+            api.enableResponseCompression();
+        });
+    }
+
+    private RestApi createFileApi() throws Exception {
+        Path file = tempDir.resolve("data.txt");
+        Files.writeString(file, CONTENT);
+        return createCompressingApi(() -> new PathResponse(file, "text/plain"));
+    }
+
+    @Test
+    public void testFullFile() throws Exception {
+        ServletStubs.RecordedResponse response = ServletStubs.getData(createFileApi(), Map.of("Accept-Encoding", "gzip"));
+        assertEquals(200, response.status);
+        assertEquals("text/plain", response.contentType);
+        assertEquals(CONTENT.length(), response.contentLength);
+        assertEquals("bytes", response.headers.get("Accept-Ranges"));
+        assertNotNull(response.headers.get("Last-Modified"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals(CONTENT, response.getBodyText());
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        ServletStubs.RecordedResponse response = ServletStubs.getData(createFileApi(), Map.of("Range", "bytes=10-24"));
+        assertEquals(206, response.status);
+        assertEquals("bytes 10-24/3000", response.headers.get("Content-Range"));
+        assertEquals(15, response.contentLength);
+        assertEquals(CONTENT.substring(10, 25), response.getBodyText());
+
+        response = ServletStubs.getData(createFileApi(), Map.of("Range", "bytes=2990-"));
+        assertEquals(206, response.status);
+        assertEquals("bytes 2990-2999/3000", response.headers.get("Content-Range"));
+        assertEquals(CONTENT.substring(2990), response.getBodyText());
+
+        response = ServletStubs.getData(createFileApi(), Map.of("Range", "bytes=-5"));
+        assertEquals(206, response.status);
+        assertEquals("bytes 2995-2999/3000", response.headers.get("Content-Range"));
+        assertEquals(CONTENT.substring(2995), response.getBodyText());
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        ServletStubs.RecordedResponse response = ServletStubs.getData(createFileApi(), Map.of("Range", "bytes=5000-"));
+        assertEquals(416, response.status);
+        assertEquals("bytes */3000", response.headers.get("Content-Range"));
+        assertEquals(0, response.body.size());
+    }
+
+    @Test
+    public void testIgnoredRanges() throws Exception {
+        RestApi api = createFileApi();
+        for (String range : new String[] {"bytes=0-1,5-6", "items=0-5", "bytes=x-5", "bytes=9-3"}) {
+            ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of("Range", range));
+            assertEquals(200, response.status, range);
+            assertEquals(CONTENT, response.getBodyText(), range);
+        }
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of("Range", "bytes=0-5", "If-Range", "\"other\""));
+        assertEquals(200, response.status);
+    }
+
+    @Test
+    public void testIfRangeMatches() throws Exception {
+        RestApi api = createFileApi();
+        String lastModified = ServletStubs.getData(api, Map.of()).headers.get("Last-Modified");
+        ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of("Range", "bytes=0-5", "If-Range", lastModified));
+        assertEquals(206, response.status);
+        assertEquals(CONTENT.substring(0, 6), response.getBodyText());
+    }
+
+    @Test
+    public void testHeadDoesNotWriteContent() {
+        AtomicInteger writes = new AtomicInteger();
+        RestApi api = createCompressingApi(() -> new RangeableResponse("text/plain") {
+
+            @Override
+            protected long getContentLength() {
+                return CONTENT.length();
+            }
+
+            @Override
+            protected void writeContent(OutputStream out, long start, long length) throws IOException {
+                writes.incrementAndGet();
+                out.write(CONTENT.substring((int) start, (int) (start + length)).getBytes(StandardCharsets.UTF_8));
+            }
+
+        });
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "HEAD", ServletStubs.DATA_PATH);
+        assertEquals(200, response.status);
+        assertEquals(CONTENT.length(), response.contentLength);
+        assertEquals(0, response.body.size());
+        assertEquals(0, writes.get());
+
+        response = ServletStubs.getData(api, Map.of());
+        assertEquals(CONTENT, response.getBodyText());
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void testByteBuffers() {
+        byte[] bytes = ("xx" + CONTENT).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        heap.position(2);
+        ByteBuffer direct = ByteBuffer.allocateDirect(CONTENT.length());
+        direct.put(CONTENT.getBytes(StandardCharsets.UTF_8)).flip();
+        for (ByteBuffer buffer : new ByteBuffer[] {heap, direct}) {
+            RestApi api = createCompressingApi(() -> new ByteBufferResponse(buffer, "application/octet-stream"));
+            ServletStubs.RecordedResponse response = ServletStubs.getData(api, Map.of());
+            assertEquals(200, response.status);
+            assertEquals(CONTENT, response.getBodyText());
+            response = ServletStubs.getData(api, Map.of("Range", "bytes=100-199"));
+            assertEquals(206, response.status);
+            assertEquals(CONTENT.substring(100, 200), response.getBodyText());
+        }
+        assertEquals(2, heap.position());
+        assertEquals(0, direct.position());
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestPhaseListenerTest {
+
+    private record PhaseEvent(Route route, RequestPhase phase) {
+    }
+
+    private static class RecordingListener implements RequestPhaseListener {
+
+        final List<PhaseEvent> events = new ArrayList<>();
+
+        @Override
+        public void onPhase(RequestCycle requestCycle, Route route, RequestPhase phase, long startNanos, long endNanos) {
+            assertTrue(endNanos >= startNanos);
+            events.add(new PhaseEvent(route, phase));
+        }
+
+        List<RequestPhase> getPhases() {
+            return events.stream().map(PhaseEvent::phase).toList();
+        }
+
+    }
+
+    private static RestApi createApi(RequestPhaseListener... listeners) {
+        return ServletStubs.createApi(new BodyTextEngine(), api -> {
+            for (RequestPhaseListener listener : listeners) {
+                api.addRequestPhaseListener(listener);
+            }
+            api.addRoute(HttpMethod.POST, "/echo", request -> request.parseBody(String.class));
+        });
+    }
+
+    private static ServletStubs.RecordedResponse post(RestApi api, String path, String body) {
+        return ServletStubs.postJson(api, path, null, new ServletStubs.RequestBody(body));
+    }
+
+    @Test
+    public void testNoListener() {
+        RestApi api = createApi();
+        assertNull(api.getRequestPhaseListener());
+        assertEquals("JSON:\"hello\"", post(api, "/echo", "hello").getBodyText());
+    }
+
+    @Test
+    public void testPhasesOfMatchedRequest() {
+        RecordingListener listener = new RecordingListener();
+        RestApi api = createApi(listener);
+        assertEquals("JSON:\"hello\"", post(api, "/echo", "hello").getBodyText());
+
+        assertEquals(List.of(
+                RequestPhase.ROUTE_MATCH,
+                RequestPhase.PARSE_BODY_SYNTAX,
+                RequestPhase.PARSE_BODY_CONVERSION,
+                RequestPhase.HANDLER,
+                RequestPhase.CREATE_RESPONSE,
+                RequestPhase.SERIALIZATION,
+                RequestPhase.TRANSMIT
+        ), listener.getPhases());
+        Route route = api.getRoutes().get(0);
+        for (PhaseEvent event : listener.events) {
+            assertSame(route, event.route());
+        }
+    }
+
+    @Test
+    public void testPhasesOfUnmatchedRequest() {
+        RecordingListener listener = new RecordingListener();
+        RestApi api = createApi(listener);
+        assertEquals(404, post(api, "/unknown", "hello").status);
+
+        // the standard 404 response is pre-encoded, so it does not get serialized
+        assertEquals(List.of(RequestPhase.ROUTE_MATCH, RequestPhase.CREATE_RESPONSE, RequestPhase.TRANSMIT),
+                listener.getPhases());
+        for (PhaseEvent event : listener.events) {
+            assertNull(event.route());
+        }
+    }
+
+    @Test
+    public void testMultipleListeners() {
+        RecordingListener listener1 = new RecordingListener();
+        RecordingListener listener2 = new RecordingListener();
+        RestApi api = createApi(listener1, listener2);
+        post(api, "/echo", "hello");
+        assertEquals(7, listener1.events.size());
+        assertEquals(listener1.events, listener2.events);
+    }
+
+    @Test
+    public void testSerializationOfBufferedResponse() {
+        RecordingListener listener = new RecordingListener();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRequestPhaseListener(listener);
+            restApi.addRoute(new Route(HttpMethod.GET, ServletStubs.DATA_PATH, (SimpleHandler) request -> "hello"),
+                    RouteOptions.DEFAULT.withEtag(true));
+        });
+        assertEquals(200, ServletStubs.getData(api, Map.of()).status);
+
+        assertEquals(List.of(
+                RequestPhase.ROUTE_MATCH,
+                RequestPhase.HANDLER,
+                RequestPhase.CREATE_RESPONSE,
+                RequestPhase.SERIALIZATION,
+                RequestPhase.TRANSMIT
+        ), listener.getPhases());
+    }
+
+    @Test
+    public void testTransmitFailure() {
+        RecordingListener listener = new RecordingListener();
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.addRequestPhaseListener(listener);
+            restApi.addRoute(HttpMethod.GET, "/fail", request -> (Response) transmitter -> {
+                throw new IOException("broken");
+            });
+        });
+        assertEquals(500, ServletStubs.handle(api, "GET", "/fail").status);
+
+        assertEquals(List.of(
+                RequestPhase.ROUTE_MATCH,
+                RequestPhase.HANDLER,
+                RequestPhase.CREATE_RESPONSE,
+                RequestPhase.TRANSMIT
+        ), listener.getPhases());
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private void addRoute(RestApi api, RouteOptions options) {
+        Route route = new Route(HttpMethod.GET, "/products/:id", (SimpleHandler) request -> {
+            invocations.incrementAndGet();
+            String id = request.getPathArguments().get(0).getText();
+            if (id.equals("missing")) {
+                return StandardErrorResponse.ID_NOT_FOUND;
+            }
+            return "product " + id + " ".repeat(2000);
+        });
+        api.addRoute(route, options);
+    }
+
+    private void addRoute(RestApi api, ResponseCacheOptions options) {
+        addRoute(api, RouteOptions.DEFAULT.withResponseCache(options));
+    }
+
+    @Test
+    public void testHitsAndKeys() {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            addRoute(restApi, ResponseCacheOptions.of(Duration.ofHours(1)));
+        });
+
+        ServletStubs.RecordedResponse first = ServletStubs.handle(api, "GET", "/products/1", "a=1&b=2", Map.of());
+        assertEquals(200, first.status);
+        assertEquals(1, invocations.get());
+
+        ServletStubs.RecordedResponse second = ServletStubs.handle(api, "GET", "/products/1", "b=2&a=1", Map.of());
+        assertEquals(1, invocations.get());
+        assertEquals(200, second.status);
+        assertEquals("application/json", second.contentType);
+        assertEquals(first.getBodyText(), second.getBodyText());
+
+        ServletStubs.RecordedResponse head = ServletStubs.handle(api, "HEAD", "/products/1", "a=1&b=2", Map.of());
+        assertEquals(1, invocations.get());
+        assertEquals(200, head.status);
+        assertEquals("", head.getBodyText());
+        assertEquals(first.body.size(), head.contentLength);
+
+        ServletStubs.handle(api, "GET", "/products/1", "a=2", Map.of());
+        ServletStubs.handle(api, "GET", "/products/2", "a=1&b=2", Map.of());
+        assertEquals(3, invocations.get());
+
+        // error responses are not cached
+        ServletStubs.handle(api, "GET", "/products/missing");
+        assertEquals(404, ServletStubs.handle(api, "GET", "/products/missing").status);
+        assertEquals(5, invocations.get());
+    }
+
+    @Test
+    public void testInvalidation() {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            addRoute(restApi, ResponseCacheOptions.of(Duration.ofHours(1)));
+        });
+        Route route = api.getRoutes().get(0);
+
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/1", "x=1", Map.of());
+        ServletStubs.handle(api, "GET", "/products/2");
+        assertEquals(3, invocations.get());
+
+        api.invalidateResponseCache(route, List.of("1"));
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/1", "x=1", Map.of());
+        ServletStubs.handle(api, "GET", "/products/2");
+        assertEquals(5, invocations.get());
+
+        api.invalidateResponseCache(route);
+        ServletStubs.handle(api, "GET", "/products/2");
+        assertEquals(6, invocations.get());
+
+        api.invalidateAllResponseCaches();
+        ServletStubs.handle(api, "GET", "/products/2");
+        assertEquals(7, invocations.get());
+    }
+
+    @Test
+    public void testInvalidationWhileHandling() {
+        AtomicInteger version = new AtomicInteger(1);
+        RestApi api = ServletStubs.createApi(restApi -> {
+            Route[] route = new Route[1];
+            route[0] = new Route(HttpMethod.GET, "/products/:id", (SimpleHandler) request -> {
+                invocations.incrementAndGet();
+                String result = "version " + version.get();
+                if (version.get() == 1) {
+                    // a concurrent request changes the data after this handler has read it
+                    version.set(2);
+                    restApi.invalidateResponseCache(route[0], List.of("1"));
+                }
+                return result;
+            });
+            restApi.addRoute(route[0], RouteOptions.DEFAULT.withResponseCache(ResponseCacheOptions.of(Duration.ofHours(1))));
+        });
+
+        // the stale response is sent, but not cached
+        assertTrue(ServletStubs.handle(api, "GET", "/products/1").getBodyText().contains("version 1"));
+        assertTrue(ServletStubs.handle(api, "GET", "/products/1").getBodyText().contains("version 2"));
+        assertTrue(ServletStubs.handle(api, "GET", "/products/1").getBodyText().contains("version 2"));
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    public void testEviction() {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            addRoute(restApi, ResponseCacheOptions.of(Duration.ofHours(1)).withMaxEntries(2));
+        });
+
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/2");
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/3");
+        assertEquals(3, invocations.get());
+
+        // 2 was least recently used
+        ServletStubs.handle(api, "GET", "/products/1");
+        assertEquals(3, invocations.get());
+        ServletStubs.handle(api, "GET", "/products/2");
+        assertEquals(4, invocations.get());
+    }
+
+    @Test
+    public void testMaxBytesAndExpiry() throws Exception {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            addRoute(restApi, new ResponseCacheOptions(Duration.ofMillis(50), 100, 100));
+        });
+
+        // too large for the cache
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/1");
+        assertEquals(2, invocations.get());
+
+        RestApi api2 = ServletStubs.createApi(restApi -> {
+            addRoute(restApi, new ResponseCacheOptions(Duration.ofMillis(50), 100, 1_000_000));
+        });
+        ServletStubs.handle(api2, "GET", "/products/1");
+        ServletStubs.handle(api2, "GET", "/products/1");
+        assertEquals(3, invocations.get());
+        Thread.sleep(100);
+        ServletStubs.handle(api2, "GET", "/products/1");
+        assertEquals(4, invocations.get());
+    }
+
+    @Test
+    public void testCompressedVariantAndEtag() throws Exception {
+        RestApi api = ServletStubs.createApi(restApi -> {
+            restApi.enableResponseCompression();
+            addRoute(restApi, RouteOptions.DEFAULT.withEtag(true).withResponseCache(ResponseCacheOptions.of(Duration.ofHours(1))));
+        });
+
+        ServletStubs.RecordedResponse plain = ServletStubs.handle(api, "GET", "/products/1");
+        String entityTag = plain.headers.get("ETag");
+        assertNotNull(entityTag);
+        assertNull(plain.headers.get("Content-Encoding"));
+
+        for (int i = 0; i < 2; i++) {
+            ServletStubs.RecordedResponse compressed = ServletStubs.handle(api, "GET", "/products/1", null, Map.of("Accept-Encoding", "gzip"));
+            assertEquals("gzip", compressed.headers.get("Content-Encoding"));
+            assertEquals("Accept-Encoding", compressed.headers.get("Vary"));
+            assertEquals(EntityTags.forCoding(entityTag, "gzip"), compressed.headers.get("ETag"));
+            byte[] decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed.body.toByteArray())).readAllBytes();
+            assertEquals(plain.getBodyText(), new String(decompressed, StandardCharsets.UTF_8));
+        }
+
+        ServletStubs.RecordedResponse notModified = ServletStubs.handle(api, "GET", "/products/1", null,
+                Map.of("If-None-Match", EntityTags.forCoding(entityTag, "gzip")));
+        assertEquals(304, notModified.status);
+        assertEquals("", notModified.getBodyText());
+        assertEquals(1, invocations.get());
+    }
+
+}
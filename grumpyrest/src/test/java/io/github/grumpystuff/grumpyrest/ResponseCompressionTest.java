@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressionTest {
+
+    private static final String LARGE_TEXT = "compressible text ".repeat(200);
+
+    private static Response textResponse(String contentType, String text, boolean flushInBetween) {
+        return transmitter -> {
+            transmitter.setContentType(contentType);
+            OutputStream out = transmitter.getOutputStream();
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            int half = bytes.length / 2;
+            out.write(bytes, 0, half);
+            if (flushInBetween) {
+                out.flush();
+            }
+            out.write(bytes, half, bytes.length - half);
+        };
+    }
+
+    private static ServletStubs.RecordedResponse handle(Response responseValue, String acceptEncoding) {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.enableResponseCompression(CompressionOptions.DEFAULT.withMinimumSize(100));
+        api.addRoute(HttpMethod.GET, "/data", request -> responseValue);
+        api.seal();
+        return ServletStubs.handle(api, ServletStubs.request("GET", "/data", acceptEncoding == null ? Map.of() : Map.of("Accept-Encoding", acceptEncoding)));
+    }
+
+    private static String decode(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testNegotiation() {
+        assertNull(ResponseCompressor.negotiate(null));
+        assertNull(ResponseCompressor.negotiate(""));
+        assertNull(ResponseCompressor.negotiate("br, identity"));
+        assertEquals(ResponseCompressor.Coding.GZIP, ResponseCompressor.negotiate("gzip, deflate, br"));
+        assertEquals(ResponseCompressor.Coding.GZIP, ResponseCompressor.negotiate("deflate, gzip"));
+        assertEquals(ResponseCompressor.Coding.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ResponseCompressor.Coding.DEFLATE, ResponseCompressor.negotiate("gzip;q=0, *"));
+        assertEquals(ResponseCompressor.Coding.GZIP, ResponseCompressor.negotiate("*"));
+        assertEquals(ResponseCompressor.Coding.GZIP, ResponseCompressor.negotiate("X-GZIP ; Q=1.0"));
+        assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(ResponseCompressor.negotiate("*;q=0"));
+        assertNull(ResponseCompressor.negotiate("gzip;q=invalid"));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        ServletStubs.RecordedResponse response = handle(textResponse("text/plain", LARGE_TEXT, true), "gzip");
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertTrue(response.body.size() < LARGE_TEXT.length());
+        byte[] body = response.body.toByteArray();
+        assertEquals(LARGE_TEXT, decode(new GZIPInputStream(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        ServletStubs.RecordedResponse response = handle(textResponse("text/plain", LARGE_TEXT, false), "deflate");
+        assertEquals("deflate", response.headers.get("Content-Encoding"));
+        byte[] body = response.body.toByteArray();
+        assertEquals(LARGE_TEXT, decode(new InflaterInputStream(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    public void testDeflatersAreReusedCorrectly() throws Exception {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.enableResponseCompression(CompressionOptions.DEFAULT.withMinimumSize(100));
+        api.addRoute(HttpMethod.GET, "/data", request -> textResponse("text/plain", LARGE_TEXT, false));
+        api.seal();
+        for (int i = 0; i < 3; i++) {
+            ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/data", Map.of("Accept-Encoding", "gzip"));
+            byte[] body = response.body.toByteArray();
+            assertEquals(LARGE_TEXT, decode(new GZIPInputStream(new ByteArrayInputStream(body))));
+        }
+    }
+
+    @Test
+    public void testBelowMinimumSize() {
+        ServletStubs.RecordedResponse response = handle(textResponse("text/plain", "short text", true), "gzip");
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertEquals("short text", response.getBodyText());
+    }
+
+    @Test
+    public void testNotAccepted() {
+        ServletStubs.RecordedResponse response = handle(textResponse("text/plain", LARGE_TEXT, false), null);
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertEquals(LARGE_TEXT, response.getBodyText());
+    }
+
+    @Test
+    public void testExcludedContentType() {
+        for (String contentType : List.of("image/png", "application/zip; foo=bar")) {
+            ServletStubs.RecordedResponse response = handle(textResponse(contentType, LARGE_TEXT, false), "gzip");
+            assertNull(response.headers.get("Content-Encoding"), contentType);
+            assertNull(response.headers.get("Vary"), contentType);
+            assertEquals(LARGE_TEXT, response.getBodyText(), contentType);
+        }
+    }
+
+    @Test
+    public void testExplicitContentEncoding() {
+        ServletStubs.RecordedResponse response = handle(transmitter -> {
+            transmitter.setContentType("text/plain");
+            transmitter.addCustomHeader("Content-Encoding", "br");
+            transmitter.getOutputStream().write(LARGE_TEXT.getBytes(StandardCharsets.UTF_8));
+        }, "gzip");
+        assertEquals("br", response.headers.get("Content-Encoding"));
+        assertEquals(LARGE_TEXT, response.getBodyText());
+    }
+
+}
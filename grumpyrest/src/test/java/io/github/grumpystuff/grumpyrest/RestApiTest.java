@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.request.querystring.QuerystringParsingException;
+import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestApiTest {
+
+    private static RestApi createApi() {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/products/:id", request -> "product");
+        api.addRoute(HttpMethod.POST, "/products", request -> "created");
+        api.addRoute(HttpMethod.PATCH, "/products/:id", request -> "patched");
+        api.seal();
+        return api;
+    }
+
+    @Test
+    public void testGet() {
+        ServletStubs.RecordedResponse response = ServletStubs.handle(createApi(), "GET", "/products/1");
+        assertEquals(200, response.status);
+        assertEquals("application/json", response.contentType);
+        assertFalse(response.getBodyText().isEmpty());
+    }
+
+    @Test
+    public void testMethodIsCaseInsensitive() {
+        ServletStubs.RecordedResponse response = ServletStubs.handle(createApi(), "patch", "/products/1");
+        assertEquals(200, response.status);
+    }
+
+    @Test
+    public void testHeadUsesGetRouteWithoutBody() {
+        RestApi api = createApi();
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "HEAD", "/products/1");
+        assertEquals(200, response.status);
+        assertEquals("application/json", response.contentType);
+        assertEquals("", response.getBodyText());
+
+        // the JSON body is not serialized, so its length is not known
+        assertEquals(-1, response.contentLength);
+    }
+
+    @Test
+    public void testOptions() {
+        RestApi api = createApi();
+
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "OPTIONS", "/products/1");
+        assertEquals(204, response.status);
+        assertEquals("GET, HEAD, PATCH, OPTIONS", response.headers.get("Allow"));
+
+        response = ServletStubs.handle(api, "OPTIONS", "/products");
+        assertEquals(204, response.status);
+        assertEquals("POST, OPTIONS", response.headers.get("Allow"));
+
+        response = ServletStubs.handle(api, "OPTIONS", "/categories");
+        assertEquals(404, response.status);
+    }
+
+    @Test
+    public void testMethodNotAllowed() {
+        RestApi api = createApi();
+
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "DELETE", "/products/1");
+        assertEquals(405, response.status);
+        assertEquals("GET, HEAD, PATCH, OPTIONS", response.headers.get("Allow"));
+
+        response = ServletStubs.handle(api, "FOO", "/products");
+        assertEquals(405, response.status);
+        assertEquals("POST, OPTIONS", response.headers.get("Allow"));
+    }
+
+    @Test
+    public void testUnknownUrl() {
+        ServletStubs.RecordedResponse response = ServletStubs.handle(createApi(), "GET", "/categories/1");
+        assertEquals(404, response.status);
+        assertNull(response.headers.get("Allow"));
+    }
+
+    @Test
+    public void testRoutesCannotBeAddedAfterSealing() {
+        RestApi api = createApi();
+        assertThrows(IllegalStateException.class, () -> api.addRoute(HttpMethod.GET, "/foo", request -> null));
+    }
+
+    @Test
+    public void testRouteMatchCache() {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.enableRouteMatchCache(64);
+        api.addRoute(HttpMethod.GET, "/health", request -> "ok");
+        api.addRoute(HttpMethod.GET, "/products/:id", request -> request.getPathArguments().get(0).getText());
+        api.addRoute(new Route(HttpMethod.GET, "/categories/:id", (SimpleHandler) request -> "category"),
+                RouteOptions.DEFAULT.withMatchCacheable(true));
+        api.seal();
+
+        ServletStubs.handle(api, "GET", "/health");
+        ServletStubs.handle(api, "GET", "/health");
+        assertEquals(new RouteMatchCacheStatistics(1, 1), api.getRouteMatchCacheStatistics());
+
+        // not cached because the path contains a variable
+        ServletStubs.handle(api, "GET", "/products/1");
+        ServletStubs.handle(api, "GET", "/products/1");
+        assertEquals(new RouteMatchCacheStatistics(1, 3), api.getRouteMatchCacheStatistics());
+
+        // cached because the route allows it
+        ServletStubs.handle(api, "GET", "/categories/1");
+        ServletStubs.RecordedResponse response = ServletStubs.handle(api, "GET", "/categories/1");
+        assertEquals(200, response.status);
+        assertEquals(new RouteMatchCacheStatistics(2, 4), api.getRouteMatchCacheStatistics());
+    }
+
+    @Test
+    public void testPreEncodedErrorResponse() {
+        StandardErrorResponse registered = new StandardErrorResponse(409, "conflict");
+        StandardErrorResponse unregistered = new StandardErrorResponse(409, "conflict");
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.registerPreEncodedResponse(registered);
+        api.addRoute(HttpMethod.GET, "/registered", request -> registered);
+        api.addRoute(HttpMethod.GET, "/unregistered", request -> unregistered);
+        api.addRoute(HttpMethod.GET, "/missing", request -> {
+            throw new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND, false);
+        });
+        api.seal();
+
+        ServletStubs.RecordedResponse expected = ServletStubs.handle(api, "GET", "/unregistered");
+        ServletStubs.RecordedResponse actual = ServletStubs.handle(api, "GET", "/registered");
+        assertEquals(409, actual.status);
+        assertEquals("application/json", actual.contentType);
+        assertEquals(expected.getBodyText(), actual.getBodyText());
+        assertEquals("", ServletStubs.handle(api, "HEAD", "/registered").getBodyText());
+
+        ServletStubs.RecordedResponse missing = ServletStubs.handle(api, "GET", "/missing");
+        assertEquals(404, missing.status);
+        assertTrue(missing.getBodyText().contains("ID not found"));
+    }
+
+    @Test
+    public void testStacklessExceptions() {
+        assertEquals(0, new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND, false).getStackTrace().length);
+        assertNotEquals(0, new FinishRequestException(StandardErrorResponse.ID_NOT_FOUND).getStackTrace().length);
+        assertEquals(0, new QuerystringParsingException(Map.of("x", "invalid"), false).getStackTrace().length);
+    }
+
+}
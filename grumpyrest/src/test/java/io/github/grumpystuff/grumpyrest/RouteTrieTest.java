@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.request.path.Path;
+import io.github.grumpystuff.grumpyrest.request.path.PathSegment;
+import io.github.grumpystuff.grumpyrest.request.path.RequestPath;
+import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
+import io.github.grumpystuff.grumpyrest.request.stringparser.standard.IntegerFromStringParser;
+import io.github.grumpystuff.grumpyrest.request.stringparser.standard.StringFromStringParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteTrieTest {
+
+    private static Route route(String path) {
+        return new Route(HttpMethod.GET, path, (ComplexHandler) requestCycle -> null);
+    }
+
+    private static RouteTrie createTrie() {
+        FromStringParserRegistry registry = new FromStringParserRegistry();
+        registry.register(new StringFromStringParser());
+        registry.register(new IntegerFromStringParser());
+        registry.seal();
+        return new RouteTrie(registry);
+    }
+
+    private static Route match(RouteTrie trie, String path) {
+        RouteMatchResult result = trie.match(RequestPath.parse(path));
+        return result == null ? null : result.route();
+    }
+
+    @Test
+    public void testLiteralAndVariableSegments() {
+        Route products = route("/products");
+        Route product = route("/products/:id");
+        Route productImage = route("/products/:id/image");
+        Route categoryProduct = route("/categories/:categoryId/products/:productId");
+
+        RouteTrie trie = createTrie();
+        trie.add(products);
+        trie.add(product);
+        trie.add(productImage);
+        trie.add(categoryProduct);
+
+        assertSame(products, match(trie, "/products"));
+        assertSame(product, match(trie, "/products/5"));
+        assertSame(productImage, match(trie, "/products/5/image"));
+        assertSame(categoryProduct, match(trie, "/categories/3/products/5"));
+        assertNull(match(trie, "/"));
+        assertNull(match(trie, "/categories"));
+        assertNull(match(trie, "/products/5/thumbnail"));
+        assertNull(match(trie, "/products/5/image/large"));
+    }
+
+    @Test
+    public void testFirstAddedRouteWins() {
+        Route variableFirst = route("/a/:x");
+        Route literalSecond = route("/a/b");
+        Route variableThenLiteral = route("/:x/c");
+        Route literalThenVariable = route("/d/:y");
+        Route duplicate = route("/a/b");
+
+        RouteTrie trie = createTrie();
+        trie.add(variableFirst);
+        trie.add(literalSecond);
+        trie.add(variableThenLiteral);
+        trie.add(literalThenVariable);
+        trie.add(duplicate);
+
+        assertSame(variableFirst, match(trie, "/a/b"));
+        assertSame(variableFirst, match(trie, "/a/c"));
+        assertSame(variableThenLiteral, match(trie, "/d/c"));
+        assertSame(literalThenVariable, match(trie, "/d/e"));
+    }
+
+    @Test
+    public void testLiteralPreferredWhenAddedFirst() {
+        Route literal = route("/a/b");
+        Route variable = route("/a/:x");
+
+        RouteTrie trie = createTrie();
+        trie.add(literal);
+        trie.add(variable);
+
+        assertSame(literal, match(trie, "/a/b"));
+        assertSame(variable, match(trie, "/a/c"));
+    }
+
+    @Test
+    public void testCustomSegment() {
+        PathSegment numeric = new PathSegment() {
+            @Override
+            public boolean matches(String segment) {
+                return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+            }
+        };
+        Route numericRoute = new Route(HttpMethod.GET, new Path(List.of(numeric)), (ComplexHandler) requestCycle -> null);
+        Route fallback = route("/:x");
+
+        RouteTrie trie = createTrie();
+        trie.add(numericRoute);
+        trie.add(fallback);
+
+        assertSame(numericRoute, match(trie, "/123"));
+        assertSame(fallback, match(trie, "/abc"));
+    }
+
+    @Test
+    public void testTypedVariables() throws Exception {
+        Route product = route("/products/:id<int>");
+        Route productByName = route("/products/:name");
+        Route productImage = route("/products/:id<int>/image");
+
+        RouteTrie trie = createTrie();
+        trie.add(product);
+        trie.add(productByName);
+        trie.add(productImage);
+
+        RouteMatchResult result = trie.match(RequestPath.parse("/products/42"));
+        assertNotNull(result);
+        assertSame(product, result.route());
+        assertEquals("42", result.pathArguments().get(0).getText());
+        assertEquals(42, result.pathArguments().get(0).getValue(Integer.class));
+
+        result = trie.match(RequestPath.parse("/products/soap"));
+        assertNotNull(result);
+        assertSame(productByName, result.route());
+        assertEquals("soap", result.pathArguments().get(0).getValue(String.class));
+
+        result = trie.match(RequestPath.parse("/products/7/image"));
+        assertNotNull(result);
+        assertSame(productImage, result.route());
+        assertEquals(7, result.pathArguments().get(0).getValue(Integer.class));
+
+        assertNull(match(trie, "/products/soap/image"));
+    }
+
+    @Test
+    public void testTypedVariableWithoutParser() {
+        RouteTrie trie = createTrie();
+        assertThrows(IllegalStateException.class, () -> trie.add(route("/orders/:date<date>")));
+    }
+
+    @Test
+    public void testUnknownTypeAlias() {
+        assertThrows(IllegalArgumentException.class, () -> route("/orders/:x<foo>"));
+    }
+
+    @Test
+    public void testMatchMethods() {
+        RouteTrie trie = createTrie();
+        trie.add(route("/products/:id"));
+        trie.add(new Route(HttpMethod.POST, "/products/new", (ComplexHandler) requestCycle -> null));
+        trie.add(new Route(HttpMethod.DELETE, "/products/:id<int>", (ComplexHandler) requestCycle -> null));
+
+        int get = 1 << HttpMethod.GET.ordinal();
+        int post = 1 << HttpMethod.POST.ordinal();
+        int delete = 1 << HttpMethod.DELETE.ordinal();
+        assertEquals(get | post, trie.matchMethods(RequestPath.parse("/products/new")));
+        assertEquals(get | delete, trie.matchMethods(RequestPath.parse("/products/42")));
+        assertEquals(get, trie.matchMethods(RequestPath.parse("/products/soap")));
+        assertEquals(0, trie.matchMethods(RequestPath.parse("/orders/42")));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.response.standard.ServerSentEventsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerSentEventsTest {
+
+    private static ServletStubs.RecordedResponse handle(ServerSentEventsResponse events, ServletStubs.AsyncState asyncState) {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.enableResponseCompression();
+        api.enableResponseBuffering(10_000);
+        api.addRoute(HttpMethod.GET, "/events", request -> events);
+        api.seal();
+
+        return ServletStubs.handle(api, ServletStubs.request("GET", "/events", Map.of("Accept-Encoding", "gzip"), asyncState));
+    }
+
+    @Test
+    public void testEventsAreStreamed() {
+        ServerSentEventsResponse events = new ServerSentEventsResponse(10, Duration.ZERO);
+        AtomicInteger closeCount = new AtomicInteger();
+        events.onClose(closeCount::incrementAndGet);
+        assertTrue(events.send("greeting", "hello"));
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = handle(events, asyncState);
+        assertTrue(asyncState.started);
+        assertFalse(asyncState.completed);
+        assertEquals(0, asyncState.timeout);
+        assertEquals(200, response.status);
+        assertEquals("text/event-stream", response.contentType);
+        assertEquals("no-cache", response.headers.get("Cache-Control"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertTrue(response.getBodyText().startsWith("event: greeting\ndata: "));
+        assertTrue(response.getBodyText().endsWith("\n\n"));
+        assertTrue(response.getBodyText().contains("hello"));
+
+        assertTrue(events.send(null, "7", "world"));
+        assertTrue(response.getBodyText().contains("\n\nid: 7\ndata: "));
+        assertTrue(response.getBodyText().contains("world"));
+        assertEquals(0, closeCount.get());
+
+        events.close();
+        assertTrue(asyncState.completed);
+        assertEquals(1, closeCount.get());
+        assertFalse(events.isOpen());
+        assertFalse(events.send("late"));
+    }
+
+    @Test
+    public void testQueueIsBounded() {
+        ServerSentEventsResponse events = new ServerSentEventsResponse(2, Duration.ZERO);
+        assertTrue(events.send("a"));
+        assertTrue(events.send("b"));
+        assertFalse(events.send("c"));
+        assertThrows(IllegalArgumentException.class, () -> events.send("bad\nname", "d"));
+    }
+
+    @Test
+    public void testCloseBeforeTransmitSendsPendingEvents() {
+        ServerSentEventsResponse events = new ServerSentEventsResponse(10, Duration.ZERO);
+        events.send("first");
+        events.close();
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = handle(events, asyncState);
+        assertTrue(asyncState.completed);
+        assertTrue(response.getBodyText().contains("first"));
+    }
+
+    @Test
+    public void testClientDisconnect() throws Exception {
+        ServerSentEventsResponse events = new ServerSentEventsResponse(10, Duration.ZERO);
+        AtomicInteger closeCount = new AtomicInteger();
+        events.onClose(closeCount::incrementAndGet);
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        handle(events, asyncState);
+        asyncState.fireError(new IOException("connection reset"));
+        assertTrue(asyncState.completed);
+        assertEquals(1, closeCount.get());
+        assertFalse(events.send("ignored"));
+    }
+
+    @Test
+    public void testWithoutAsyncSupport() {
+        ServerSentEventsResponse events = new ServerSentEventsResponse();
+        AtomicInteger closeCount = new AtomicInteger();
+        events.onClose(closeCount::incrementAndGet);
+
+        ServletStubs.RecordedResponse response = handle(events, null);
+        assertEquals("text/event-stream", response.contentType);
+        assertEquals(1, closeCount.get());
+        assertFalse(events.isOpen());
+    }
+
+    @Test
+    public void testHeartbeat() throws Exception {
+        ServerSentEventsResponse events = new ServerSentEventsResponse(10, Duration.ofMillis(20));
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = handle(events, asyncState);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getBodyText().startsWith(":\n\n") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(response.getBodyText().startsWith(":\n\n"));
+        events.close();
+        assertTrue(asyncState.completed);
+    }
+
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import io.github.grumpystuff.grumpyrest.servlet.RequestPathSourcingStrategy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Minimal servlet request / response implementations for tests, based on dynamic proxies. Only the methods used by
+ * grumpyrest are implemented; all other methods return null / default values.
+ */
+public final class ServletStubs {
+
+    /**
+     * The path of the single route of the APIs created by {@link #createDataApi(SimpleHandler, Consumer)}.
+     */
+    public static final String DATA_PATH = "/data";
+
+    private ServletStubs() {
+    }
+
+    /**
+     * Creates an API that uses a {@link TestJsonEngine}, lets the caller add routes and enable features, then seals it.
+     */
+    public static RestApi createApi(Consumer<RestApi> configuration) {
+        return createApi(new TestJsonEngine(), configuration);
+    }
+
+    /**
+     * Creates an API that uses the specified engine, lets the caller add routes and enable features, then seals it.
+     */
+    public static RestApi createApi(JsonEngine jsonEngine, Consumer<RestApi> configuration) {
+        RestApi api = new RestApi(jsonEngine);
+        configuration.accept(api);
+        api.seal();
+        return api;
+    }
+
+    /**
+     * Creates an API with a single GET route for {@link #DATA_PATH}. The configuration is applied before the route
+     * gets added.
+     */
+    public static RestApi createDataApi(SimpleHandler handler, Consumer<RestApi> configuration) {
+        return createApi(api -> {
+            configuration.accept(api);
+            api.addRoute(HttpMethod.GET, DATA_PATH, handler);
+        });
+    }
+
+    /**
+     * Builds a header map from alternating names and values. Headers whose value is null are left out, so optional
+     * headers can be passed directly.
+     */
+    public static Map<String, String> headers(String... namesAndValues) {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i + 1] != null) {
+                headers.put(namesAndValues[i], namesAndValues[i + 1]);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Lets the API handle the specified request and records the response.
+     */
+    public static RecordedResponse handle(RestApi api, HttpServletRequest request) {
+        RecordedResponse response = new RecordedResponse();
+        api.handle(new RequestCycle(api, request, response.toServletResponse(), RequestPathSourcingStrategy.PATH_INFO_ONLY));
+        return response;
+    }
+
+    public static RecordedResponse handle(RestApi api, String method, String pathInfo) {
+        return handle(api, request(method, pathInfo));
+    }
+
+    public static RecordedResponse handle(RestApi api, String method, String pathInfo, Map<String, String> headers) {
+        return handle(api, request(method, pathInfo, headers));
+    }
+
+    public static RecordedResponse handle(RestApi api, String method, String pathInfo, Map<String, String> headers,
+                                          AsyncState asyncState) {
+        return handle(api, request(method, pathInfo, headers, asyncState));
+    }
+
+    public static RecordedResponse handle(RestApi api, String method, String pathInfo, String querystring,
+                                          Map<String, String> headers) {
+        return handle(api, request(method, pathInfo, querystring, headers, null, null));
+    }
+
+    /**
+     * Sends a GET request for {@link #DATA_PATH}.
+     */
+    public static RecordedResponse getData(RestApi api, Map<String, String> headers) {
+        return handle(api, "GET", DATA_PATH, headers);
+    }
+
+    /**
+     * Sends a POST request with a JSON body.
+     */
+    public static RecordedResponse postJson(RestApi api, String pathInfo, AsyncState asyncState, RequestBody body) {
+        return handle(api, request("POST", pathInfo, Map.of("Content-Type", "application/json"), asyncState, body));
+    }
+
+    public static HttpServletRequest request(String method, String pathInfo) {
+        return request(method, pathInfo, Map.of());
+    }
+
+    public static HttpServletRequest request(String method, String pathInfo, Map<String, String> headers) {
+        return request(method, pathInfo, headers, null);
+    }
+
+    public static HttpServletRequest request(String method, String pathInfo, Map<String, String> headers, AsyncState asyncState) {
+        return request(method, pathInfo, headers, asyncState, null);
+    }
+
+    public static HttpServletRequest request(
+            String method,
+            String pathInfo,
+            Map<String, String> headers,
+            AsyncState asyncState,
+            RequestBody body
+    ) {
+        return request(method, pathInfo, null, headers, asyncState, body);
+    }
+
+    public static HttpServletRequest request(
+            String method,
+            String pathInfo,
+            String querystring,
+            Map<String, String> headers,
+            AsyncState asyncState,
+            RequestBody body
+    ) {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                ServletStubs.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "getMethod" -> method;
+                    case "getPathInfo" -> pathInfo;
+                    case "getQueryString" -> querystring;
+                    case "getHeader" -> headers.get((String) args[0]);
+                    case "getContentType" -> headers.get("Content-Type");
+                    case "getParameterMap" -> Map.of();
+                    case "getContentLengthLong" -> body == null ? 0L : -1L;
+                    case "getInputStream" -> body == null ? null : body.inputStream;
+                    case "isAsyncSupported" -> asyncState != null;
+                    case "isAsyncStarted" -> asyncState != null && asyncState.started;
+                    case "startAsync", "getAsyncContext" -> {
+                        if (asyncState == null) {
+                            throw new IllegalStateException("async not supported");
+                        }
+                        asyncState.started = true;
+                        yield asyncState.asyncContext;
+                    }
+                    default -> defaultValue(m.getReturnType());
+                }
+        );
+    }
+
+    /**
+     * Records the asynchronous mode of a request.
+     */
+    public static final class AsyncState {
+
+        public volatile boolean started;
+        public volatile boolean completed;
+        public volatile long timeout;
+        public final List<AsyncListener> listeners = new CopyOnWriteArrayList<>();
+
+        final AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(
+                ServletStubs.class.getClassLoader(),
+                new Class<?>[] {AsyncContext.class},
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "setTimeout" -> {
+                        timeout = (Long) args[0];
+                        yield null;
+                    }
+                    case "addListener" -> {
+                        listeners.add((AsyncListener) args[0]);
+                        yield null;
+                    }
+                    case "complete" -> {
+                        completed = true;
+                        yield null;
+                    }
+                    case "start" -> {
+                        ((Runnable) args[0]).run();
+                        yield null;
+                    }
+                    default -> defaultValue(m.getReturnType());
+                }
+        );
+
+        public void fireTimeout() throws IOException {
+            for (AsyncListener listener : listeners) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+        }
+
+        public void fireError(Throwable error) throws IOException {
+            for (AsyncListener listener : listeners) {
+                listener.onError(new AsyncEvent(asyncContext, error));
+            }
+        }
+
+    }
+
+    /**
+     * A request body that is delivered in chunks by the test. Without a read listener, reading never blocks; it just
+     * returns the data delivered so far, then EOF.
+     */
+    public static final class RequestBody {
+
+        private byte[] data = new byte[0];
+        private int position;
+        private boolean finished;
+        private boolean endReadable;
+        private ReadListener listener;
+
+        public RequestBody() {
+        }
+
+        public RequestBody(String text) {
+            data = text.getBytes(StandardCharsets.UTF_8);
+            finished = true;
+        }
+
+        public boolean hasReadListener() {
+            return listener != null;
+        }
+
+        public void deliver(String text) throws IOException {
+            byte[] chunk = text.getBytes(StandardCharsets.UTF_8);
+            byte[] newData = new byte[data.length + chunk.length];
+            System.arraycopy(data, 0, newData, 0, data.length);
+            System.arraycopy(chunk, 0, newData, data.length, chunk.length);
+            data = newData;
+            if (listener != null) {
+                listener.onDataAvailable();
+            }
+        }
+
+        public void finish() throws IOException {
+            finished = true;
+            if (listener != null) {
+                listener.onAllDataRead();
+            }
+        }
+
+        /**
+         * Ends the body like containers that let the reader see the end of the body via read() returning -1,
+         * instead of calling {@link ReadListener#onAllDataRead()}.
+         */
+        public void finishByRead() throws IOException {
+            finished = true;
+            endReadable = true;
+            if (listener != null) {
+                listener.onDataAvailable();
+            }
+        }
+
+        final ServletInputStream inputStream = new ServletInputStream() {
+
+            @Override
+            public boolean isFinished() {
+                return finished && position == data.length;
+            }
+
+            @Override
+            public boolean isReady() {
+                return position < data.length || endReadable;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                listener = readListener;
+            }
+
+            @Override
+            public int read() {
+                return position < data.length ? (data[position++] & 0xff) : -1;
+            }
+
+        };
+
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == Boolean.TYPE) {
+            return false;
+        } else if (type == Integer.TYPE) {
+            return 0;
+        } else if (type == Long.TYPE) {
+            return 0L;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Records everything sent through the response.
+     */
+    public static final class RecordedResponse {
+
+        public int status = 200;
+        public String contentType;
+        public long contentLength = -1;
+        public int writeCalls;
+        public final Map<String, String> headers = new HashMap<>();
+        public final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        public String getBodyText() {
+            return body.toString(StandardCharsets.UTF_8);
+        }
+
+        public HttpServletResponse toServletResponse() {
+            ServletOutputStream outputStream = new ServletOutputStream() {
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void write(int b) {
+                    writeCalls++;
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    writeCalls++;
+                    body.write(b, off, len);
+                }
+
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(
+                    ServletStubs.class.getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class},
+                    (proxy, m, args) -> switch (m.getName()) {
+                        case "setStatus" -> {
+                            status = (Integer) args[0];
+                            yield null;
+                        }
+                        case "setContentType" -> {
+                            contentType = (String) args[0];
+                            yield null;
+                        }
+                        case "addHeader" -> {
+                            headers.merge((String) args[0], (String) args[1], (a, b) -> a + ", " + b);
+                            yield null;
+                        }
+                        case "setHeader" -> {
+                            headers.put((String) args[0], (String) args[1]);
+                            yield null;
+                        }
+                        case "setContentLengthLong" -> {
+                            contentLength = (Long) args[0];
+                            yield null;
+                        }
+                        case "getHeader" -> headers.get((String) args[0]);
+                        case "getOutputStream" -> outputStream;
+                        default -> defaultValue(m.getReturnType());
+                    }
+            );
+        }
+
+    }
+
+}
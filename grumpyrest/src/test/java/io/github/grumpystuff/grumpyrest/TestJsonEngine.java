@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest;
+
+import io.github.grumpystuff.grumpyjson.JsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.serialize.JsonSerializationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * A minimal {@link JsonEngine} for tests that do not depend on a JSON library. It writes the string representation
+ * of the structural JSON model and does not support deserialization.
+ */
+public class TestJsonEngine extends JsonEngine {
+
+    @Override
+    public Object deserialize(Reader source, Type type) throws JsonDeserializationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void writeTo(Object value, Writer destination) throws JsonSerializationException {
+        try {
+            destination.write(toJsonElement(value).toString());
+            destination.flush();
+        } catch (IOException e) {
+            throw new JsonSerializationException(e);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundsAreContiguous() {
+        long lowerBound = 0;
+        for (int index = 0; index < 1000; index++) {
+            assertEquals(index, LatencyHistogram.getBucketIndex(lowerBound));
+            long upperBound = LatencyHistogram.getBucketUpperBound(index);
+            assertTrue(upperBound > lowerBound);
+            assertEquals(index, LatencyHistogram.getBucketIndex(upperBound - 1));
+            lowerBound = upperBound;
+        }
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (long nanos = 1; nanos < 1L << 40; nanos = nanos * 3 + 7) {
+            int index = LatencyHistogram.getBucketIndex(nanos);
+            long upperBound = LatencyHistogram.getBucketUpperBound(index);
+            assertTrue(upperBound > nanos);
+            assertTrue(upperBound - 1 - nanos <= nanos / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testQuantilesAndCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtQuantile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050 * 1_000_000L, histogram.getSumNanos());
+
+        long median = histogram.getValueAtQuantile(0.5);
+        assertTrue(median >= 50_000_000L && median <= 50_000_000L * 33 / 32, "median: " + median);
+        long p99 = histogram.getValueAtQuantile(0.99);
+        assertTrue(p99 >= 99_000_000L && p99 <= 99_000_000L * 33 / 32, "p99: " + p99);
+
+        assertEquals(100, histogram.getCountAtOrBelow(200_000_000L));
+        long atOrBelow10 = histogram.getCountAtOrBelow(10_000_000L);
+        assertTrue(atOrBelow10 >= 9 && atOrBelow10 <= 10, "count: " + atOrBelow10);
+    }
+
+    @Test
+    public void testNegativeAndHugeDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(1, histogram.getCountAtOrBelow(0));
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.request.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestPathTest {
+
+    @Test
+    public void testSegments() {
+        assertEquals(List.of(""), RequestPath.parse("").getSegments());
+        assertEquals(List.of(""), RequestPath.parse("/").getSegments());
+        assertEquals(List.of(""), RequestPath.parse("///").getSegments());
+        assertEquals(List.of("a"), RequestPath.parse("a").getSegments());
+        assertEquals(List.of("a"), RequestPath.parse("/a/").getSegments());
+        assertEquals(List.of("a", "b"), RequestPath.parse("//a/b//").getSegments());
+        assertEquals(List.of("a", "", "b"), RequestPath.parse("/a//b").getSegments());
+    }
+
+    @Test
+    public void testSegmentEquals() {
+        RequestPath path = RequestPath.parse("/products/123/");
+        assertEquals(2, path.getSegmentCount());
+        assertTrue(path.segmentEquals(0, "products"));
+        assertFalse(path.segmentEquals(0, "product"));
+        assertFalse(path.segmentEquals(0, "productsx"));
+        assertTrue(path.segmentEquals(1, "123"));
+        assertEquals("123", path.getSegment(1));
+    }
+
+    @Test
+    public void testSameResultAsSplitIntoSegments() {
+        for (String text : new String[] {"", "/", "a", "/a/b/c", "a//b/", "//x//"}) {
+            assertEquals(List.of(PathUtil.splitIntoSegments(text)), RequestPath.parse(text).getSegments(), text);
+        }
+    }
+
+}
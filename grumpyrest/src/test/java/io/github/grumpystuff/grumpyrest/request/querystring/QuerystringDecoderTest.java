@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.request.querystring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuerystringDecoderTest {
+
+    private static List<String> decode(String rawQuerystring) {
+        QuerystringDecoder decoder = QuerystringDecoder.parse(rawQuerystring);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < decoder.getParameterCount(); i++) {
+            result.add(decoder.getName(i) + "=" + decoder.getValue(i));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSplitting() {
+        assertEquals(List.of(), decode(null));
+        assertEquals(List.of(), decode(""));
+        assertEquals(List.of("a=1"), decode("a=1"));
+        assertEquals(List.of("a=1", "b=2", "a=3"), decode("a=1&b=2&a=3"));
+        assertEquals(List.of("a=", "b="), decode("a&b="));
+        assertEquals(List.of("a=x=y"), decode("a=x=y"));
+        assertEquals(List.of("a=1", "b=2"), decode("&a=1&&b=2&"));
+        assertEquals(List.of("b=2"), decode("=1&b=2"));
+    }
+
+    @Test
+    public void testDecoding() {
+        assertEquals(List.of("a b=c d"), decode("a+b=c%20d"));
+        assertEquals(List.of("name=Grüße €"), decode("name=Gr%C3%BC%C3%9Fe+%E2%82%AC"));
+        assertEquals(List.of("x=a&b"), decode("x=a%26b"));
+        assertEquals(List.of("x=100%", "y=%zz", "z=%4"), decode("x=100%&y=%zz&z=%4"));
+    }
+
+    @Test
+    public void testRegions() {
+        QuerystringDecoder decoder = QuerystringDecoder.parse("abc=1&d%20e=2");
+        assertEquals(2, decoder.getParameterCount());
+        assertFalse(decoder.isNameEncoded(0));
+        assertEquals("abc", decoder.getSource().substring(decoder.getNameStart(0), decoder.getNameEnd(0)));
+        assertTrue(decoder.isNameEncoded(1));
+        assertEquals("d e", decoder.getName(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> decoder.getName(2));
+    }
+
+}
@@ -8,6 +8,7 @@ package io.github.grumpystuff.grumpyrest.request.querystring;
 
 import io.github.grumpystuff.grumpyjson.builtin.helper_types.OptionalField;
 import io.github.grumpystuff.grumpyjson.registry.NotRegisteredException;
+import io.github.grumpystuff.grumpyrest.ExceptionMessages;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParser;
 import io.github.grumpystuff.grumpyrest.request.stringparser.FromStringParserRegistry;
 import io.github.grumpystuff.grumpyrest.request.stringparser.standard.IntegerFromStringParser;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Type;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -116,4 +118,64 @@ public class QuerystringParserRegistryTest {
         );
     }
 
+    @Test
+    public void testRecordFromDecoder() throws Exception {
+        record Foo(int x, String y, OptionalField<String> z) {}
+        QuerystringParserRegistry registry = new QuerystringParserRegistry(fromStringParserRegistry);
+        registry.seal();
+        QuerystringParser parser = registry.get(Foo.class);
+        Assertions.assertEquals(
+            new Foo(5, "a b", OptionalField.ofNothing()),
+            parser.parse(QuerystringDecoder.parse("x=5&y=a+b"), Foo.class)
+        );
+        Assertions.assertEquals(
+            new Foo(5, "abc", OptionalField.ofValue("?")),
+            parser.parse(QuerystringDecoder.parse("%7a=%3F&y=abc&x=5"), Foo.class)
+        );
+
+        var exception = Assertions.assertThrows(
+            QuerystringParsingException.class,
+            () -> parser.parse(QuerystringDecoder.parse("x=5&y=abc&x=x&w=1"), Foo.class)
+        );
+        Assertions.assertEquals(
+            Map.of("x", ExceptionMessages.DUPLICATE_PARAMETER, "w", ExceptionMessages.UNEXPECTED_PARAMETER),
+            exception.getFieldErrors()
+        );
+
+        exception = Assertions.assertThrows(
+            QuerystringParsingException.class,
+            () -> parser.parse(QuerystringDecoder.parse("x=x"), Foo.class)
+        );
+        Assertions.assertEquals(Set.of("x", "y"), exception.getFieldErrors().keySet());
+    }
+
+    @Test
+    public void testDefaultDecoderMethod() throws Exception {
+        QuerystringParser parser = new QuerystringParser() {
+
+            @Override
+            public boolean supportsType(Type type) {
+                return true;
+            }
+
+            @Override
+            public Object parse(Map<String, String> querystring, Type type) throws QuerystringParsingException {
+                if (querystring.containsKey("bad")) {
+                    throw new QuerystringParsingException(Map.of("bad", "bad parameter", "x", "other error"));
+                }
+                return querystring;
+            }
+
+        };
+        Assertions.assertEquals(Map.of("x", "1", "y", ""), parser.parse(QuerystringDecoder.parse("x=1&y"), Map.class));
+        var exception = Assertions.assertThrows(
+            QuerystringParsingException.class,
+            () -> parser.parse(QuerystringDecoder.parse("x=1&x=2&bad"), Map.class)
+        );
+        Assertions.assertEquals(
+            Map.of("x", ExceptionMessages.DUPLICATE_PARAMETER, "bad", "bad parameter"),
+            exception.getFieldErrors()
+        );
+    }
+
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response;
+
+import io.github.grumpystuff.grumpyrest.RequestCycle;
+import io.github.grumpystuff.grumpyrest.RestApi;
+import io.github.grumpystuff.grumpyrest.ServletStubs;
+import io.github.grumpystuff.grumpyrest.TestJsonEngine;
+import io.github.grumpystuff.grumpyrest.servlet.RequestPathSourcingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseFactoryRegistryTest {
+
+    private static final Response RESPONSE_A = transmitter -> {};
+    private static final Response RESPONSE_B = transmitter -> {};
+    private static final Response RESPONSE_SPECIAL = transmitter -> {};
+
+    /**
+     * Supports all values of one class, and records each call.
+     */
+    private record ClassFactory(Class<?> supportedClass, Response response, List<String> calls, String name)
+            implements ResponseFactory {
+
+        @Override
+        public Response createResponse(RequestCycle requestCycle, Object value) {
+            calls.add(name);
+            return supportedClass.isInstance(value) ? response : null;
+        }
+
+        @Override
+        public boolean isClassDetermined() {
+            return true;
+        }
+
+    }
+
+    /**
+     * Supports only the string "special", and records each call.
+     */
+    private record SpecialValueFactory(List<String> calls) implements ResponseFactory {
+
+        @Override
+        public Response createResponse(RequestCycle requestCycle, Object value) {
+            calls.add("special");
+            return "special".equals(value) ? RESPONSE_SPECIAL : null;
+        }
+
+    }
+
+    private static RequestCycle requestCycle() {
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.seal();
+        return new RequestCycle(api, ServletStubs.request("GET", "/"),
+                new ServletStubs.RecordedResponse().toServletResponse(), RequestPathSourcingStrategy.PATH_INFO_ONLY);
+    }
+
+    @Test
+    public void testCacheHitSkipsEarlierClassDeterminedFactories() {
+        List<String> calls = new ArrayList<>();
+        ResponseFactoryRegistry registry = new ResponseFactoryRegistry();
+        registry.register(new ClassFactory(String.class, RESPONSE_A, calls, "string"));
+        registry.register(new ClassFactory(Integer.class, RESPONSE_B, calls, "integer"));
+        registry.seal();
+        RequestCycle requestCycle = requestCycle();
+
+        // later registrations are asked first
+        assertSame(RESPONSE_A, registry.createResponse(requestCycle, "foo"));
+        assertEquals(List.of("integer", "string"), calls);
+
+        calls.clear();
+        assertSame(RESPONSE_A, registry.createResponse(requestCycle, "bar"));
+        assertEquals(List.of("string"), calls);
+    }
+
+    @Test
+    public void testValueDependentFactoriesAreAskedOnEveryCall() {
+        List<String> calls = new ArrayList<>();
+        ResponseFactoryRegistry registry = new ResponseFactoryRegistry();
+        registry.register(new ClassFactory(String.class, RESPONSE_A, calls, "string"));
+        registry.register(new SpecialValueFactory(calls));
+        registry.seal();
+        RequestCycle requestCycle = requestCycle();
+
+        assertSame(RESPONSE_A, registry.createResponse(requestCycle, "foo"));
+        calls.clear();
+        assertSame(RESPONSE_SPECIAL, registry.createResponse(requestCycle, "special"));
+        assertEquals(List.of("special"), calls);
+        calls.clear();
+        assertSame(RESPONSE_A, registry.createResponse(requestCycle, "bar"));
+        assertEquals(List.of("special", "string"), calls);
+    }
+
+    @Test
+    public void testValueDependentFactoryIsNotCached() {
+        List<String> calls = new ArrayList<>();
+        ResponseFactoryRegistry registry = new ResponseFactoryRegistry();
+        registry.register(new ClassFactory(String.class, RESPONSE_A, calls, "string"));
+        registry.register(new SpecialValueFactory(calls));
+        registry.seal();
+        RequestCycle requestCycle = requestCycle();
+
+        // the first value of the class is handled by the value-dependent factory, which must not be remembered
+        assertSame(RESPONSE_SPECIAL, registry.createResponse(requestCycle, "special"));
+        assertSame(RESPONSE_A, registry.createResponse(requestCycle, "foo"));
+        assertSame(RESPONSE_SPECIAL, registry.createResponse(requestCycle, "special"));
+    }
+
+    @Test
+    public void testPrecedenceAfterSeal() {
+        List<String> calls = new ArrayList<>();
+        ResponseFactoryRegistry registry = new ResponseFactoryRegistry();
+        registry.register(new ClassFactory(Object.class, RESPONSE_A, calls, "object"));
+        registry.register(new ClassFactory(String.class, RESPONSE_B, calls, "string"));
+        registry.seal();
+        RequestCycle requestCycle = requestCycle();
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(RESPONSE_B, registry.createResponse(requestCycle, "foo"));
+            assertSame(RESPONSE_A, registry.createResponse(requestCycle, 42));
+        }
+        assertThrows(IllegalStateException.class,
+                () -> registry.register(new ClassFactory(Integer.class, RESPONSE_B, calls, "integer")));
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.response;
+
+import io.github.grumpystuff.grumpyrest.RestApi;
+import io.github.grumpystuff.grumpyrest.ServletStubs;
+import io.github.grumpystuff.grumpyrest.TestJsonEngine;
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingListTest {
+
+    private static ServletStubs.RecordedResponse handle(Object responseValue) {
+        TestJsonEngine engine = new TestJsonEngine();
+        RestApi api = new RestApi(engine);
+        api.addRoute(HttpMethod.GET, "/export", request -> responseValue);
+        api.seal();
+        return ServletStubs.handle(api, ServletStubs.request("GET", "/export"));
+    }
+
+    @Test
+    public void testStream() {
+        TestJsonEngine engine = new TestJsonEngine();
+        engine.seal();
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<Integer> stream = IntStream.range(0, 250).boxed().onClose(() -> closed.set(true));
+
+        ServletStubs.RecordedResponse response = handle(StreamingList.of(stream, Integer.class).withFlushInterval(7));
+        assertEquals(200, response.status);
+        assertEquals("application/json", response.contentType);
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 250; i++) {
+            expected.append(i == 0 ? "" : ",").append(engine.serializeToString(i));
+        }
+        assertEquals(expected.append("]").toString(), response.getBodyText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testEmptyIterator() {
+        ServletStubs.RecordedResponse response = handle(StreamingList.of(List.<String>of().iterator(), String.class));
+        assertEquals(200, response.status);
+        assertEquals("[]", response.getBodyText());
+    }
+
+    @Test
+    public void testUnsupportedElementClass() {
+        class NotJsonable {
+        }
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<NotJsonable> stream = Stream.of(new NotJsonable()).onClose(() -> closed.set(true));
+
+        ServletStubs.RecordedResponse response = handle(StreamingList.of(stream, NotJsonable.class));
+        assertEquals(500, response.status);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testNdjson() {
+        TestJsonEngine engine = new TestJsonEngine();
+        engine.seal();
+
+        ServletStubs.RecordedResponse response = handle(StreamingList.of(Stream.of("a", "b"), String.class).asNdjson());
+        assertEquals(200, response.status);
+        assertEquals("application/x-ndjson", response.contentType);
+        String expected = engine.serializeToString("a") + "\n" + engine.serializeToString("b") + "\n";
+        assertEquals(expected, response.getBodyText());
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.servlet;
+
+import io.github.grumpystuff.grumpyrest.RestApi;
+import io.github.grumpystuff.grumpyrest.ServletStubs;
+import io.github.grumpystuff.grumpyrest.TestJsonEngine;
+import io.github.grumpystuff.grumpyrest.request.HttpMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadRestServletTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static void awaitCompletion(ServletStubs.AsyncState asyncState) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!asyncState.completed) {
+            assertTrue(System.currentTimeMillis() < deadline, "request did not complete");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testHandlerRunsInSeparateThread() throws Exception {
+        Thread containerThread = Thread.currentThread();
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/thread", request -> Thread.currentThread() == containerThread ? "container" : "handler");
+        api.addRoute(HttpMethod.GET, "/async", request -> CompletableFuture.supplyAsync(() -> "done"));
+        api.seal();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, executor, 10);
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/thread", Map.of(), asyncState), response.toServletResponse());
+        awaitCompletion(asyncState);
+        assertEquals(200, response.status);
+        assertTrue(response.getBodyText().contains("handler"));
+
+        asyncState = new ServletStubs.AsyncState();
+        response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/async", Map.of(), asyncState), response.toServletResponse());
+        awaitCompletion(asyncState);
+        assertEquals(200, response.status);
+        assertTrue(response.getBodyText().contains("done"));
+    }
+
+    @Test
+    public void testAsyncHandlingCountsTowardsLimit() throws Exception {
+        Thread containerThread = Thread.currentThread();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CountDownLatch handlerCalled = new CountDownLatch(1);
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/thread", request -> Thread.currentThread() == containerThread ? "container" : "handler");
+        api.addRoute(HttpMethod.GET, "/async", request -> {
+            handlerCalled.countDown();
+            return future;
+        });
+        api.seal();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, executor, 1);
+
+        // the handler returns, but the request continues asynchronously and keeps its permit
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse asyncResponse = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/async", Map.of(), asyncState), asyncResponse.toServletResponse());
+        assertTrue(handlerCalled.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/thread"), response.toServletResponse());
+        assertTrue(response.getBodyText().contains("container"));
+
+        // finishing the request releases the permit
+        future.complete("done");
+        awaitCompletion(asyncState);
+        ServletStubs.AsyncState asyncState2 = new ServletStubs.AsyncState();
+        response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/thread", Map.of(), asyncState2), response.toServletResponse());
+        awaitCompletion(asyncState2);
+        assertTrue(response.getBodyText().contains("handler"));
+    }
+
+    @Test
+    public void testErrorReleasesPermit() throws Exception {
+        Thread containerThread = Thread.currentThread();
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/thread", request -> Thread.currentThread() == containerThread ? "container" : "handler");
+        api.addRoute(HttpMethod.GET, "/never", request -> new CompletableFuture<>());
+        api.seal();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, executor, 1);
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        servlet.service(ServletStubs.request("GET", "/never", Map.of(), asyncState),
+                new ServletStubs.RecordedResponse().toServletResponse());
+        asyncState.fireError(new IOException("client disconnected"));
+
+        ServletStubs.AsyncState asyncState2 = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/thread", Map.of(), asyncState2), response.toServletResponse());
+        awaitCompletion(asyncState2);
+        assertTrue(response.getBodyText().contains("handler"));
+    }
+
+    @Test
+    public void testUsesSuppliedExecutor() throws Exception {
+        AtomicInteger executedTasks = new AtomicInteger();
+        Executor countingExecutor = task -> {
+            executedTasks.incrementAndGet();
+            executor.execute(task);
+        };
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/data", request -> "hello");
+        api.seal();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, countingExecutor, 10);
+
+        ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+        ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/data", Map.of(), asyncState), response.toServletResponse());
+        awaitCompletion(asyncState);
+        assertEquals(200, response.status);
+        assertEquals(1, executedTasks.get());
+    }
+
+    @Test
+    public void testRejectedRequestRunsInContainerThread() {
+        Thread containerThread = Thread.currentThread();
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/thread", request -> Thread.currentThread() == containerThread ? "container" : "handler");
+        api.seal();
+        executor.shutdown();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, executor, 1);
+
+        // the request runs in the container thread, and its permit is released afterwards
+        for (int i = 0; i < 2; i++) {
+            ServletStubs.AsyncState asyncState = new ServletStubs.AsyncState();
+            ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+            servlet.service(ServletStubs.request("GET", "/thread", Map.of(), asyncState), response.toServletResponse());
+            assertTrue(asyncState.completed);
+            assertTrue(response.getBodyText().contains("container"));
+        }
+    }
+
+    @Test
+    public void testWithoutAsyncSupport() {
+        Thread containerThread = Thread.currentThread();
+        RestApi api = new RestApi(new TestJsonEngine());
+        api.addRoute(HttpMethod.GET, "/thread", request -> Thread.currentThread() == containerThread ? "container" : "handler");
+        api.seal();
+        VirtualThreadRestServlet servlet = new VirtualThreadRestServlet(api, RequestPathSourcingStrategy.PATH_INFO_ONLY, executor, 10);
+
+        ServletStubs.RecordedResponse response = new ServletStubs.RecordedResponse();
+        servlet.service(ServletStubs.request("GET", "/thread"), response.toServletResponse());
+        assertTrue(response.getBodyText().contains("container"));
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023 Martin Geisse
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package io.github.grumpystuff.grumpyrest.util;
+
+import io.github.grumpystuff.grumpyjson.StructuralJsonEngine;
+import io.github.grumpystuff.grumpyjson.deserialize.JsonDeserializationException;
+import io.github.grumpystuff.grumpyjson.json_model.JsonElement;
+import io.github.grumpystuff.grumpyjson.json_model.JsonNumber;
+import io.github.grumpystuff.grumpyjson.json_model.JsonString;
+import io.github.grumpystuff.grumpyrest.TestJsonEngine;
+import io.github.grumpystuff.grumpyrest.response.FinishRequestException;
+import io.github.grumpystuff.grumpyrest.response.standard.StandardErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonLinesTest {
+
+    /**
+     * Only understands integers, which is enough to test line handling.
+     */
+    private static class IntegerEngine extends TestJsonEngine {
+
+        @Override
+        public Object deserialize(Reader source, Type type) throws JsonDeserializationException {
+            StringWriter writer = new StringWriter();
+            try {
+                source.transferTo(writer);
+                return deserialize(JsonNumber.of(Integer.parseInt(writer.toString().trim())), type);
+            } catch (IOException | NumberFormatException e) {
+                throw new JsonDeserializationException("syntax error");
+            }
+        }
+
+    }
+
+    private static StandardErrorResponse expectError(Iterator<?> iterator) {
+        FinishRequestException exception = assertThrows(FinishRequestException.class, iterator::next);
+        return (StandardErrorResponse) exception.getWrappedResponseValue();
+    }
+
+    @Test
+    public void testParse() {
+        IntegerEngine engine = new IntegerEngine();
+        engine.seal();
+        Iterator<Object> iterator = NdjsonLines.parse(engine, new StringReader("1\n\n 2\r\n  \nfoo\n3"), Integer.class);
+        assertEquals(1, iterator.next());
+        assertEquals(2, iterator.next());
+        StandardErrorResponse error = expectError(iterator);
+        assertEquals(400, error.status());
+        assertEquals("2", error.fields().get(0).path());
+        assertEquals(3, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testDeserialize() {
+        StructuralJsonEngine engine = new StructuralJsonEngine();
+        engine.seal();
+        List<JsonElement> elements = List.of(JsonNumber.of(1), JsonString.of("x"), JsonNumber.of(3));
+        Iterator<Object> iterator = NdjsonLines.deserialize(engine, elements, Integer.class);
+        assertEquals(1, iterator.next());
+        assertEquals("1", expectError(iterator).fields().get(0).path());
+        assertEquals(3, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+}